@@ -0,0 +1,46 @@
+package com.example.ikm.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+
+/**
+ * Конфигурация допуска запросов: по одному ограничителю на каждый класс обработчиков.
+ * Включается свойством ikm.admission.enabled=true.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - конфигурация активна только при включенном допуске</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки допуска</li>
+ *   <li>@Scheduled - периодическое удаление полных корзин неактивных клиентов</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.admission", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig {
+    private final List<EndpointClassLimiter> limiters;
+
+    public AdmissionConfig(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.limiters = properties.getClasses().entrySet().stream()
+                .map(entry -> new EndpointClassLimiter(entry.getKey(), entry.getValue(), meterRegistry))
+                .toList();
+    }
+
+    @Bean
+    public AdmissionInterceptor admissionInterceptor() {
+        return new AdmissionInterceptor(limiters);
+    }
+
+    @Scheduled(fixedDelayString = "${ikm.admission.eviction-interval:1m}")
+    public void evictFullBuckets() {
+        limiters.forEach(EndpointClassLimiter::evictFullBuckets);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ikm.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Применяет допуск к запросам, обработчик которых входит в один из классов
+ * (ikm.admission.classes.*.paths). Отказ - ответ 429 с заголовком Retry-After.
+ *
+ * <p>Клиент определяется по адресу запроса; за обратным прокси нужен
+ * server.forward-headers-strategy, чтобы адресом был адрес клиента, а не прокси.</p>
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+    private static final String LIMITER_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".limiter";
+
+    private final Map<String, EndpointClassLimiter> limitersByPath = new HashMap<>();
+
+    public AdmissionInterceptor(List<EndpointClassLimiter> limiters) {
+        for (EndpointClassLimiter limiter : limiters) {
+            for (String path : limiter.getSettings().getPaths()) {
+                limitersByPath.put(path, limiter);
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        EndpointClassLimiter limiter = pattern != null ? limitersByPath.get(pattern.toString()) : null;
+        if (limiter == null) {
+            return true;
+        }
+
+        EndpointClassLimiter.Decision decision = limiter.admit(request.getRemoteAddr(), cost(request, limiter));
+        if (decision.admitted()) {
+            request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+            return true;
+        }
+
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(decision.retryAfterNanos() + 999_999_999));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Слишком много запросов, повторите через " + retryAfterSeconds + " с");
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(LIMITER_ATTRIBUTE) instanceof EndpointClassLimiter limiter) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            limiter.release();
+        }
+    }
+
+    /**
+     * Стоимость запроса: наибольшая из стоимостей по searchType и по указанным параметрам, не меньше 1.
+     */
+    static int cost(HttpServletRequest request, EndpointClassLimiter limiter) {
+        AdmissionProperties.EndpointClass settings = limiter.getSettings();
+        int cost = 1;
+        String searchType = request.getParameter("searchType");
+        if (searchType != null) {
+            cost = Math.max(cost, settings.getSearchTypeCosts().getOrDefault(searchType, 1));
+        }
+        for (Map.Entry<String, Integer> parameterCost : settings.getParameterCosts().entrySet()) {
+            String value = request.getParameter(parameterCost.getKey());
+            if (value != null && !value.isBlank()) {
+                cost = Math.max(cost, parameterCost.getValue());
+            }
+        }
+        return cost;
+    }
+}
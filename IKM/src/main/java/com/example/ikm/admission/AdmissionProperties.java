@@ -0,0 +1,113 @@
+package com.example.ikm.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки допуска запросов: ограничение частоты для каждого клиента
+ * и ограничение параллельности для каждого класса обработчиков.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.admission.enabled=true
+ * ikm.admission.classes.search.paths=/books/search,/authors/search,/genres/search
+ * ikm.admission.classes.search.capacity=60
+ * ikm.admission.classes.search.refill-per-second=10
+ * ikm.admission.classes.search.search-type-costs.feedback=10
+ * ikm.admission.classes.search.parameter-costs.genreId=5
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.admission")
+public class AdmissionProperties {
+    /**
+     * Включает допуск запросов; при превышении лимитов клиент получает 429 Too Many Requests.
+     */
+    private boolean enabled;
+
+    /**
+     * Классы обработчиков по имени. Запрос относится к классу по шаблону обработчика (например /books/search).
+     */
+    private Map<String, EndpointClass> classes = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Map<String, EndpointClass> getClasses() { return classes; }
+    public void setClasses(Map<String, EndpointClass> classes) { this.classes = classes; }
+
+    /**
+     * Лимиты одного класса обработчиков.
+     */
+    public static class EndpointClass {
+        /**
+         * Шаблоны обработчиков, входящих в класс.
+         */
+        private List<String> paths = new ArrayList<>();
+
+        /**
+         * Емкость корзины токенов клиента: сколько единиц стоимости можно потратить подряд.
+         */
+        private int capacity = 60;
+
+        /**
+         * Скорость пополнения корзины клиента, токенов в секунду.
+         */
+        private double refillPerSecond = 10;
+
+        /**
+         * Сколько запросов класса выполняется одновременно (от всех клиентов).
+         */
+        private int maxConcurrent = 8;
+
+        /**
+         * Сколько запросов может ждать освобождения места; остальные сразу получают 429.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * Максимальное время ожидания в очереди.
+         */
+        private Duration queueTimeout = Duration.ofMillis(500);
+
+        /**
+         * Стоимость запроса в токенах по значению параметра searchType.
+         */
+        private Map<String, Integer> searchTypeCosts = new HashMap<>();
+
+        /**
+         * Стоимость запроса в токенах, если в нем указан параметр (например genreId).
+         */
+        private Map<String, Integer> parameterCosts = new HashMap<>();
+
+        public List<String> getPaths() { return paths; }
+        public void setPaths(List<String> paths) { this.paths = paths; }
+
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+
+        public double getRefillPerSecond() { return refillPerSecond; }
+        public void setRefillPerSecond(double refillPerSecond) { this.refillPerSecond = refillPerSecond; }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public Duration getQueueTimeout() { return queueTimeout; }
+        public void setQueueTimeout(Duration queueTimeout) { this.queueTimeout = queueTimeout; }
+
+        public Map<String, Integer> getSearchTypeCosts() { return searchTypeCosts; }
+        public void setSearchTypeCosts(Map<String, Integer> searchTypeCosts) { this.searchTypeCosts = searchTypeCosts; }
+
+        public Map<String, Integer> getParameterCosts() { return parameterCosts; }
+        public void setParameterCosts(Map<String, Integer> parameterCosts) { this.parameterCosts = parameterCosts; }
+    }
+}
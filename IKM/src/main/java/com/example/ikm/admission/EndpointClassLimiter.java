@@ -0,0 +1,155 @@
+package com.example.ikm.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Допуск запросов одного класса обработчиков.
+ *
+ * <p>Сначала списываются токены из корзины клиента (стоимость зависит от запроса),
+ * затем запрос занимает одно из maxConcurrent мест. Если мест нет, запрос ждет в очереди
+ * ограниченной длины не дольше queueTimeout; при переполненной очереди отказ выдается сразу.</p>
+ *
+ * <p>Метрики: ikm.admission.requests (теги class, outcome), ikm.admission.queue.wait,
+ * ikm.admission.queue.size и ikm.admission.active.</p>
+ */
+public class EndpointClassLimiter {
+
+    /**
+     * Результат допуска.
+     */
+    public enum Outcome {
+        ADMITTED, RATE_LIMITED, QUEUE_FULL, QUEUE_TIMEOUT
+    }
+
+    /**
+     * Решение по запросу.
+     *
+     * @param outcome результат
+     * @param retryAfterNanos через сколько имеет смысл повторить запрос (для отказов)
+     */
+    public record Decision(Outcome outcome, long retryAfterNanos) {
+        public boolean admitted() {
+            return outcome == Outcome.ADMITTED;
+        }
+    }
+
+    private final String name;
+    private final AdmissionProperties.EndpointClass settings;
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+    private final Timer queueWait;
+
+    public EndpointClassLimiter(String name, AdmissionProperties.EndpointClass settings, MeterRegistry registry) {
+        this.name = name;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.getMaxConcurrent(), true);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("ikm.admission.requests")
+                    .description("Решения допуска запросов")
+                    .tag("class", name)
+                    .tag("outcome", outcome.name().toLowerCase())
+                    .register(registry));
+        }
+        this.queueWait = Timer.builder("ikm.admission.queue.wait")
+                .description("Время ожидания места в очереди")
+                .tag("class", name)
+                .register(registry);
+        Gauge.builder("ikm.admission.queue.size", waiting, AtomicInteger::get)
+                .description("Запросы, ожидающие места")
+                .tag("class", name)
+                .register(registry);
+        Gauge.builder("ikm.admission.active", this,
+                        limiter -> settings.getMaxConcurrent() - limiter.permits.availablePermits())
+                .description("Выполняющиеся запросы класса")
+                .tag("class", name)
+                .register(registry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public AdmissionProperties.EndpointClass getSettings() {
+        return settings;
+    }
+
+    /**
+     * Допускает запрос клиента или отказывает ему. Допущенный запрос обязан вызвать {@link #release()}.
+     *
+     * @param client ключ клиента
+     * @param cost стоимость запроса в токенах
+     * @return решение
+     */
+    public Decision admit(String client, int cost) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(client,
+                key -> new TokenBucket(settings.getCapacity(), settings.getRefillPerSecond(), now));
+        long retryAfter = bucket.tryAcquire(Math.min(cost, settings.getCapacity()), now);
+        if (retryAfter > 0) {
+            return reject(Outcome.RATE_LIMITED, retryAfter);
+        }
+
+        if (permits.tryAcquire()) {
+            return admitted();
+        }
+        if (waiting.incrementAndGet() > settings.getQueueCapacity()) {
+            waiting.decrementAndGet();
+            return reject(Outcome.QUEUE_FULL, settings.getQueueTimeout().toNanos());
+        }
+        long started = System.nanoTime();
+        try {
+            if (permits.tryAcquire(settings.getQueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                return admitted();
+            }
+            return reject(Outcome.QUEUE_TIMEOUT, settings.getQueueTimeout().toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject(Outcome.QUEUE_TIMEOUT, settings.getQueueTimeout().toNanos());
+        } finally {
+            waiting.decrementAndGet();
+            queueWait.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Освобождает место, занятое допущенным запросом.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Удаляет полные корзины: новая корзина для того же клиента была бы такой же.
+     */
+    public void evictFullBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private Decision admitted() {
+        outcomes.get(Outcome.ADMITTED).increment();
+        return new Decision(Outcome.ADMITTED, 0);
+    }
+
+    private Decision reject(Outcome outcome, long retryAfterNanos) {
+        outcomes.get(outcome).increment();
+        return new Decision(outcome, retryAfterNanos);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ikm.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Корзина токенов без блокировок (алгоритм GCRA).
+ *
+ * <p>Состояние корзины - одно число: теоретическое время, к которому были бы израсходованы
+ * все уже списанные токены. Списание - сдвиг этого времени на стоимость запроса через CAS;
+ * запрос отклоняется, если сдвиг уходит дальше текущего момента больше, чем на емкость корзины.</p>
+ */
+public final class TokenBucket {
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param capacity емкость корзины в токенах
+     * @param tokensPerSecond скорость пополнения
+     * @param nowNanos текущее время (System.nanoTime), корзина создается полной
+     */
+    public TokenBucket(int capacity, double tokensPerSecond, long nowNanos) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = capacity * nanosPerToken;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Пытается списать токены.
+     *
+     * @param cost количество токенов
+     * @param nowNanos текущее время (System.nanoTime)
+     * @return 0, если токены списаны; иначе через сколько наносекунд их станет достаточно
+     */
+    public long tryAcquire(int cost, long nowNanos) {
+        long increment = cost * nanosPerToken;
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + increment;
+            long overflow = next - nowNanos - burstNanos;
+            if (overflow > 0) {
+                return overflow;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что корзина снова полная и ее можно удалить без потери состояния.
+     *
+     * @param nowNanos текущее время (System.nanoTime)
+     * @return true, если все токены восстановлены
+     */
+    public boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.ikm.audit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+
+/**
+ * Конфигурация журнала аудита изменений каталога.
+ * Отключается свойством ikm.audit.enabled=false.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - журнал включен, если не отключен явно</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки журнала</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    @Bean
+    public AuditLog auditLog(AuditProperties properties, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry)
+            throws IOException {
+        AuditFileWriter files = new AuditFileWriter(properties.getDirectory(),
+                properties.getMaxFileSize().toBytes(), properties.getMaxFiles());
+        AuditTable table = properties.isTableEnabled() ? new AuditTable(jdbcTemplate, transactionManager) : null;
+        return new AuditLog(properties, files, table, meterRegistry);
+    }
+}
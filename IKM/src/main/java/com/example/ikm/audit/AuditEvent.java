@@ -0,0 +1,16 @@
+package com.example.ikm.audit;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала аудита: кто, когда и как изменил книгу, автора или жанр.
+ *
+ * @param time время фиксации изменения
+ * @param actor адрес клиента, выполнившего запрос ("system" для фоновых операций)
+ * @param endpoint обработчик запроса ("POST /books/edit/{id}") или "-" вне запроса
+ * @param entity тип сущности (BOOK, AUTHOR, GENRE)
+ * @param entityId идентификатор сущности или null, если изменено множество строк
+ * @param change вид изменения (CREATED, UPDATED, DELETED)
+ */
+public record AuditEvent(Instant time, String actor, String endpoint, String entity, Long entityId, String change) {
+}
@@ -0,0 +1,103 @@
+package com.example.ikm.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Запись журнала аудита в файлы: строки с полями через табуляцию, дописываемые в audit.log
+ * через {@link FileChannel}. Когда файл превышает заданный размер, он переименовывается
+ * в audit.log.1 (прежние копии сдвигаются, старше maxFiles удаляются) и открывается новый.
+ *
+ * <p>Класс не потокобезопасен: используется только потоком записи аудита.</p>
+ */
+final class AuditFileWriter implements AutoCloseable {
+    static final String FILE_NAME = "audit.log";
+
+    private final Path directory;
+    private final long maxFileSize;
+    private final int maxFiles;
+    private final StringBuilder line = new StringBuilder(256);
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private FileChannel channel;
+    private boolean dirty;
+
+    AuditFileWriter(Path directory, long maxFileSize, int maxFiles) throws IOException {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        Files.createDirectories(directory);
+        open();
+    }
+
+    /**
+     * Дописывает записи одной операцией записи в канал.
+     */
+    void append(List<AuditEvent> events) throws IOException {
+        buffer.clear();
+        for (AuditEvent event : events) {
+            line.setLength(0);
+            line.append(event.time()).append('\t')
+                    .append(event.actor()).append('\t')
+                    .append(event.endpoint()).append('\t')
+                    .append(event.entity()).append('\t')
+                    .append(event.entityId() != null ? event.entityId().toString() : "-").append('\t')
+                    .append(event.change()).append('\n');
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (buffer.remaining() < bytes.length) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes.length));
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+            buffer.put(bytes);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        dirty = true;
+        if (channel.size() >= maxFileSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * Сбрасывает записанные данные на диск, если после предыдущего сброса что-то записано.
+     */
+    void force() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(directory.resolve(FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        Files.deleteIfExists(directory.resolve(FILE_NAME + "." + maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = directory.resolve(FILE_NAME + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, directory.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(directory.resolve(FILE_NAME), directory.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+}
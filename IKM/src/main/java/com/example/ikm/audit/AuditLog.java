@@ -0,0 +1,146 @@
+package com.example.ikm.audit;
+
+import com.example.ikm.monitoring.RequestEndpointInterceptor;
+import com.example.ikm.service.CatalogChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Журнал аудита изменений каталога, не задерживающий запись.
+ *
+ * <p>Каждое зафиксированное {@link CatalogChangedEvent} вместе с адресом клиента и обработчиком
+ * запроса помещается в кольцевой буфер без блокировок ({@link AuditRingBuffer}); поток запроса
+ * не выполняет ни ввода-вывода, ни ожидания. Единственный поток записи забирает записи пакетами
+ * и дописывает их в файлы ({@link AuditFileWriter}), а при ikm.audit.table-enabled=true - еще
+ * и в таблицу audit_log. Если буфер полон (поток записи не успевает), запись отбрасывается.</p>
+ *
+ * <p>Метрики: ikm.audit.backlog - записи в буфере, ikm.audit.events{outcome=written|dropped|failed} -
+ * записанные, отброшенные при полном буфере и не записанные из-за ошибки ввода-вывода.</p>
+ */
+public class AuditLog implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final AuditFileWriter files;
+    private final AuditTable table;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    AuditLog(AuditProperties properties, AuditFileWriter files, AuditTable table, MeterRegistry meterRegistry) {
+        this.buffer = new AuditRingBuffer<>(properties.getBufferCapacity());
+        this.files = files;
+        this.table = table;
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.written = counter(meterRegistry, "written");
+        this.dropped = counter(meterRegistry, "dropped");
+        this.failed = counter(meterRegistry, "failed");
+        Gauge.builder("ikm.audit.backlog", buffer, AuditRingBuffer::size)
+                .description("Записи аудита, ожидающие записи")
+                .register(meterRegistry);
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        String endpoint = MDC.get(RequestEndpointInterceptor.MDC_KEY);
+        AuditEvent audit = new AuditEvent(Instant.now(), actor(), endpoint != null ? endpoint : "-",
+                event.entity().name(), event.id(), event.change().name());
+        if (!buffer.offer(audit)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Останавливает поток записи, дописав записи, уже помещенные в буфер.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        while (running || buffer.size() > 0) {
+            batch.clear();
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                write(batch);
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            if (System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                flush();
+                lastFlush = System.nanoTime();
+            }
+        }
+        try {
+            files.close();
+        } catch (IOException e) {
+            log.warn("Файл журнала аудита не закрыт", e);
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        try {
+            files.append(batch);
+            if (table != null) {
+                table.insert(batch);
+            }
+            written.increment(batch.size());
+        } catch (IOException | RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("Не записано {} записей аудита", batch.size(), e);
+        }
+    }
+
+    private void flush() {
+        try {
+            files.force();
+        } catch (IOException e) {
+            log.warn("Журнал аудита не сброшен на диск", e);
+        }
+    }
+
+    private static String actor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return servlet.getRequest().getRemoteAddr();
+        }
+        return "system";
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ikm.audit.events")
+                .description("Записи журнала аудита")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.ikm.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки журнала аудита изменений каталога.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.audit.directory=data/audit
+ * ikm.audit.max-file-size=64MB
+ * ikm.audit.table-enabled=true
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.audit")
+public class AuditProperties {
+    /**
+     * Включает журнал аудита.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Каталог файлов журнала (audit.log и сдвинутые копии audit.log.1, audit.log.2, ...).
+     */
+    private Path directory = Path.of("data/audit");
+
+    /**
+     * Емкость буфера записей, ожидающих записи (округляется до степени двойки);
+     * записи, не поместившиеся в буфер, отбрасываются и учитываются в метрике.
+     */
+    private int bufferCapacity = 8192;
+
+    /**
+     * Наибольшее количество записей, записываемых за одну операцию.
+     */
+    private int batchSize = 512;
+
+    /**
+     * Размер файла, после которого открывается новый файл.
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Количество хранимых сдвинутых файлов.
+     */
+    private int maxFiles = 10;
+
+    /**
+     * Интервал сброса файла на диск (fsync).
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * Дополнительно записывать аудит в таблицу audit_log (пакетами, тем же потоком).
+     */
+    private boolean tableEnabled;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+
+    public int getBufferCapacity() { return bufferCapacity; }
+    public void setBufferCapacity(int bufferCapacity) { this.bufferCapacity = bufferCapacity; }
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public DataSize getMaxFileSize() { return maxFileSize; }
+    public void setMaxFileSize(DataSize maxFileSize) { this.maxFileSize = maxFileSize; }
+
+    public int getMaxFiles() { return maxFiles; }
+    public void setMaxFiles(int maxFiles) { this.maxFiles = maxFiles; }
+
+    public Duration getFlushInterval() { return flushInterval; }
+    public void setFlushInterval(Duration flushInterval) { this.flushInterval = flushInterval; }
+
+    public boolean isTableEnabled() { return tableEnabled; }
+    public void setTableEnabled(boolean tableEnabled) { this.tableEnabled = tableEnabled; }
+}
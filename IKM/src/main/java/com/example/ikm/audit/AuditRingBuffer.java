@@ -0,0 +1,99 @@
+package com.example.ikm.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный кольцевой буфер без блокировок: много производителей, один потребитель.
+ *
+ * <p>Каждая ячейка хранит номер, по которому видно ее состояние: ячейка свободна для позиции p,
+ * если номер равен p, и заполнена, если номер равен p + 1. Производитель занимает позицию
+ * сравнением с обменом хвоста, записывает элемент и публикует его номером ячейки; потребитель
+ * читает заполненные ячейки по порядку и освобождает их для следующего круга. Если буфер полон,
+ * {@link #offer} сразу возвращает false, производитель никогда не ждет.</p>
+ *
+ * @param <E> тип элемента
+ */
+final class AuditRingBuffer<E> {
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** Изменяется только потребителем. */
+    private volatile long head;
+
+    /**
+     * @param capacity емкость буфера (округляется вверх до степени двойки)
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Добавляет элемент, если в буфере есть место. Может вызываться из любых потоков.
+     *
+     * @return false, если буфер полон
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // ячейка еще не прочитана потребителем с прошлого круга
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Переносит до {@code max} элементов в список. Вызывается только потоком-потребителем.
+     *
+     * @return количество перенесенных элементов
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<E> target, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            target.add((E) elements[index]);
+            elements[index] = null;
+            sequences.set(index, position + elements.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * @return количество занятых, но еще не прочитанных ячеек (приблизительно при параллельной записи)
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ikm.audit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Пакетная запись журнала аудита в таблицу audit_log: одна транзакция и один пакет
+ * INSERT на пакет записей потока аудита.
+ */
+final class AuditTable {
+    private static final String INSERT = "INSERT INTO audit_log (occurred_at, actor, endpoint, entity, entity_id, change) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+
+    AuditTable(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // не read-only: запись идет в основную БД
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    void insert(List<AuditEvent> events) {
+        transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, events, events.size(),
+                (statement, event) -> {
+                    statement.setTimestamp(1, Timestamp.from(event.time()));
+                    statement.setString(2, event.actor());
+                    statement.setString(3, event.endpoint());
+                    statement.setString(4, event.entity());
+                    if (event.entityId() != null) {
+                        statement.setLong(5, event.entityId());
+                    } else {
+                        statement.setNull(5, Types.BIGINT);
+                    }
+                    statement.setString(6, event.change());
+                }));
+    }
+}
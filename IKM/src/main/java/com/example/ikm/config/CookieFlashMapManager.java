@@ -0,0 +1,208 @@
+package com.example.ikm.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.FlashMap;
+import org.springframework.web.servlet.support.AbstractFlashMapManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Хранит flash-атрибуты (сообщения после redirect) в cookie вместо HTTP-сессии.
+ * Сессия не создается, поэтому страницу после redirect может отдать любой узел.
+ *
+ * <p>Cookie содержит сериализованные flash-карты и их HMAC-SHA256 подпись;
+ * cookie с неверной подписью игнорируется. Срок жизни cookie равен сроку жизни flash-карт.
+ * Значениями атрибутов могут быть только строки.</p>
+ */
+public class CookieFlashMapManager extends AbstractFlashMapManager {
+    static final String COOKIE_NAME = "ikm-flash";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String FLASH_MAPS_ATTRIBUTE = CookieFlashMapManager.class.getName() + ".FLASH_MAPS";
+    /**
+     * Ограничение браузеров на размер cookie - около 4 КБ вместе с именем и атрибутами.
+     */
+    private static final int MAX_COOKIE_VALUE_LENGTH = 3800;
+
+    private final SecretKeySpec key;
+
+    public CookieFlashMapManager(byte[] secret, int timeoutSeconds) {
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        setFlashMapTimeout(timeoutSeconds);
+    }
+
+    @Override
+    protected List<FlashMap> retrieveFlashMaps(HttpServletRequest request) {
+        // карты, уже измененные в этом запросе, важнее пришедших в cookie
+        @SuppressWarnings("unchecked")
+        List<FlashMap> updated = (List<FlashMap>) request.getAttribute(FLASH_MAPS_ATTRIBUTE);
+        if (updated != null) {
+            return updated;
+        }
+        String value = cookieValue(request);
+        return value != null ? decode(value) : null;
+    }
+
+    @Override
+    protected void updateFlashMaps(List<FlashMap> flashMaps, HttpServletRequest request,
+                                   HttpServletResponse response) {
+        List<FlashMap> maps = new ArrayList<>(flashMaps);
+        request.setAttribute(FLASH_MAPS_ATTRIBUTE, maps);
+
+        String value = encode(maps);
+        while (value != null && value.length() > MAX_COOKIE_VALUE_LENGTH) {
+            logger.warn("Flash-атрибуты не помещаются в cookie, старейшая flash-карта отброшена");
+            maps.remove(0);
+            value = encode(maps);
+        }
+
+        if (value == null) {
+            if (cookieValue(request) != null) {
+                response.addCookie(cookie(request, "", 0));
+            }
+        } else {
+            response.addCookie(cookie(request, value, getFlashMapTimeout()));
+        }
+    }
+
+    /**
+     * Состояние хранится у клиента, общая блокировка между запросами не нужна.
+     */
+    @Override
+    protected Object getFlashMapsMutex(HttpServletRequest request) {
+        return null;
+    }
+
+    private Cookie cookie(HttpServletRequest request, String value, int maxAge) {
+        Cookie cookie = new Cookie(COOKIE_NAME, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setAttribute("SameSite", "Lax");
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+
+    private static String cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Кодирует flash-карты в значение cookie: base64url(данные).base64url(подпись).
+     *
+     * @return значение cookie или null, если карт нет
+     */
+    String encode(List<FlashMap> flashMaps) {
+        if (flashMaps.isEmpty()) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(flashMaps.size());
+            for (FlashMap flashMap : flashMaps) {
+                out.writeLong(flashMap.getExpirationTime());
+                out.writeUTF(flashMap.getTargetRequestPath() != null ? flashMap.getTargetRequestPath() : "");
+                out.writeInt(flashMap.getTargetRequestParams().size());
+                for (Map.Entry<String, List<String>> param : flashMap.getTargetRequestParams().entrySet()) {
+                    out.writeUTF(param.getKey());
+                    out.writeInt(param.getValue().size());
+                    for (String value : param.getValue()) {
+                        out.writeUTF(value);
+                    }
+                }
+                out.writeInt(flashMap.size());
+                for (Map.Entry<String, Object> attribute : flashMap.entrySet()) {
+                    if (!(attribute.getValue() instanceof String value)) {
+                        throw new IllegalArgumentException(
+                                "Flash-атрибут '" + attribute.getKey() + "' должен быть строкой");
+                    }
+                    out.writeUTF(attribute.getKey());
+                    out.writeUTF(value);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    /**
+     * Проверяет подпись и восстанавливает flash-карты из значения cookie.
+     *
+     * @return список карт или null, если cookie поврежден или подделан
+     */
+    List<FlashMap> decode(String value) {
+        int separator = value.indexOf('.');
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(value.substring(0, separator));
+            byte[] signature = decoder.decode(value.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                logger.debug("Cookie с flash-атрибутами отклонен: неверная подпись");
+                return null;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            int count = in.readInt();
+            List<FlashMap> flashMaps = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                FlashMap flashMap = new FlashMap();
+                flashMap.setExpirationTime(in.readLong());
+                String path = in.readUTF();
+                flashMap.setTargetRequestPath(path.isEmpty() ? null : path);
+                int params = in.readInt();
+                for (int p = 0; p < params; p++) {
+                    String name = in.readUTF();
+                    int values = in.readInt();
+                    for (int v = 0; v < values; v++) {
+                        flashMap.addTargetRequestParam(name, in.readUTF());
+                    }
+                }
+                int attributes = in.readInt();
+                for (int a = 0; a < attributes; a++) {
+                    flashMap.put(in.readUTF(), in.readUTF());
+                }
+                flashMaps.add(flashMap);
+            }
+            return flashMaps;
+        } catch (IllegalArgumentException | IOException e) {
+            logger.debug("Cookie с flash-атрибутами отклонен: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
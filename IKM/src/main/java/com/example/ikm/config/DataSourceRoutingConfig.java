@@ -0,0 +1,95 @@
+package com.example.ikm.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конфигурация маршрутизации соединений между основной БД и репликами.
+ * Включается свойством ikm.datasource.routing.enabled=true.
+ *
+ * <p>Соединение выбирается лениво, при первом запросе внутри транзакции, когда уже известно,
+ * является ли транзакция read-only: транзакции {@code @Transactional(readOnly = true)}
+ * получают соединение с репликой, остальные - с основной БД.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - конфигурация активна только при включенной маршрутизации</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки реплик</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfig {
+    private final DataSourceRoutingProperties routingProperties;
+
+    public DataSourceRoutingConfig(DataSourceRoutingProperties routingProperties) {
+        this.routingProperties = routingProperties;
+    }
+
+    /**
+     * Пул соединений с основной БД, настраиваемый свойствами spring.datasource.*.
+     */
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(DataSourceProperties properties) {
+        List<DataSource> replicas = new ArrayList<>();
+        int index = 0;
+        for (DataSourceRoutingProperties.Replica replica : routingProperties.getReplicas()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + index++);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : properties.getUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : properties.getPassword());
+            String driver = replica.getDriverClassName() != null
+                    ? replica.getDriverClassName() : properties.getDriverClassName();
+            if (driver != null) {
+                dataSource.setDriverClassName(driver);
+            }
+            dataSource.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(dataSource);
+        }
+        return new ReplicaPool(replicas);
+    }
+
+    /**
+     * Основной DataSource приложения: записи - в основную БД, read-only транзакции - в реплики.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 ReplicaPool replicaPool) {
+        LazyConnectionDataSourceProxy routing =
+                new LazyConnectionDataSourceProxy(new WriteTrackingDataSource(primaryDataSource));
+        routing.setReadOnlyDataSource(new ReplicaRoutingDataSource(primaryDataSource, replicaPool));
+        return routing;
+    }
+
+    @Bean
+    public PrimaryPinningInterceptor primaryPinningInterceptor() {
+        return new PrimaryPinningInterceptor(routingProperties.getPrimaryPinDuration());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ikm.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки маршрутизации запросов между основной БД и репликами для чтения.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.datasource.routing.enabled=true
+ * ikm.datasource.routing.replicas[0].url=jdbc:postgresql://replica1:5432/ikmdb
+ * ikm.datasource.routing.replicas[0].username=postgres
+ * ikm.datasource.routing.replicas[0].password=1
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.datasource.routing")
+public class DataSourceRoutingProperties {
+    /**
+     * Включает маршрутизацию: read-only транзакции идут на реплики, остальные - на основную БД.
+     */
+    private boolean enabled;
+
+    /**
+     * Реплики для чтения. Запросы распределяются между исправными репликами по кругу.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * Интервал проверки доступности реплик.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Сколько времени после записи запросы того же клиента читают из основной БД,
+     * чтобы не увидеть устаревшие данные из отстающей реплики.
+     */
+    private Duration primaryPinDuration = Duration.ofSeconds(5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public List<Replica> getReplicas() { return replicas; }
+    public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+
+    public Duration getHealthCheckInterval() { return healthCheckInterval; }
+    public void setHealthCheckInterval(Duration healthCheckInterval) { this.healthCheckInterval = healthCheckInterval; }
+
+    public Duration getPrimaryPinDuration() { return primaryPinDuration; }
+    public void setPrimaryPinDuration(Duration primaryPinDuration) { this.primaryPinDuration = primaryPinDuration; }
+
+    /**
+     * Параметры подключения к одной реплике.
+     * Не заданные имя пользователя, пароль и драйвер берутся из spring.datasource.
+     */
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        /**
+         * Время ожидания соединения с репликой, после которого запрос уходит в основную БД.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public String getDriverClassName() { return driverClassName; }
+        public void setDriverClassName(String driverClassName) { this.driverClassName = driverClassName; }
+
+        public Duration getConnectionTimeout() { return connectionTimeout; }
+        public void setConnectionTimeout(Duration connectionTimeout) { this.connectionTimeout = connectionTimeout; }
+    }
+}
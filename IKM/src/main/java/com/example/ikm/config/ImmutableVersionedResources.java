@@ -0,0 +1,118 @@
+package com.example.ikm.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Разрешает бессрочное кеширование (Cache-Control: immutable) только для ресурсов,
+ * запрошенных по адресу с хешем содержимого (style-&lt;md5&gt;.css).
+ *
+ * <p>Хеш в адресе проверяет {@link org.springframework.web.servlet.resource.VersionResourceResolver}:
+ * при несовпадении ресурс не находится. Ресурс, запрошенный без хеша (/css/style.css), отдается
+ * с заголовками обработчика - без immutable, чтобы браузер увидел его изменение.</p>
+ *
+ * <p>Стоит в цепочке после {@link org.springframework.web.servlet.resource.EncodedResourceResolver}:
+ * сжатая копия оборачивает этот ресурс и добавляет к его заголовкам Content-Encoding.</p>
+ */
+class ImmutableVersionedResources extends AbstractResourceResolver {
+    private static final Pattern CONTENT_VERSION = Pattern.compile("-[0-9a-f]{32}\\.[^/]+$");
+
+    private final String cacheControl;
+
+    ImmutableVersionedResources(Duration maxAge) {
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().immutable().getHeaderValue();
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || !CONTENT_VERSION.matcher(requestPath).find()) {
+            return resource;
+        }
+        return new ImmutableResource(resource, cacheControl);
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    /**
+     * Ресурс с заголовком Cache-Control; остальные заголовки (ETag, Content-Encoding)
+     * берутся у исходного ресурса.
+     */
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+        private final Resource original;
+        private final String cacheControl;
+
+        ImmutableResource(Resource original, String cacheControl) {
+            this.original = original;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource http) {
+                headers.putAll(http.getResponseHeaders());
+            }
+            headers.setCacheControl(cacheControl);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() { return original.exists(); }
+
+        @Override
+        public boolean isReadable() { return original.isReadable(); }
+
+        @Override
+        public boolean isFile() { return original.isFile(); }
+
+        @Override
+        public URL getURL() throws IOException { return original.getURL(); }
+
+        @Override
+        public URI getURI() throws IOException { return original.getURI(); }
+
+        @Override
+        public File getFile() throws IOException { return original.getFile(); }
+
+        @Override
+        public long contentLength() throws IOException { return original.contentLength(); }
+
+        @Override
+        public long lastModified() throws IOException { return original.lastModified(); }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() { return original.getFilename(); }
+
+        @Override
+        public String getDescription() { return original.getDescription(); }
+
+        @Override
+        public InputStream getInputStream() throws IOException { return original.getInputStream(); }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ikm.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.Duration;
+
+/**
+ * Закрепляет клиента за основной БД сразу после записи.
+ * После запроса с записью клиент получает cookie со сроком закрепления;
+ * пока срок не истек, его read-only транзакции идут в основную БД, а не в реплики.
+ * Cookie не требует серверной сессии, поэтому работает на любом узле.
+ */
+public class PrimaryPinningInterceptor implements HandlerInterceptor {
+    static final String COOKIE_NAME = "ikm-primary-until";
+
+    private final Duration pinDuration;
+
+    public PrimaryPinningInterceptor(Duration pinDuration) {
+        this.pinDuration = pinDuration;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRoutingContext.clear();
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName()) && isActive(cookie.getValue())) {
+                    ReplicaRoutingContext.pinToPrimary();
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (ReplicaRoutingContext.hasWritten() && !response.isCommitted()) {
+            long until = System.currentTimeMillis() + pinDuration.toMillis();
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, pinDuration.toSeconds()));
+            response.addCookie(cookie);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReplicaRoutingContext.clear();
+    }
+
+    private static boolean isActive(String value) {
+        try {
+            return Long.parseLong(value) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ikm.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Набор реплик для чтения с круговой балансировкой и учетом их доступности.
+ * Недоступная реплика исключается из балансировки до следующей успешной проверки.
+ */
+public class ReplicaPool implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPool(List<DataSource> dataSources) {
+        this.replicas = dataSources.stream().map(Replica::new).toList();
+    }
+
+    /**
+     * Возвращает следующую исправную реплику по кругу.
+     *
+     * @return реплика или null, если исправных реплик нет
+     */
+    public DataSource nextHealthy() {
+        int size = replicas.size();
+        for (int attempt = 0; attempt < size; attempt++) {
+            Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), size));
+            if (replica.healthy) {
+                return replica.dataSource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Исключает реплику из балансировки после ошибки получения соединения.
+     *
+     * @param dataSource реплика, вернувшая ошибку
+     */
+    public void markUnhealthy(DataSource dataSource) {
+        for (Replica replica : replicas) {
+            if (replica.dataSource == dataSource && replica.healthy) {
+                replica.healthy = false;
+                log.warn("Реплика {} исключена из балансировки", replica.dataSource);
+            }
+        }
+    }
+
+    /**
+     * Проверяет доступность всех реплик и обновляет их состояние.
+     * Вызывается по расписанию (ikm.datasource.routing.health-check-interval).
+     */
+    @Scheduled(fixedDelayString = "${ikm.datasource.routing.health-check-interval:5s}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy = isValid(replica.dataSource);
+            if (healthy != replica.healthy) {
+                log.info("Реплика {} {}", replica.dataSource, healthy ? "снова доступна" : "недоступна");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * Подсчитывает исправные реплики.
+     *
+     * @return количество реплик, участвующих в балансировке
+     */
+    public long healthyCount() {
+        return replicas.stream().filter(r -> r.healthy).count();
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    private static boolean isValid(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.ikm.config;
+
+/**
+ * Состояние маршрутизации текущего потока обработки запроса.
+ *
+ * <ul>
+ *   <li>pinned - запросы на чтение должны идти в основную БД (клиент недавно писал)</li>
+ *   <li>wrote - в ходе обработки запроса было получено соединение с основной БД для записи</li>
+ * </ul>
+ */
+public final class ReplicaRoutingContext {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {}
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    static void markWrite() {
+        WROTE.set(Boolean.TRUE);
+    }
+
+    public static boolean hasWritten() {
+        return WROTE.get() != null;
+    }
+
+    public static void clear() {
+        PINNED.remove();
+        WROTE.remove();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ikm.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Источник соединений для read-only транзакций.
+ * Выдает соединение с очередной исправной репликой; если клиент закреплен за основной БД
+ * или исправных реплик нет, выдает соединение с основной БД.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final ReplicaPool replicaPool;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicaPool) {
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReplicaRoutingContext.isPinnedToPrimary()) {
+            return primary.getConnection();
+        }
+        DataSource replica;
+        while ((replica = replicaPool.nextHealthy()) != null) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaPool.markUnhealthy(replica);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.ikm.config;
+
+import com.example.ikm.admission.AdmissionInterceptor;
+import com.example.ikm.monitoring.RequestEndpointInterceptor;
+import com.example.ikm.monitoring.RequestTimingInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.FlashMapManager;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.CachingResourceResolver;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Настройка Spring MVC: регистрация перехватчиков запросов и раздача статических ресурсов.
+ *
+ * <p>Ссылки на статические ресурсы в шаблонах ({@code @{/css/style.css}}) получают хеш содержимого
+ * в имени файла (style-&lt;md5&gt;.css), поэтому ресурсы по таким адресам кешируются браузером
+ * бессрочно (Cache-Control: immutable): после изменения файла меняется и его адрес.
+ * По адресу без хеша (/css/style.css) ресурс отдается с no-cache и проверяется по Last-Modified.
+ * Если рядом с файлом лежит сжатая при сборке копия (.gz), она отдается клиентам,
+ * поддерживающим gzip.</p>
+ *
+ * <p>Flash-атрибуты хранятся в подписанном cookie ({@link CookieFlashMapManager}), HTTP-сессия
+ * приложением не создается. Все узлы должны использовать один и тот же ключ ikm.flash.secret.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит настройки Spring MVC</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private static final Logger log = LoggerFactory.getLogger(WebConfig.class);
+    private static final Duration STATIC_RESOURCES_MAX_AGE = Duration.ofDays(365);
+
+    private final ObjectProvider<PrimaryPinningInterceptor> primaryPinningInterceptor;
+    private final ObjectProvider<RequestEndpointInterceptor> requestEndpointInterceptor;
+    private final ObjectProvider<AdmissionInterceptor> admissionInterceptor;
+    private final ObjectProvider<RequestTimingInterceptor> requestTimingInterceptor;
+
+    public WebConfig(ObjectProvider<PrimaryPinningInterceptor> primaryPinningInterceptor,
+                     ObjectProvider<RequestEndpointInterceptor> requestEndpointInterceptor,
+                     ObjectProvider<AdmissionInterceptor> admissionInterceptor,
+                     ObjectProvider<RequestTimingInterceptor> requestTimingInterceptor) {
+        this.primaryPinningInterceptor = primaryPinningInterceptor;
+        this.requestEndpointInterceptor = requestEndpointInterceptor;
+        this.admissionInterceptor = admissionInterceptor;
+        this.requestTimingInterceptor = requestTimingInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        requestTimingInterceptor.ifAvailable(registry::addInterceptor);
+        requestEndpointInterceptor.ifAvailable(registry::addInterceptor);
+        admissionInterceptor.ifAvailable(registry::addInterceptor);
+        primaryPinningInterceptor.ifAvailable(registry::addInterceptor);
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/**")
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.noCache())
+                // Кешируются только результаты разрешения по адресу запроса: кеш преобразований
+                // (resourceChain(true)) сравнивает ресурсы по описанию и отдал бы ресурс
+                // с immutable на запрос без хеша.
+                .resourceChain(false)
+                .addResolver(new CachingResourceResolver(new ConcurrentMapCache("static-resources")))
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new ImmutableVersionedResources(STATIC_RESOURCES_MAX_AGE))
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    /**
+     * Подставляет версии ресурсов в ссылки, построенные шаблонами.
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    /**
+     * Хранилище flash-атрибутов в cookie вместо сессии. Без заданного ключа подписи
+     * создается случайный ключ, действующий только на этом узле до перезапуска; если ключ
+     * обязателен (ikm.flash.secret-required, профиль prod), приложение не запускается.
+     */
+    @Bean(DispatcherServlet.FLASH_MAP_MANAGER_BEAN_NAME)
+    public FlashMapManager flashMapManager(@Value("${ikm.flash.secret:}") String secret,
+                                           @Value("${ikm.flash.secret-required:false}") boolean secretRequired,
+                                           @Value("${ikm.flash.timeout:30s}") Duration timeout) {
+        byte[] key;
+        if (secret.isBlank()) {
+            if (secretRequired) {
+                throw new IllegalStateException("ikm.flash.secret не задан: без общего ключа подписи "
+                        + "flash-сообщения теряются при переходе запроса на другой узел (задайте IKM_FLASH_SECRET)");
+            }
+            log.warn("ikm.flash.secret не задан: flash-атрибуты подписываются случайным ключом этого узла");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        return new CookieFlashMapManager(key, (int) timeout.toSeconds());
+    }
+}
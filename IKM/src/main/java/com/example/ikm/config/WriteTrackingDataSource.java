@@ -0,0 +1,39 @@
+package com.example.ikm.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Основная БД, отмечающая в {@link ReplicaRoutingContext}, что запрос получил соединение
+ * для транзакции с записью. По этой отметке клиент закрепляется за основной БД
+ * на время отставания реплик. Служебные соединения вне транзакций не отмечаются.
+ */
+public class WriteTrackingDataSource extends DelegatingDataSource {
+
+    public WriteTrackingDataSource(DataSource primary) {
+        super(primary);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        markIfWriteTransaction();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        markIfWriteTransaction();
+        return super.getConnection(username, password);
+    }
+
+    private static void markIfWriteTransaction() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            ReplicaRoutingContext.markWrite();
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.ikm.controller;
 
 import com.example.ikm.entity.Authors;
+import com.example.ikm.fanout.LoadScope;
+import com.example.ikm.fanout.ParallelLoads;
+import com.example.ikm.service.AuthorDeletionProgress;
 import com.example.ikm.service.AuthorsService;
 import com.example.ikm.service.BooksService;
-import com.example.ikm.entity.Books;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -13,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
 
 /** Контроллер для управления авторами в системе библиотеки.
  * Обрабатывает HTTP-запросы, связанные с операциями CRUD для авторов.
@@ -27,18 +35,24 @@ import java.util.List;
 @Controller
 @RequestMapping("/authors")
 public class AuthorsController {
+    private static final String SEARCH_TIMEOUT_MESSAGE =
+            "Поиск занял слишком много времени и был прерван. Уточните запрос.";
     private final AuthorsService authorService;
     private final BooksService bookService;
+    private final ParallelLoads parallelLoads;
     /**
      * Конструктор с внедрением зависимостей.
      *
      * @param authorService сервис для работы с авторами
      * @param bookService сервис для работы с книгами
+     * @param parallelLoads параллельная загрузка независимых данных страницы
      */
     @Autowired
-    public AuthorsController(AuthorsService authorService, BooksService bookService) {
+    public AuthorsController(AuthorsService authorService, BooksService bookService,
+                             ParallelLoads parallelLoads) {
         this.authorService = authorService;
         this.bookService = bookService;
+        this.parallelLoads = parallelLoads;
     }
     /**
      * Отображает список всех авторов.
@@ -55,6 +69,7 @@ public class AuthorsController {
     }
     /**
      * Выполняет поиск авторов по различным критериям.
+     * Если поиск не уложился в срок, страница показывает пустую выдачу с предупреждением.
      *
      * @param searchType тип поиска (firstName, lastName, birthYear, fullName)
      * @param searchQuery поисковый запрос
@@ -65,7 +80,13 @@ public class AuthorsController {
     public String searchAuthors(@RequestParam(required = false) String searchType,
                                 @RequestParam(required = false) String searchQuery,
                                 Model model) {
-        List<Authors> authors = authorService.searchAuthors(searchType, searchQuery);
+        List<Authors> authors;
+        try {
+            authors = authorService.searchAuthors(searchType, searchQuery);
+        } catch (QueryTimeoutException e) {
+            authors = List.of();
+            model.addAttribute("error", SEARCH_TIMEOUT_MESSAGE);
+        }
 
         model.addAttribute("authors", authors);
         model.addAttribute("authorCount", authors.size());
@@ -76,22 +97,25 @@ public class AuthorsController {
     }
     /**
      * Отображает подробную информацию об авторе, включая его книги.
+     * Книги автора выводятся потоково, порциями по мере чтения из курсора БД.
      *
      * @param id идентификатор автора
      * @param model объект Model для передачи данных в представление
+     * @param response ответ, сбрасываемый клиенту по мере отрисовки
      * @return имя шаблона для отображения информации об авторе
      * @throws RuntimeException если автор не найден
      */
     @GetMapping("/view/{id}")
-    public String viewAuthor(@PathVariable Long id, Model model) {
-        Authors author = authorService.getAuthorById(id)
-                .orElseThrow(() -> new RuntimeException("Автор не найден"));
-
-        List<Books> books = bookService.getBooksByAuthorId(id);
+    public String viewAuthor(@PathVariable Long id, Model model, HttpServletResponse response) {
+        try (LoadScope loads = parallelLoads.open()) {
+            Future<Optional<Authors>> author = loads.fork(() -> authorService.getAuthorById(id));
+            Future<Long> bookCount = loads.fork(() -> bookService.countBooksByAuthor(id));
 
-        model.addAttribute("author", author);
-        model.addAttribute("books", books);
-        model.addAttribute("bookCount", books.size());
+            model.addAttribute("author", loads.join(author)
+                    .orElseThrow(() -> new RuntimeException("Автор не найден")));
+            model.addAttribute("bookCount", loads.join(bookCount));
+        }
+        model.addAttribute("books", StreamingViews.stream(bookService.streamBooksByAuthorId(id), response));
 
         return "authors/view";
     }
@@ -167,18 +191,27 @@ public class AuthorsController {
      * @param author обновленные данные автора
      * @param result объект для проверки валидации
      * @param redirectAttributes атрибуты для перенаправления с сообщениями
+     * @param model объект Model для передачи данных в представление
      * @return перенаправление на список авторов или возврат к форме при ошибках
      */
     @PostMapping("/update/{id}")
     public String updateAuthor(@PathVariable Long id,
                                @Valid @ModelAttribute("author") Authors author,
                                BindingResult result,
-                               RedirectAttributes redirectAttributes) {
+                               RedirectAttributes redirectAttributes,
+                               Model model) {
         if (result.hasErrors()) {
             return "authors/form";
         }
 
-        authorService.updateAuthor(id, author);
+        try {
+            authorService.updateAuthor(id, author);
+        } catch (OptimisticLockingFailureException e) {
+            model.addAttribute("author", authorService.getAuthorById(id).orElse(author));
+            model.addAttribute("errorMessage",
+                    "Автора уже изменил другой пользователь. Проверьте актуальные данные и повторите изменения.");
+            return "authors/form";
+        }
         redirectAttributes.addFlashAttribute("success", "Автор успешно обновлен");
         return "redirect:/authors";
     }
@@ -191,8 +224,26 @@ public class AuthorsController {
      */
     @GetMapping("/delete/{id}")
     public String deleteAuthor(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        if (authorService.requiresAsyncDeletion(id)) {
+            authorService.deleteAuthorAsync(id);
+            redirectAttributes.addFlashAttribute("success",
+                    "Удаление автора запущено в фоне. Прогресс: /authors/delete/" + id + "/progress");
+            return "redirect:/authors";
+        }
+
         authorService.deleteAuthor(id);
         redirectAttributes.addFlashAttribute("success", "Автор успешно удален");
         return "redirect:/authors";
     }
+    /**
+     * Возвращает прогресс фонового удаления автора.
+     *
+     * @param id идентификатор автора
+     * @return состояние удаления или 404, если удаление не запускалось
+     */
+    @GetMapping("/delete/{id}/progress")
+    @ResponseBody
+    public ResponseEntity<AuthorDeletionProgress> deletionProgress(@PathVariable Long id) {
+        return ResponseEntity.of(authorService.getDeletionProgress(id));
+    }
 }
\ No newline at end of file
@@ -1,16 +1,24 @@
 package com.example.ikm.controller;
 
+import com.example.ikm.entity.Authors;
 import com.example.ikm.entity.Books;
+import com.example.ikm.entity.Genres;
+import com.example.ikm.fanout.LoadScope;
+import com.example.ikm.fanout.ParallelLoads;
 import com.example.ikm.service.BooksService;
 import com.example.ikm.service.AuthorsService;
 import com.example.ikm.service.GenresService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.concurrent.Future;
 /**
  * Контроллер для управления книгами в системе библиотеки.
  * Обрабатывает HTTP-запросы, связанные с операциями CRUD для книг.
@@ -25,40 +33,51 @@ import java.util.List;
 @Controller
 @RequestMapping("/books")
 public class BooksController {
+    private static final String SEARCH_TIMEOUT_MESSAGE =
+            "Поиск занял слишком много времени и был прерван. Уточните запрос.";
     private final BooksService bookService;
     private final AuthorsService authorService;
     private final GenresService genreService;
+    private final ParallelLoads parallelLoads;
     /**
      * Конструктор с внедрением зависимостей.
      *
      * @param bookService сервис для работы с книгами
      * @param authorService сервис для работы с авторами
      * @param genreService сервис для работы с жанрами
+     * @param parallelLoads параллельная загрузка независимых данных страницы
      */
     @Autowired
     public BooksController(BooksService bookService,
                            AuthorsService authorService,
-                           GenresService genreService) {
+                           GenresService genreService,
+                           ParallelLoads parallelLoads) {
         this.bookService = bookService;
         this.authorService = authorService;
         this.genreService = genreService;
+        this.parallelLoads = parallelLoads;
     }
     /**
      * Отображает список всех книг.
+     * Страница отрисовывается потоково: книги читаются из курсора БД и выводятся порциями.
      *
      * @param model объект Model для передачи данных в представление
+     * @param response ответ, сбрасываемый клиенту по мере отрисовки
      * @return имя шаблона для отображения списка книг
      */
     @GetMapping
-    public String listBooks(Model model) {
-        List<Books> books = bookService.getAllBooks();
-        model.addAttribute("books", books);
-        model.addAttribute("bookCount", books.size());
-        prepareSearchModel(model);
+    public String listBooks(Model model, HttpServletResponse response) {
+        try (LoadScope loads = parallelLoads.open()) {
+            Future<Long> bookCount = loads.fork(bookService::countBooks);
+            prepareSearchModel(model, loads);
+            model.addAttribute("books", StreamingViews.stream(bookService.streamAllBooks(), response));
+            model.addAttribute("bookCount", loads.join(bookCount));
+        }
         return "books/list";
     }
     /**
      * Выполняет поиск книг по различным критериям.
+     * Если поиск не уложился в срок, страница показывает пустую выдачу с предупреждением.
      *
      * @param searchType тип поиска (title, author, year, feedback)
      * @param searchQuery поисковый запрос
@@ -73,15 +92,24 @@ public class BooksController {
                               @RequestParam(required = false) Long authorId,
                               @RequestParam(required = false) Long genreId,
                               Model model) {
-        List<Books> books = bookService.searchBooks(searchType, searchQuery, authorId, genreId);
-
-        model.addAttribute("books", books);
-        model.addAttribute("bookCount", books.size());
+        try (LoadScope loads = parallelLoads.open()) {
+            Future<List<Books>> found = loads.fork(() ->
+                    bookService.searchBooks(searchType, searchQuery, authorId, genreId));
+            prepareSearchModel(model, loads);
+            List<Books> books;
+            try {
+                books = loads.join(found);
+            } catch (QueryTimeoutException e) {
+                books = List.of();
+                model.addAttribute("errorMessage", SEARCH_TIMEOUT_MESSAGE);
+            }
+            model.addAttribute("books", books);
+            model.addAttribute("bookCount", books.size());
+        }
         model.addAttribute("searchType", searchType);
         model.addAttribute("searchQuery", searchQuery);
         model.addAttribute("selectedAuthorId", authorId);
         model.addAttribute("selectedGenreId", genreId);
-        prepareSearchModel(model);
 
         return "books/list";
     }
@@ -101,7 +129,9 @@ public class BooksController {
 
     /**
      * Обрабатывает создание новой книги.
-     * Автор и жанры создаются автоматически, если не существуют.
+     * Автор и жанры создаются автоматически, если не существуют. Если есть автор с похожим
+     * именем, форма возвращается с подсказкой: пользователь выбирает существующего автора
+     * или подтверждает создание нового.
      *
      * @param title название книги
      * @param authorFirstName имя автора
@@ -109,6 +139,8 @@ public class BooksController {
      * @param publishYear год публикации
      * @param genreInput строка с жанрами через запятую
      * @param feedback отзыв о книге (опционально)
+     * @param authorChoice выбор пользователя после подсказки: existing или new
+     * @param suggestedAuthorId идентификатор предложенного автора
      * @param redirectAttributes атрибуты для перенаправления с сообщениями
      * @param model объект Model для передачи данных в представление
      * @return перенаправление на список книг или возврат к форме при ошибках
@@ -121,11 +153,20 @@ public class BooksController {
             @RequestParam Integer publishYear,
             @RequestParam String genreInput,
             @RequestParam(required = false) String feedback,
+            @RequestParam(required = false) String authorChoice,
+            @RequestParam(required = false) Long suggestedAuthorId,
             RedirectAttributes redirectAttributes,
             Model model) {
 
         try {
-            var author = authorService.findOrCreateAuthor(authorFirstName, authorLastName);
+            var author = chooseAuthor(authorFirstName, authorLastName, authorChoice, suggestedAuthorId, model);
+            if (author == null) {
+                model.addAttribute("book", enteredBook(null, null, title, authorFirstName, authorLastName,
+                        publishYear, feedback));
+                model.addAttribute("genreInput", genreInput);
+                model.addAttribute("action", "create");
+                return "books/form";
+            }
             var genres = genreService.findOrCreateGenresFromInput(genreInput);
 
             Books book = new Books();
@@ -178,6 +219,9 @@ public class BooksController {
      * @param publishYear новый год публикации
      * @param genreInput новая строка с жанрами через запятую
      * @param feedback новый отзыв о книге (опционально)
+     * @param version версия книги, с которой начиналось редактирование
+     * @param authorChoice выбор пользователя после подсказки: existing или new
+     * @param suggestedAuthorId идентификатор предложенного автора
      * @param redirectAttributes атрибуты для перенаправления с сообщениями
      * @param model объект Model для передачи данных в представление
      * @return перенаправление на список книг или возврат к форме при ошибках
@@ -191,27 +235,42 @@ public class BooksController {
             @RequestParam Integer publishYear,
             @RequestParam String genreInput,
             @RequestParam(required = false) String feedback,
+            @RequestParam(required = false) Long version,
+            @RequestParam(required = false) String authorChoice,
+            @RequestParam(required = false) Long suggestedAuthorId,
             RedirectAttributes redirectAttributes,
             Model model) {
 
         try {
-            Books existingBook = bookService.getBookById(id)
-                    .orElseThrow(() -> new RuntimeException("Книга не найдена"));
-
-            var author = authorService.findOrCreateAuthor(authorFirstName, authorLastName);
+            var author = chooseAuthor(authorFirstName, authorLastName, authorChoice, suggestedAuthorId, model);
+            if (author == null) {
+                model.addAttribute("book", enteredBook(id, version, title, authorFirstName, authorLastName,
+                        publishYear, feedback));
+                model.addAttribute("genreInput", genreInput);
+                model.addAttribute("action", "edit");
+                return "books/form";
+            }
             var genres = genreService.findOrCreateGenresFromInput(genreInput);
 
-            existingBook.setTitle(title);
-            existingBook.setAuthor(author);
-            existingBook.setPublishYear(publishYear);
-            existingBook.setFeedback(feedback);
-            existingBook.setGenres(genres);
+            Books bookDetails = new Books();
+            bookDetails.setTitle(title);
+            bookDetails.setAuthor(author);
+            bookDetails.setPublishYear(publishYear);
+            bookDetails.setFeedback(feedback);
+            bookDetails.setGenres(genres);
+            bookDetails.setVersion(version);
 
-            bookService.saveBook(existingBook);
+            bookService.updateBook(id, bookDetails);
 
             redirectAttributes.addFlashAttribute("successMessage", "Книга успешно обновлена");
             return "redirect:/books";
 
+        } catch (OptimisticLockingFailureException e) {
+            model.addAttribute("errorMessage",
+                    "Книгу уже изменил другой пользователь. Проверьте актуальные данные и повторите изменения.");
+            model.addAttribute("book", bookService.getBookById(id).orElse(new Books()));
+            model.addAttribute("action", "edit");
+            return "books/form";
         } catch (Exception e) {
             model.addAttribute("errorMessage", "Ошибка: " + e.getMessage());
             model.addAttribute("book", bookService.getBookById(id).orElse(new Books()));
@@ -244,7 +303,8 @@ public class BooksController {
         return "redirect:/books";
     }
     /**
-     * Отображает подробную информацию о книге.
+     * Отображает подробную информацию о книге и похожие книги.
+     * Похожие книги загружаются параллельно с самой книгой.
      *
      * @param id идентификатор книги
      * @param model объект Model для передачи данных в представление
@@ -253,21 +313,74 @@ public class BooksController {
      */
     @GetMapping("/view/{id}")
     public String viewBook(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes) {
-        Books book = bookService.getBookById(id).orElse(null);
-        if (book == null) {
-            redirectAttributes.addFlashAttribute("errorMessage", "Книга не найдена");
-            return "redirect:/books";
+        try (LoadScope loads = parallelLoads.open()) {
+            Future<List<Books>> similarBooks = loads.fork(() -> bookService.getSimilarBooks(id));
+            Books book = bookService.getBookById(id).orElse(null);
+            if (book == null) {
+                redirectAttributes.addFlashAttribute("errorMessage", "Книга не найдена");
+                return "redirect:/books";
+            }
+            model.addAttribute("book", book);
+            model.addAttribute("similarBooks", loads.join(similarBooks));
         }
-        model.addAttribute("book", book);
         return "books/view";
     }
+    /**
+     * Определяет автора книги по введенному имени. Автор с похожим, но не совпадающим именем
+     * не подставляется молча: он добавляется в модель как подсказка ({@code suggestedAuthor}),
+     * пока пользователь не выберет его ({@code existing}) или не подтвердит нового ({@code new}).
+     *
+     * @param firstName имя автора
+     * @param lastName фамилия автора
+     * @param authorChoice выбор пользователя после подсказки
+     * @param suggestedAuthorId идентификатор предложенного автора
+     * @param model объект Model для передачи подсказки в представление
+     * @return автор книги или null, если нужно подтверждение
+     */
+    private Authors chooseAuthor(String firstName, String lastName, String authorChoice,
+                                 Long suggestedAuthorId, Model model) {
+        if ("existing".equals(authorChoice) && suggestedAuthorId != null) {
+            return authorService.getAuthorById(suggestedAuthorId)
+                    .orElseThrow(() -> new IllegalArgumentException("Автор не найден"));
+        }
+        if (!"new".equals(authorChoice)) {
+            var similar = authorService.findSimilarAuthor(firstName, lastName);
+            if (similar.isPresent()) {
+                model.addAttribute("suggestedAuthor", similar.get());
+                return null;
+            }
+        }
+        return authorService.findOrCreateAuthor(firstName, lastName);
+    }
+    /**
+     * Собирает книгу из введенных в форму значений, чтобы показать форму повторно без потери ввода.
+     */
+    private static Books enteredBook(Long id, Long version, String title, String authorFirstName,
+                                     String authorLastName, Integer publishYear, String feedback) {
+        Authors author = new Authors();
+        author.setFirstName(authorFirstName);
+        author.setLastName(authorLastName);
+        Books book = new Books();
+        book.setId(id);
+        book.setVersion(version);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setPublishYear(publishYear);
+        book.setFeedback(feedback);
+        return book;
+    }
     /**
      * Подготавливает модель для поиска, добавляя списки авторов и жанров.
+     * Оба списка загружаются параллельно друг с другом и с загрузками,
+     * уже запущенными в группе.
      *
      * @param model объект Model для передачи данных в представление
+     * @param loads группа параллельных загрузок страницы
      */
-    private void prepareSearchModel(Model model) {
-        model.addAttribute("authors", authorService.getAllAuthors());
-        model.addAttribute("genres", genreService.getAllGenres());
+    private void prepareSearchModel(Model model, LoadScope loads) {
+        Future<List<Authors>> authors = loads.fork(authorService::getAllAuthors);
+        Future<List<Genres>> genres = loads.fork(genreService::getAllGenres);
+        model.addAttribute("authors", loads.join(authors));
+        model.addAttribute("genres", loads.join(genres));
     }
 }
\ No newline at end of file
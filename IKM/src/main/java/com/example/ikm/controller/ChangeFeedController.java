@@ -0,0 +1,52 @@
+package com.example.ikm.controller;
+
+import com.example.ikm.service.ChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Лента изменений каталога для синхронизации внешних систем.
+ * Потребитель запрашивает изменения после сохраненного курсора и сохраняет поле next ответа;
+ * при ответе 410 Gone курсор устарел и каталог нужно перечитать целиком.
+ * Удаление автора приходит записями об удалении каждой его книги и затем самого автора.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@RestController - ответы сериализуются в JSON</li>
+ *   <li>@RequestMapping("/api/changes") - определяет базовый URL для всех методов контроллера</li>
+ * </ul>
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeFeedController {
+    private final ChangeFeed changeFeed;
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param changeFeed лента изменений каталога
+     */
+    @Autowired
+    public ChangeFeedController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+    /**
+     * Возвращает изменения каталога после курсора.
+     *
+     * @param after номер последней полученной записи (0 - с начала журнала)
+     * @param limit наибольшее количество записей
+     * @return страница ленты или 410, если курсор устарел
+     */
+    @GetMapping
+    public ResponseEntity<ChangeFeed.Page> changes(@RequestParam(defaultValue = "0") long after,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        return changeFeed.changesAfter(after, limit)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE).build());
+    }
+}
@@ -4,6 +4,7 @@ import com.example.ikm.entity.Genres;
 import com.example.ikm.service.GenresService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -105,6 +106,97 @@ public class GenresController {
 
         return "redirect:/genres";
     }
+    /**
+     * Отображает форму для редактирования существующего жанра.
+     *
+     * @param id идентификатор жанра для редактирования
+     * @param model объект Model для передачи данных в представление
+     * @param redirectAttributes атрибуты для перенаправления с сообщениями
+     * @return имя шаблона формы редактирования или перенаправление при ошибке
+     */
+    @GetMapping("/edit/{id}")
+    public String showEditForm(@PathVariable("id") Long id, Model model,
+                               RedirectAttributes redirectAttributes) {
+        Genres genre = genreService.getGenreById(id).orElse(null);
+
+        if (genre == null) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Жанр не найден");
+            return "redirect:/genres";
+        }
+
+        model.addAttribute("genre", genre);
+        return "genres/form";
+    }
+    /**
+     * Обрабатывает переименование жанра.
+     *
+     * @param id идентификатор жанра для обновления
+     * @param genre обновленные данные жанра, включая версию из формы
+     * @param result объект для проверки валидации
+     * @param redirectAttributes атрибуты для перенаправления с сообщениями
+     * @param model объект Model для передачи данных в представление
+     * @return перенаправление на список жанров или возврат к форме при ошибках
+     */
+    @PostMapping("/update/{id}")
+    public String updateGenre(@PathVariable("id") Long id,
+                              @Valid @ModelAttribute("genre") Genres genre,
+                              BindingResult result,
+                              RedirectAttributes redirectAttributes,
+                              Model model) {
+        if (result.hasErrors()) {
+            return "genres/form";
+        }
+
+        try {
+            genreService.updateGenre(id, genre);
+        } catch (OptimisticLockingFailureException e) {
+            model.addAttribute("genre", genreService.getGenreById(id).orElse(genre));
+            model.addAttribute("errorMessage",
+                    "Жанр уже изменил другой пользователь. Проверьте актуальные данные и повторите изменения.");
+            return "genres/form";
+        } catch (RuntimeException e) {
+            model.addAttribute("errorMessage", "Ошибка: " + e.getMessage());
+            return "genres/form";
+        }
+        redirectAttributes.addFlashAttribute("successMessage",
+                "Жанр \"" + genre.getName() + "\" успешно обновлен");
+        return "redirect:/genres";
+    }
+    /**
+     * Отображает форму объединения жанров.
+     *
+     * @param model объект Model для передачи данных в представление
+     * @return имя шаблона формы объединения
+     */
+    @GetMapping("/merge")
+    public String showMergeForm(Model model) {
+        model.addAttribute("genres", genreService.getAllGenres());
+        return "genres/merge";
+    }
+    /**
+     * Объединяет выбранные жанры с целевым.
+     *
+     * @param targetId идентификатор жанра, который остается
+     * @param sourceIds идентификаторы жанров, объединяемых с целевым
+     * @param redirectAttributes атрибуты для перенаправления с сообщениями
+     * @return перенаправление на список жанров или обратно к форме при ошибке
+     */
+    @PostMapping("/merge")
+    public String mergeGenres(@RequestParam Long targetId,
+                              @RequestParam(required = false) List<Long> sourceIds,
+                              RedirectAttributes redirectAttributes) {
+        try {
+            int moved = genreService.mergeGenres(targetId, sourceIds != null ? sourceIds : List.of());
+            redirectAttributes.addFlashAttribute("successMessage",
+                    "Жанры объединены, перенесено связей с книгами: " + moved);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                    "Ошибка при объединении жанров: " + e.getMessage());
+            return "redirect:/genres/merge";
+        }
+
+        return "redirect:/genres";
+    }
     /**
      * Удаляет жанр по идентификатору.
      * Проверяет, используется ли жанр в книгах перед удалением.
@@ -0,0 +1,36 @@
+package com.example.ikm.controller;
+
+import com.example.ikm.service.CursorResult;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Подготовка результатов из курсора БД к потоковой отрисовке шаблоном.
+ *
+ * <p>Перед запросом к БД и после каждой порции строк буфер ответа сбрасывается клиенту:
+ * браузер получает заголовок страницы сразу, а таблицу - по частям (chunked).
+ * Курсор закрывается по завершении запроса, даже если отрисовка прервалась с ошибкой
+ * или клиент отключился.</p>
+ */
+final class StreamingViews {
+
+    private StreamingViews() {
+    }
+
+    static <T> CursorResult<T> stream(CursorResult<T> rows, HttpServletResponse response) {
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                CursorResult.class.getName() + "@" + System.identityHashCode(rows),
+                rows::close, RequestAttributes.SCOPE_REQUEST);
+        return rows.onChunk(() -> {
+            try {
+                response.flushBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
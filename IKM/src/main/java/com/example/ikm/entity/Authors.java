@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.List;
 /**
@@ -19,11 +21,15 @@ import java.util.List;
         *   <li>@OneToMany - отношение "один автор - много книг"</li>
         *   <li>@NotBlank - проверка, что поле не пустое</li>
         *   <li>@Pattern - валидация по регулярному выражению</li>
+        *   <li>@Version - версия строки для оптимистической блокировки</li>
+        *   <li>@DynamicUpdate - UPDATE содержит только измененные столбцы</li>
+        *   <li>@PrePersist - ключи поиска имени ({@link SearchKeys}) вычисляются перед вставкой</li>
         * </ul>
         * </p>
         */
 @Entity
 @Table(name = "authors")
+@DynamicUpdate
 public class Authors {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -39,10 +45,24 @@ public class Authors {
     @Column(name = "last_name")
     private String lastName;
 
+    @Column(name = "name_key")
+    private String nameKey;
+
+    @Column(name = "first_name_key")
+    private String firstNameKey;
+
+    @Column(name = "last_name_key")
+    private String lastNameKey;
+
     @Min(value = 1000, message = "Некорректный год рождения")
     @Column(name = "birth_year")
     private Integer birthYear;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Books> books;
     /**
@@ -68,14 +88,35 @@ public class Authors {
     public void setId(Long id) { this.id = id; }
 
     public String getFirstName() { return firstName; }
-    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; updateSearchKeys(); }
 
     public String getLastName() { return lastName; }
-    public void setLastName(String lastName) { this.lastName = lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; updateSearchKeys(); }
+
+    public String getNameKey() { return nameKey; }
+    public String getFirstNameKey() { return firstNameKey; }
+    public String getLastNameKey() { return lastNameKey; }
 
     public Integer getBirthYear() { return birthYear; }
     public void setBirthYear(Integer birthYear) { this.birthYear = birthYear; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public List<Books> getBooks() { return books; }
     public void setBooks(List<Books> books) { this.books = books; }
+
+    @PrePersist
+    void updateSearchKeys() {
+        nameKey = nameKey(firstName, lastName);
+        firstNameKey = SearchKeys.of(firstName);
+        lastNameKey = SearchKeys.of(lastName);
+    }
+
+    /**
+     * Ключ поиска полного имени автора ("имя фамилия").
+     */
+    public static String nameKey(String firstName, String lastName) {
+        return SearchKeys.of(firstName + " " + lastName);
+    }
 }
\ No newline at end of file
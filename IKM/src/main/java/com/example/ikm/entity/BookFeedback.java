@@ -0,0 +1,58 @@
+package com.example.ikm.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Отзыв о книге. Хранится отдельно от книги, чтобы списки и поиск книг
+ * не читали длинный текст отзыва; загружается только при просмотре и редактировании книги.
+ * Строка удаляется вместе с книгой (ON DELETE CASCADE).
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Entity - указывает, что класс является JPA сущностью</li>
+ *   <li>@Table(name = "book_feedback") - задает имя таблицы в БД</li>
+ *   <li>@Id - идентификатор книги, к которой относится отзыв</li>
+ *   <li>@PostLoad, @PostPersist - после загрузки или вставки отзыв перестает считаться новым,
+ *   поэтому save() нового отзыва выполняет INSERT без предварительного SELECT</li>
+ * </ul>
+ * </p>
+ */
+@Entity
+@Table(name = "book_feedback")
+public class BookFeedback implements Persistable<Long> {
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "feedback", columnDefinition = "TEXT", nullable = false)
+    private String feedback;
+
+    @Transient
+    private boolean isNew = true;
+
+    // Конструкторы
+    public BookFeedback() {}
+
+    public BookFeedback(Long bookId, String feedback) {
+        this.bookId = bookId;
+        this.feedback = feedback;
+    }
+
+    // Геттеры и сеттеры
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public String getFeedback() { return feedback; }
+    public void setFeedback(String feedback) { this.feedback = feedback; }
+
+    @Override
+    public Long getId() { return bookId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
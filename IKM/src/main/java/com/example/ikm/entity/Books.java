@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.HashSet;
 import java.util.Set;
 /**
@@ -17,11 +19,16 @@ import java.util.Set;
  *   <li>@ManyToOne - отношение "много книг - один автор"</li>
  *   <li>@ManyToMany - отношение "много книг - много жанров"</li>
  *   <li>@JoinTable - определяет таблицу связи для ManyToMany</li>
+ *   <li>@Version - версия строки для оптимистической блокировки</li>
+ *   <li>@DynamicUpdate - UPDATE содержит только измененные столбцы</li>
+ *   <li>@Transient - отзыв хранится в таблице book_feedback (см. {@link BookFeedback})</li>
+ *   <li>@PrePersist - ключ поиска названия ({@link SearchKeys}) вычисляется перед вставкой</li>
  * </ul>
  * </p>
  */
 @Entity
 @Table(name = "books")
+@DynamicUpdate
 public class Books {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,7 +42,10 @@ public class Books {
     @Column(name = "publish_year")
     private Integer publishYear;
 
-    @Column(columnDefinition = "TEXT")
+    @Column(name = "title_key")
+    private String titleKey;
+
+    @Transient
     private String feedback;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -51,6 +61,11 @@ public class Books {
     )
     private Set<Genres> genres = new HashSet<>();
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Конструкторы
     public Books() {}
 
@@ -65,7 +80,9 @@ public class Books {
     public void setId(Long id) { this.id = id; }
 
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title) { this.title = title; this.titleKey = SearchKeys.of(title); }
+
+    public String getTitleKey() { return titleKey; }
 
     public Integer getPublishYear() { return publishYear; }
     public void setPublishYear(Integer publishYear) { this.publishYear = publishYear; }
@@ -78,4 +95,12 @@ public class Books {
 
     public Set<Genres> getGenres() { return genres; }
     public void setGenres(Set<Genres> genres) { this.genres = genres; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    @PrePersist
+    void updateSearchKeys() {
+        titleKey = SearchKeys.of(title);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.example.ikm.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений каталога: какая сущность изменена и как.
+ * Номер записи (seq) выдается в транзакции изменения и растет в порядке фиксации,
+ * поэтому потребители ленты изменений читают журнал с сохраненного номера.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Entity - указывает, что класс является JPA сущностью</li>
+ *   <li>@Table(name = "catalog_changes") - задает имя таблицы в БД</li>
+ *   <li>@Id - номер записи, назначаемый приложением, а не БД</li>
+ *   <li>@PostLoad, @PostPersist - save() новой записи выполняет INSERT без предварительного SELECT</li>
+ * </ul>
+ * </p>
+ */
+@Entity
+@Table(name = "catalog_changes")
+public class CatalogChange implements Persistable<Long> {
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "entity", length = 16, nullable = false)
+    private String entity;
+
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    @Column(name = "change", length = 16, nullable = false)
+    private String change;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    // Конструкторы
+    public CatalogChange() {}
+
+    public CatalogChange(Long seq, String entity, Long entityId, String change, Instant changedAt) {
+        this.seq = seq;
+        this.entity = entity;
+        this.entityId = entityId;
+        this.change = change;
+        this.changedAt = changedAt;
+    }
+
+    // Геттеры
+    public Long getSeq() { return seq; }
+
+    public String getEntity() { return entity; }
+
+    /**
+     * @return идентификатор сущности или null, если изменено множество строк
+     */
+    public Long getEntityId() { return entityId; }
+
+    public String getChange() { return change; }
+
+    public Instant getChangedAt() { return changedAt; }
+
+    @Override
+    public Long getId() { return seq; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+}
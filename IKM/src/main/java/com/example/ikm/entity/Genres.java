@@ -2,11 +2,14 @@ package com.example.ikm.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "genres")
+@DynamicUpdate
 public class Genres {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,9 +19,17 @@ public class Genres {
     @Column(unique = true)
     private String name;
 
+    @Column(name = "name_key")
+    private String nameKey;
+
     @ManyToMany(mappedBy = "genres")
     private Set<Books> books = new HashSet<>();
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Конструкторы
     public Genres() {}
 
@@ -31,8 +42,18 @@ public class Genres {
     public void setId(Long id) { this.id = id; }
 
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; this.nameKey = SearchKeys.of(name); }
+
+    public String getNameKey() { return nameKey; }
 
     public Set<Books> getBooks() { return books; }
     public void setBooks(Set<Books> books) { this.books = books; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    @PrePersist
+    void updateSearchKeys() {
+        nameKey = SearchKeys.of(name);
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.ikm.entity;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Ключи поиска: каноническая латинская запись строки, одинаковая для кириллического
+ * и латинского написания ("Толстой" и "Tolstoy" - tolstoy, "Ёлкин" и "Елкин" - elkin).
+ *
+ * <p>Строка приводится к нижнему регистру, пробелы схлопываются, кириллица транслитерируется
+ * (ё как е, ь и ъ опускаются). Затем обе записи сводятся к одной форме для распространенных
+ * вариантов латинской транслитерации: j и y, kh и h, x и ks, w и v, ph и f, ck и k,
+ * окончания iy/ii/yy и y, конечная i после гласной и y ("Tolstoi"), ye в начале слова
+ * или после гласной и e ("Dostoyevsky" и "Достоевский" - dostoevsky).</p>
+ *
+ * <p>Ключи хранятся в отдельных индексируемых столбцах (title_key, name_key и т.д.)
+ * и поиск выполняется по ним, а не по исходным столбцам. Хранимые ключи заполняют
+ * миграции (V5, V8) этой же функцией: после изменения правил {@link #of(String)}
+ * нужна новая миграция пересчета ключей.</p>
+ *
+ * <p>Запрос поиска по вхождению приводится к ключу через {@link #ofQuery(String)}:
+ * конец запроса может оказаться серединой слова, поэтому свертки окончаний к нему не применимы.</p>
+ */
+public final class SearchKeys {
+    private static final String[] CYRILLIC = {
+            "a", "b", "v", "g", "d", "e", "zh", "z", "i", "y", "k", "l", "m", "n", "o", "p",
+            "r", "s", "t", "u", "f", "kh", "ts", "ch", "sh", "shch", "", "y", "", "e", "yu", "ya"
+    };
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Pattern[] FOLD_PATTERNS = {
+            Pattern.compile("j"),
+            Pattern.compile("kh"),
+            Pattern.compile("x"),
+            Pattern.compile("w"),
+            Pattern.compile("ph"),
+            Pattern.compile("ck"),
+            Pattern.compile("(?:iy|ii|yy)\\b"),
+            Pattern.compile("(?<=[aeiou])i\\b"),
+            Pattern.compile("(?:\\b|(?<=[aeiou]))ye")
+    };
+    private static final String[] FOLD_REPLACEMENTS = {"y", "h", "ks", "v", "f", "k", "y", "y", "e"};
+    private static final Pattern QUERY_ENDING = Pattern.compile("(?<=\\p{L}{2})[iy]$");
+
+    private SearchKeys() {
+    }
+
+    /**
+     * Вычисляет ключ поиска строки.
+     *
+     * @param value исходная строка
+     * @return ключ поиска или null, если строка null
+     */
+    public static String of(String value) {
+        if (value == null) {
+            return null;
+        }
+        String lower = SPACES.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        StringBuilder latin = new StringBuilder(lower.length() + 8);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c >= 'а' && c <= 'я') {
+                latin.append(CYRILLIC[c - 'а']);
+            } else if (c == 'ё') {
+                latin.append('e');
+            } else {
+                latin.append(c);
+            }
+        }
+        String key = latin.toString();
+        for (int i = 0; i < FOLD_PATTERNS.length; i++) {
+            key = FOLD_PATTERNS[i].matcher(key).replaceAll(FOLD_REPLACEMENTS[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Вычисляет ключ запроса для поиска по вхождению в хранимые ключи.
+     *
+     * <p>Хранимый ключ сворачивает окончания слов ("Горький" - gorky, "Tolstoi" - tolstoy),
+     * а запрос может обрываться на середине слова: "Горьки" - gorki, "Дмитри" - dmitri.
+     * Поэтому у последнего слова запроса отбрасывается конечная i или y - варианты окончания,
+     * которые свертка меняет: gork, dmitr, tolsto входят в ключи всех написаний.
+     * Полные слова внутри запроса сворачиваются так же, как в хранимом ключе.</p>
+     *
+     * @param query поисковый запрос
+     * @return ключ запроса или null, если запрос null
+     */
+    public static String ofQuery(String query) {
+        String key = of(query);
+        return key == null ? null : QUERY_ENDING.matcher(key).replaceFirst("");
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.ikm.fanout;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Срок завершения текущей обработки запроса. Задается при открытии {@link LoadScope}
+ * и переносится в потоки загрузок, поэтому вложенные загрузки и код, ограничивающий
+ * длительность SQL-запросов, видят тот же срок.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private Deadline() {}
+
+    /**
+     * @return оставшееся до срока время (не меньше нуля), если срок задан
+     */
+    public static Optional<Duration> remaining() {
+        Long deadline = DEADLINE_NANOS.get();
+        return deadline == null ? Optional.empty()
+                : Optional.of(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+    }
+
+    static Long get() {
+        return DEADLINE_NANOS.get();
+    }
+
+    static void set(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            DEADLINE_NANOS.remove();
+        } else {
+            DEADLINE_NANOS.set(deadlineNanos);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ikm.fanout;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Конфигурация параллельной загрузки независимых данных страницы и сроков поиска.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки пула загрузок и сроков поиска</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@EnableConfigurationProperties({FanOutProperties.class, SearchTimeoutProperties.class})
+public class FanOutConfig {
+
+    @Bean
+    public ParallelLoads parallelLoads(FanOutProperties properties, PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        return new ParallelLoads(properties, transactionManager, meterRegistry);
+    }
+
+    @Bean
+    public SearchGuard searchGuard(SearchTimeoutProperties properties, MeterRegistry meterRegistry) {
+        return new SearchGuard(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ikm.fanout;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки параллельной загрузки независимых данных страницы.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.fanout.threads=8
+ * ikm.fanout.deadline=5s
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.fanout")
+public class FanOutProperties {
+    /**
+     * Количество потоков, выполняющих загрузки всех запросов.
+     */
+    private int threads = 8;
+
+    /**
+     * Длина очереди загрузок; при переполнении загрузка выполняется в потоке запроса.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * Срок, за который должны завершиться все загрузки одной страницы. Он же становится
+     * таймаутом транзакций загрузок, а через них - таймаутом SQL-запросов.
+     */
+    private Duration deadline = Duration.ofSeconds(5);
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+    public Duration getDeadline() { return deadline; }
+    public void setDeadline(Duration deadline) { this.deadline = deadline; }
+}
@@ -0,0 +1,123 @@
+package com.example.ikm.fanout;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Группа независимых загрузок данных одной страницы, выполняемых параллельно.
+ *
+ * <p>Все загрузки группы должны завершиться до общего срока. Каждая выполняется
+ * в read-only транзакции с таймаутом, равным оставшемуся до срока времени, поэтому
+ * срок доходит и до SQL-запросов. Если загрузка завершилась ошибкой или срок истек,
+ * остальные загрузки группы отменяются вместе с выполняемыми ими SQL-запросами
+ * ({@link QueryCancellation}). При закрытии группы отменяются загрузки,
+ * результат которых так и не понадобился.</p>
+ *
+ * <pre>
+ * try (LoadScope loads = parallelLoads.open()) {
+ *     Future&lt;List&lt;Books&gt;&gt; books = loads.fork(() -&gt; booksService.searchBooks(...));
+ *     Future&lt;List&lt;Genres&gt;&gt; genres = loads.fork(genresService::getAllGenres);
+ *     model.addAttribute("books", loads.join(books));
+ *     model.addAttribute("genres", loads.join(genres));
+ * }
+ * </pre>
+ */
+public final class LoadScope implements AutoCloseable {
+    private final AsyncTaskExecutor executor;
+    private final PlatformTransactionManager transactionManager;
+    private final long deadlineNanos;
+    private final Long outerDeadline;
+    private final List<Future<?>> forks = new ArrayList<>();
+    private final List<QueryCancellation> cancellations = new ArrayList<>();
+
+    LoadScope(AsyncTaskExecutor executor, PlatformTransactionManager transactionManager, Duration deadline) {
+        this.executor = executor;
+        this.transactionManager = transactionManager;
+        this.outerDeadline = Deadline.get();
+        long own = System.nanoTime() + deadline.toNanos();
+        // вложенная группа не может жить дольше внешней
+        this.deadlineNanos = outerDeadline != null ? Math.min(own, outerDeadline) : own;
+        Deadline.set(deadlineNanos);
+    }
+
+    /**
+     * Запускает загрузку в отдельном потоке.
+     *
+     * @param load загрузка данных (только чтение)
+     * @return future результата, передаваемый в {@link #join(Future)}
+     */
+    public <T> Future<T> fork(Supplier<T> load) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        transaction.setTimeout((int) Math.max(1, (remainingMillis + 999) / 1000));
+        QueryCancellation cancellation = new QueryCancellation();
+        Future<T> fork = executor.submit(() -> {
+            // при переполненной очереди загрузка выполняется в потоке запроса со своей отменой
+            QueryCancellation outer = QueryCancellation.current();
+            QueryCancellation.set(cancellation);
+            try {
+                return transaction.execute(status -> load.get());
+            } finally {
+                QueryCancellation.set(outer);
+            }
+        });
+        forks.add(fork);
+        cancellations.add(cancellation);
+        return fork;
+    }
+
+    /**
+     * Ожидает результат загрузки не дольше срока группы.
+     *
+     * @param fork загрузка, запущенная этой группой
+     * @return результат загрузки
+     * @throws QueryTimeoutException если срок истек
+     */
+    public <T> T join(Future<T> fork) {
+        try {
+            return fork.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancelAll();
+            throw new QueryTimeoutException("Данные страницы не загружены в отведенный срок");
+        } catch (ExecutionException e) {
+            cancelAll();
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (CancellationException e) {
+            throw new QueryTimeoutException("Загрузка данных страницы отменена");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAll();
+            throw new IllegalStateException("Поток прерван во время загрузки данных страницы", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        Deadline.set(outerDeadline);
+    }
+
+    private void cancelAll() {
+        forks.forEach(fork -> fork.cancel(true));
+        cancellations.forEach(cancellation -> cancellation.cancel("Загрузка данных страницы отменена"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ikm.fanout;
+
+import com.example.ikm.config.ReplicaRoutingContext;
+import com.example.ikm.monitoring.RequestTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Открывает группы параллельных загрузок ({@link LoadScope}) на общем ограниченном пуле потоков.
+ *
+ * <p>Пул не регистрируется как бин, чтобы не подменить исполнитель {@code @Async}.
+ * В поток загрузки переносится контекст потока запроса: MDC (обработчик запроса в журнале
+ * медленных SQL-запросов), закрепление клиента за основной БД, срок {@link Deadline}
+ * и учет времени этапов запроса ({@link RequestTiming}).
+ * Если очередь пула заполнена, загрузка выполняется в потоке запроса.</p>
+ */
+public class ParallelLoads implements DisposableBean {
+    private final ThreadPoolTaskExecutor executor;
+    private final PlatformTransactionManager transactionManager;
+    private final FanOutProperties properties;
+
+    public ParallelLoads(FanOutProperties properties, PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.transactionManager = transactionManager;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("fanout-");
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new RequestContextPropagation());
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "ikm.fanout", List.of()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Открывает группу загрузок со сроком ikm.fanout.deadline (или меньшим сроком внешней группы).
+     */
+    public LoadScope open() {
+        return new LoadScope(executor, transactionManager, properties.getDeadline());
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Переносит контекст потока запроса в поток загрузки и очищает его после загрузки.
+     * Загрузка, выполняемая в самом потоке запроса (очередь заполнена), контекст не меняет.
+     */
+    static final class RequestContextPropagation implements TaskDecorator {
+        @Override
+        public Runnable decorate(Runnable task) {
+            Thread caller = Thread.currentThread();
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            boolean pinned = ReplicaRoutingContext.isPinnedToPrimary();
+            Long deadline = Deadline.get();
+            RequestTiming timing = RequestTiming.current();
+            return () -> {
+                if (Thread.currentThread() == caller) {
+                    task.run();
+                    return;
+                }
+                if (mdc != null) {
+                    MDC.setContextMap(mdc);
+                }
+                if (pinned) {
+                    ReplicaRoutingContext.pinToPrimary();
+                }
+                Deadline.set(deadline);
+                RequestTiming.set(timing);
+                try {
+                    task.run();
+                } finally {
+                    MDC.clear();
+                    ReplicaRoutingContext.clear();
+                    Deadline.set(null);
+                    RequestTiming.set(null);
+                }
+            };
+        }
+    }
+}
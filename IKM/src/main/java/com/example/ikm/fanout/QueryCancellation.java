@@ -0,0 +1,89 @@
+package com.example.ikm.fanout;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отмена SQL-запросов, выполняемых в потоке: загрузкой {@link LoadScope} или поиском
+ * под {@link SearchGuard}.
+ *
+ * <p>Выполняемые в потоке запросы регистрируются при выполнении и снимаются при закрытии
+ * (см. {@link #register(Statement)}). {@link #cancel(String)} можно вызвать из любого потока:
+ * выполняемые запросы отменяются через {@link Statement#cancel()}, а следующие запросы
+ * этого потока сразу завершаются {@link SQLTimeoutException}.</p>
+ */
+public final class QueryCancellation {
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+    private volatile String reason;
+
+    /**
+     * @return отмена текущего потока или null
+     */
+    public static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    static void set(QueryCancellation cancellation) {
+        if (cancellation == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(cancellation);
+        }
+    }
+
+    /**
+     * Регистрирует запрос, выполняемый в текущем потоке. Вызывается обертками JDBC
+     * перед выполнением; без отмены в потоке ничего не делает.
+     *
+     * @throws SQLTimeoutException если отмена уже произошла
+     */
+    public static void register(Statement statement) throws SQLException {
+        QueryCancellation cancellation = CURRENT.get();
+        if (cancellation != null) {
+            cancellation.running.add(statement);
+            if (cancellation.reason != null) {
+                cancellation.running.remove(statement);
+                throw new SQLTimeoutException(cancellation.reason);
+            }
+        }
+    }
+
+    /**
+     * Снимает закрытый запрос; запрос мог быть зарегистрирован другой отменой,
+     * поэтому проверяется только отмена текущего потока.
+     */
+    public static void unregister(Statement statement) {
+        QueryCancellation cancellation = CURRENT.get();
+        if (cancellation != null) {
+            cancellation.running.remove(statement);
+        }
+    }
+
+    /**
+     * Отменяет выполняемые и будущие запросы. Повторный вызов ничего не меняет.
+     *
+     * @param reason причина отмены для сообщения об ошибке
+     */
+    public void cancel(String reason) {
+        if (this.reason != null) {
+            return;
+        }
+        this.reason = reason;
+        for (Statement statement : running) {
+            try {
+                statement.cancel();
+            } catch (SQLException | RuntimeException e) {
+                // запрос уже завершен или соединение закрыто - отменять нечего
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+}
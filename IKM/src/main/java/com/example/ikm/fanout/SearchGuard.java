@@ -0,0 +1,127 @@
+package com.example.ikm.fanout;
+
+import com.example.ikm.monitoring.ServiceMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ограничивает длительность поиска сроком его вида (см. {@link SearchTimeoutProperties}).
+ *
+ * <p>Срок не больше оставшегося до {@link Deadline} времени. Когда он истекает, SQL-запросы поиска
+ * отменяются через {@link QueryCancellation}: выполняемый запрос прерывается в БД и освобождает
+ * соединение, а не дорабатывает до конца. Поиск внутри загрузки {@link LoadScope} использует
+ * отмену загрузки, поэтому отменяется и при отмене группы загрузок. Запросы регистрируются
+ * для отмены оберткой JDBC учета SQL-запросов: при ikm.sql.monitoring.enabled=false поиск
+ * прерывается только между запросами.</p>
+ *
+ * <p>Прерванный поиск завершается {@link QueryTimeoutException}; результат прерванного поиска
+ * не кэшируется, а контроллеры показывают вместо него пустую выдачу с предупреждением.
+ * Вид поиска также становится тегом метрик вызова сервиса ({@link ServiceMetrics}).</p>
+ */
+public class SearchGuard implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(SearchGuard.class);
+    private static final String SQL_STATE_CANCELED = "57014";
+
+    private final SearchTimeoutProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> timeouts = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    public SearchGuard(SearchTimeoutProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.watchdog = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "search-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Выполняет поиск в пределах срока его вида.
+     *
+     * @param search вид поиска ("books.title", "authors.lastName"...)
+     * @param body поиск
+     * @return результат поиска
+     * @throws QueryTimeoutException если срок истек и запросы поиска отменены
+     */
+    public <T> T run(String search, Supplier<T> body) {
+        ServiceMetrics.tagSearch(search);
+        long timeoutNanos = timeoutFor(search).toNanos();
+        Duration remaining = Deadline.remaining().orElse(null);
+        if (remaining != null) {
+            timeoutNanos = Math.min(timeoutNanos, remaining.toNanos());
+        }
+        QueryCancellation outer = QueryCancellation.current();
+        QueryCancellation cancellation = outer != null ? outer : new QueryCancellation();
+        if (outer == null) {
+            QueryCancellation.set(cancellation);
+        }
+        String reason = "Поиск " + search + " прерван: превышен срок "
+                + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " мс";
+        ScheduledFuture<?> timer = watchdog.schedule(() -> cancellation.cancel(reason),
+                Math.max(0, timeoutNanos), TimeUnit.NANOSECONDS);
+        try {
+            return body.get();
+        } catch (RuntimeException e) {
+            if (cancellation.isCancelled() || isTimeout(e)) {
+                timeouts.computeIfAbsent(search, key -> Counter.builder("ikm.search.timeouts")
+                        .description("Поиски, прерванные по сроку")
+                        .tag("search", key)
+                        .register(meterRegistry)).increment();
+                log.warn("{}", reason);
+                throw e instanceof QueryTimeoutException timeout ? timeout : new QueryTimeoutException(reason, e);
+            }
+            throw e;
+        } finally {
+            timer.cancel(false);
+            if (outer == null) {
+                QueryCancellation.set(null);
+            }
+        }
+    }
+
+    Duration timeoutFor(String search) {
+        int dot = search.indexOf('.');
+        Map<String, Duration> timeouts = switch (search.substring(0, Math.max(dot, 0))) {
+            case "books" -> properties.getBooks();
+            case "authors" -> properties.getAuthors();
+            default -> Map.of();
+        };
+        return timeouts.getOrDefault(search.substring(dot + 1), properties.getTimeout());
+    }
+
+    @Override
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Запрос отменен по таймауту или отменой: драйверы сообщают об этом SQLTimeoutException
+     * или SQLSTATE 57014, а трансляторы исключений Spring - QueryTimeoutException.
+     */
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof SQLTimeoutException
+                    || cause instanceof SQLException sql && SQL_STATE_CANCELED.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
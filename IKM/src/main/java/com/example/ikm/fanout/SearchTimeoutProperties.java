@@ -0,0 +1,50 @@
+package com.example.ikm.fanout;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сроки поиска книг и авторов по видам поиска.
+ *
+ * <p>Вид поиска книг - тип поиска (title, author, year, feedback, fuzzy), authorId или genre
+ * (фильтры) и all (пустой запрос); вид поиска авторов - тип поиска (firstName, lastName,
+ * birthYear, fullName, fuzzy) или all.</p>
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.search.timeout=3s
+ * ikm.search.books.feedback=1s
+ * ikm.search.books.genre=2s
+ * ikm.search.authors.firstName=1s
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.search")
+public class SearchTimeoutProperties {
+    /**
+     * Срок поиска, для вида которого не задан свой срок.
+     */
+    private Duration timeout = Duration.ofSeconds(3);
+
+    /**
+     * Сроки по видам поиска книг.
+     */
+    private Map<String, Duration> books = new HashMap<>();
+
+    /**
+     * Сроки по видам поиска авторов.
+     */
+    private Map<String, Duration> authors = new HashMap<>();
+
+    public Duration getTimeout() { return timeout; }
+    public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+    public Map<String, Duration> getBooks() { return books; }
+    public void setBooks(Map<String, Duration> books) { this.books = books; }
+
+    public Map<String, Duration> getAuthors() { return authors; }
+    public void setAuthors(Map<String, Duration> authors) { this.authors = authors; }
+}
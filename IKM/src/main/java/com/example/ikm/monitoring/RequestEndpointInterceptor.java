@@ -0,0 +1,28 @@
+package com.example.ikm.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Помещает в MDC обработчик текущего запроса ("GET /books/view/{id}"),
+ * чтобы записи журнала, в том числе о медленных SQL-запросах, указывали, откуда пришел запрос.
+ */
+public class RequestEndpointInterceptor implements HandlerInterceptor {
+    public static final String MDC_KEY = "endpoint";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        MDC.put(MDC_KEY, request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        MDC.remove(MDC_KEY);
+    }
+}
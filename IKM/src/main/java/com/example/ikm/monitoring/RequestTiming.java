@@ -0,0 +1,143 @@
+package com.example.ikm.monitoring;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Время этапов обработки одного запроса: обработчик, сервисы, JDBC, отрисовка представления.
+ *
+ * <p>Привязывается к потоку запроса ({@link #current()}) и переносится в потоки параллельных
+ * загрузок, поэтому суммы этапов могут превышать общее время запроса. Кроме сумм сохраняются
+ * отдельные отрезки (вызов сервиса, SQL-запрос) - не больше заданного количества на запрос.</p>
+ */
+public final class RequestTiming {
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Этап обработки запроса; имя этапа используется в заголовке Server-Timing.
+     */
+    public enum Stage {
+        HANDLER("handler"), SERVICE("service"), DB("db"), RENDER("render");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    private final long startNanos = System.nanoTime();
+    private final int maxSpans;
+    private final Map<Stage, LongAdder> nanos = new EnumMap<>(Stage.class);
+    private final Map<Stage, LongAdder> counts = new EnumMap<>(Stage.class);
+    private final List<Span> spans = new ArrayList<>();
+    private final AtomicInteger droppedSpans = new AtomicInteger();
+
+    RequestTiming(int maxSpans) {
+        this.maxSpans = maxSpans;
+        for (Stage stage : Stage.values()) {
+            nanos.put(stage, new LongAdder());
+            counts.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * @return учет времени текущего запроса или null вне запроса
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void set(RequestTiming timing) {
+        if (timing != null) {
+            CURRENT.set(timing);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Учитывает отрезок этапа в текущем запросе; вне запроса ничего не делает.
+     *
+     * @param stage этап
+     * @param name что выполнялось (метод сервиса, текст запроса)
+     * @param elapsedNanos длительность отрезка, закончившегося только что
+     */
+    public static void record(Stage stage, String name, long elapsedNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.add(stage, name, elapsedNanos, true);
+        }
+    }
+
+    /**
+     * Учитывает отрезок этапа; {@code total = false} - отрезок только попадает в список,
+     * а его время уже учтено объемлющим отрезком того же этапа (вложенный вызов сервиса).
+     */
+    void add(Stage stage, String name, long elapsedNanos, boolean total) {
+        if (total) {
+            nanos.get(stage).add(elapsedNanos);
+            counts.get(stage).increment();
+        }
+        long startOffset = System.nanoTime() - elapsedNanos - startNanos;
+        synchronized (spans) {
+            if (spans.size() < maxSpans) {
+                spans.add(new Span(stage.metricName(), name, toMillis(startOffset), toMillis(elapsedNanos)));
+                return;
+            }
+        }
+        droppedSpans.incrementAndGet();
+    }
+
+    public double millis(Stage stage) {
+        return toMillis(nanos.get(stage).sum());
+    }
+
+    public long count(Stage stage) {
+        return counts.get(stage).sum();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return отрезки в порядке начала
+     */
+    public List<Span> spans() {
+        List<Span> copy;
+        synchronized (spans) {
+            copy = new ArrayList<>(spans);
+        }
+        copy.sort((a, b) -> Double.compare(a.startMs(), b.startMs()));
+        return copy;
+    }
+
+    public int droppedSpans() {
+        return droppedSpans.get();
+    }
+
+    static double toMillis(long nanos) {
+        return Math.round(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1) * 100) / 100.0;
+    }
+
+    /**
+     * Отрезок этапа.
+     *
+     * @param stage этап
+     * @param name что выполнялось
+     * @param startMs начало от начала запроса
+     * @param durationMs длительность
+     */
+    public record Span(String stage, String name, double startMs, double durationMs) {
+    }
+}
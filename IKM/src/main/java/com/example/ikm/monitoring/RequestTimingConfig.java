@@ -0,0 +1,60 @@
+package com.example.ikm.monitoring;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Конфигурация учета времени этапов обработки запросов: заголовок Server-Timing,
+ * журнал медленных запросов с разбивкой и /actuator/slowrequests.
+ * Отключается свойством ikm.timing.enabled=false.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - конфигурация активна, пока учет не отключен</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки учета</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.timing", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(RequestTimingProperties.class)
+public class RequestTimingConfig {
+
+    @Bean
+    public SlowRequests slowRequests(RequestTimingProperties properties) {
+        return new SlowRequests(properties.getMaxKept());
+    }
+
+    @Bean
+    public RequestTimingInterceptor requestTimingInterceptor(RequestTimingProperties properties,
+                                                             SlowRequests slowRequests) {
+        return new RequestTimingInterceptor(properties, slowRequests);
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequests slowRequests) {
+        return new SlowRequestsEndpoint(slowRequests);
+    }
+
+    /**
+     * Оборачивает публичные методы бинов с @Service. Советник инфраструктурный, поэтому
+     * применяется тем же механизмом прокси, что и @Transactional, без AspectJ; внешний
+     * по отношению к транзакции - время фиксации входит во время сервиса.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceTimingAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(ServiceMethods.pointcut(),
+                new ServiceTimingInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
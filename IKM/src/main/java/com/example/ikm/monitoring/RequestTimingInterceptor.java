@@ -0,0 +1,152 @@
+package com.example.ikm.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Учитывает время этапов обработки запроса (см. {@link RequestTiming}).
+ *
+ * <p>После обработчика, до отрисовки представления, в ответ добавляется заголовок Server-Timing
+ * с временем обработчика, сервисов и JDBC. Время отрисовки в заголовок не попадает: к его концу
+ * ответ уже отправляется клиенту. Ответы, записанные самим обработчиком (REST), к этому моменту
+ * тоже отправлены и остаются без заголовка.</p>
+ *
+ * <p>По завершении запроса все этапы, включая отрисовку, пишутся в журнал {@value #LOGGER}
+ * полями ключ-значение: медленные запросы - WARN, выборочные - INFO, остальные - DEBUG.
+ * Медленные и выборочные запросы сохраняются с отрезками в {@link SlowRequests}.</p>
+ */
+public class RequestTimingInterceptor implements HandlerInterceptor {
+    public static final String LOGGER = "com.example.ikm.timing";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER);
+    private static final String TIMING_ATTRIBUTE = RequestTimingInterceptor.class.getName() + ".timing";
+    private static final String HANDLED_ATTRIBUTE = RequestTimingInterceptor.class.getName() + ".handled";
+
+    private final SlowRequests slowRequests;
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxSpans;
+
+    public RequestTimingInterceptor(RequestTimingProperties properties, SlowRequests slowRequests) {
+        this.slowRequests = slowRequests;
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.sampleRate = properties.getSampleRate();
+        this.maxSpans = properties.getMaxSpans();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTiming timing = new RequestTiming(maxSpans);
+        request.setAttribute(TIMING_ATTRIBUTE, timing);
+        RequestTiming.set(timing);
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        RequestTiming timing = (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+        if (timing == null) {
+            return;
+        }
+        long handled = timing.elapsedNanos();
+        timing.add(RequestTiming.Stage.HANDLER, handlerName(handler), handled, true);
+        request.setAttribute(HANDLED_ATTRIBUTE, handled);
+        if (!response.isCommitted()) {
+            response.setHeader("Server-Timing", serverTiming(timing));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestTiming timing = (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+        RequestTiming.set(null);
+        if (timing == null) {
+            return;
+        }
+        long total = timing.elapsedNanos();
+        if (request.getAttribute(HANDLED_ATTRIBUTE) instanceof Long handled) {
+            timing.add(RequestTiming.Stage.RENDER, "view", total - handled, true);
+        } else {
+            timing.add(RequestTiming.Stage.HANDLER, handlerName(handler), total, true);
+        }
+
+        boolean slow = total >= slowThresholdNanos;
+        boolean sampled = !slow && sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        Level level = slow ? Level.WARN : sampled ? Level.INFO : Level.DEBUG;
+        if (!slow && !sampled && !log.isDebugEnabled()) {
+            return;
+        }
+        String endpoint = endpoint(request);
+        Map<String, Double> stages = new LinkedHashMap<>();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        LoggingEventBuilder event = log.atLevel(level)
+                .addKeyValue("endpoint", endpoint)
+                .addKeyValue("status", response.getStatus())
+                .addKeyValue("total_ms", RequestTiming.toMillis(total));
+        for (RequestTiming.Stage stage : RequestTiming.Stage.values()) {
+            stages.put(stage.metricName(), timing.millis(stage));
+            counts.put(stage.metricName(), timing.count(stage));
+            event = event.addKeyValue(stage.metricName() + "_ms", timing.millis(stage));
+        }
+        event = event.addKeyValue("service_calls", timing.count(RequestTiming.Stage.SERVICE))
+                .addKeyValue("db_queries", timing.count(RequestTiming.Stage.DB));
+        event.log("{} {} ms: {}", slow ? "slow request" : sampled ? "sampled request" : "request",
+                RequestTiming.toMillis(total), endpoint);
+        if (slow || sampled) {
+            String uri = request.getQueryString() != null
+                    ? request.getRequestURI() + "?" + request.getQueryString() : request.getRequestURI();
+            slowRequests.add(new SlowRequests.Report(Instant.now(), endpoint, uri, response.getStatus(), slow,
+                    RequestTiming.toMillis(total), stages, counts, timing.spans(), timing.droppedSpans()));
+        }
+    }
+
+    /**
+     * Формирует значение заголовка Server-Timing: {@code handler;dur=12.5, service;dur=10.1;desc="2 calls", ...}.
+     * Время параллельных загрузок суммируется, поэтому service и db могут превышать handler.
+     */
+    static String serverTiming(RequestTiming timing) {
+        StringBuilder header = new StringBuilder();
+        header.append(metric(RequestTiming.Stage.HANDLER, timing.millis(RequestTiming.Stage.HANDLER)));
+        long services = timing.count(RequestTiming.Stage.SERVICE);
+        if (services > 0) {
+            header.append(", ").append(metric(RequestTiming.Stage.SERVICE, timing.millis(RequestTiming.Stage.SERVICE)))
+                    .append(";desc=\"").append(services).append(" calls\"");
+        }
+        long statements = timing.count(RequestTiming.Stage.DB);
+        if (statements > 0) {
+            header.append(", ").append(metric(RequestTiming.Stage.DB, timing.millis(RequestTiming.Stage.DB)))
+                    .append(";desc=\"").append(statements).append(" queries\"");
+        }
+        return header.toString();
+    }
+
+    private static String metric(RequestTiming.Stage stage, double millis) {
+        return stage.metricName() + ";dur=" + String.format(Locale.ROOT, "%.2f", millis);
+    }
+
+    private static String handlerName(Object handler) {
+        return handler instanceof HandlerMethod method
+                ? method.getBeanType().getSimpleName() + "." + method.getMethod().getName() : handler.toString();
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
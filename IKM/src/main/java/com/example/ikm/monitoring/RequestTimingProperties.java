@@ -0,0 +1,58 @@
+package com.example.ikm.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки учета времени этапов обработки запросов.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.timing.slow-threshold=1s
+ * ikm.timing.sample-rate=0.01
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.timing")
+public class RequestTimingProperties {
+    /**
+     * Включает учет этапов, заголовок Server-Timing и журнал медленных запросов.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Запросы дольше этого порога записываются в журнал и сохраняются с полной разбивкой.
+     */
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    /**
+     * Доля остальных запросов (от 0 до 1), которые сохраняются выборочно.
+     */
+    private double sampleRate;
+
+    /**
+     * Сколько последних сохраненных запросов показывает /actuator/slowrequests.
+     */
+    private int maxKept = 100;
+
+    /**
+     * Максимальное количество отрезков (вызовов сервисов и SQL-запросов) в разбивке одного запроса.
+     */
+    private int maxSpans = 200;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getSlowThreshold() { return slowThreshold; }
+    public void setSlowThreshold(Duration slowThreshold) { this.slowThreshold = slowThreshold; }
+
+    public double getSampleRate() { return sampleRate; }
+    public void setSampleRate(double sampleRate) { this.sampleRate = sampleRate; }
+
+    public int getMaxKept() { return maxKept; }
+    public void setMaxKept(int maxKept) { this.maxKept = maxKept; }
+
+    public int getMaxSpans() { return maxSpans; }
+    public void setMaxSpans(int maxSpans) { this.maxSpans = maxSpans; }
+}
@@ -0,0 +1,29 @@
+package com.example.ikm.monitoring;
+
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Срез публичных методов бинов с @Service (кроме методов Object), общий для учета времени
+ * этапов запроса и метрик сервисов.
+ */
+final class ServiceMethods {
+
+    private ServiceMethods() {
+    }
+
+    static Pointcut pointcut() {
+        return new ComposablePointcut(new AnnotationClassFilter(Service.class, true), new StaticMethodMatcher() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+            }
+        });
+    }
+}
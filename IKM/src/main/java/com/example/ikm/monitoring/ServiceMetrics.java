@@ -0,0 +1,139 @@
+package com.example.ikm.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Таймеры вызовов публичных методов сервисов: {@value #METRIC}.
+ *
+ * <p>Теги: service и method; search - вид поиска, о котором сообщил сам метод через
+ * {@link #tagSearch(String)} (например, "books.feedback"), иначе "none"; results - размер
+ * результата корзиной (0, 1, 2-10, 11-100, 101-1000, 1000+; "none" - не коллекция);
+ * outcome - success, timeout (прерван по сроку) или error.</p>
+ *
+ * <p>Таймеры создаются один раз на сочетание тегов и дальше берутся из карты, поэтому вызов
+ * обходится в два System.nanoTime() и поиск в карте. Количество сочетаний ограничено:
+ * методы и виды поиска известны заранее, корзин размера немного.</p>
+ */
+public class ServiceMetrics implements MethodInterceptor {
+    public static final String METRIC = "ikm.service.calls";
+    static final String NONE = "none";
+
+    private static final ThreadLocal<Call> CURRENT = new ThreadLocal<>();
+
+    private final Supplier<MeterRegistry> registry;
+    private final Supplier<ServiceMetricsProperties> properties;
+    private final Map<Method, String[]> names = new ConcurrentHashMap<>();
+    private final Map<Key, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry реестр метрик; запрашивается при первом вызове, а не при создании прокси
+     * @param properties настройки таймеров; запрашиваются там же
+     */
+    public ServiceMetrics(Supplier<MeterRegistry> registry, Supplier<ServiceMetricsProperties> properties) {
+        this.registry = registry;
+        this.properties = properties;
+    }
+
+    /**
+     * Помечает текущий вызов сервиса видом поиска. Вне вызова сервиса ничего не делает.
+     *
+     * @param search вид поиска
+     */
+    public static void tagSearch(String search) {
+        Call call = CURRENT.get();
+        if (call != null) {
+            call.search = search;
+        }
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Call call = new Call(CURRENT.get());
+        CURRENT.set(call);
+        String outcome = "error";
+        Object result = null;
+        long start = System.nanoTime();
+        try {
+            result = invocation.proceed();
+            outcome = "success";
+            return result;
+        } catch (QueryTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (call.parent != null) {
+                CURRENT.set(call.parent);
+            } else {
+                CURRENT.remove();
+            }
+            timer(new Key(invocation.getMethod(), call.search, bucket(result), outcome))
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    static String bucket(Object result) {
+        long size;
+        if (result instanceof Collection<?> collection) {
+            size = collection.size();
+        } else if (result instanceof Map<?, ?> map) {
+            size = map.size();
+        } else if (result instanceof Optional<?> optional) {
+            size = optional.isPresent() ? 1 : 0;
+        } else {
+            return NONE;
+        }
+        if (size <= 1) {
+            return Long.toString(size);
+        }
+        return size <= 10 ? "2-10" : size <= 100 ? "11-100" : size <= 1000 ? "101-1000" : "1000+";
+    }
+
+    private Timer timer(Key key) {
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(key, missing -> {
+            String[] name = names.computeIfAbsent(missing.method(), method ->
+                    new String[]{method.getDeclaringClass().getSimpleName(), method.getName()});
+            ServiceMetricsProperties settings = properties.get();
+            return Timer.builder(METRIC)
+                    .description("Вызовы публичных методов сервисов")
+                    .tag("service", name[0])
+                    .tag("method", name[1])
+                    .tag("search", missing.search())
+                    .tag("results", missing.results())
+                    .tag("outcome", missing.outcome())
+                    .publishPercentileHistogram(settings.isPercentileHistogram())
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(settings.getMaximumExpectedTime())
+                    .register(registry.get());
+        });
+    }
+
+    private static final class Call {
+        private final Call parent;
+        private String search = NONE;
+
+        Call(Call parent) {
+            this.parent = parent;
+        }
+    }
+
+    private record Key(Method method, String search, String results, String outcome) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ikm.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Конфигурация метрик вызовов сервисов ({@link ServiceMetrics}).
+ * Отключается свойством ikm.service-metrics.enabled=false.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - метрики собираются, пока не отключены</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки метрик</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.service-metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ServiceMetricsProperties.class)
+public class ServiceMetricsConfig {
+
+    /**
+     * Советник создается раньше обычных бинов, поэтому реестр метрик и настройки
+     * запрашиваются у контекста только при первом вызове сервиса.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor serviceMetricsAdvisor(ObjectProvider<MeterRegistry> registry,
+                                                ObjectProvider<ServiceMetricsProperties> properties) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(ServiceMethods.pointcut(),
+                new ServiceMetrics(registry::getObject, properties::getObject));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+}
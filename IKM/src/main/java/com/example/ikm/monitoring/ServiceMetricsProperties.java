@@ -0,0 +1,42 @@
+package com.example.ikm.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки метрик вызовов сервисов.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.service-metrics.percentile-histogram=true
+ * ikm.service-metrics.maximum-expected-time=10s
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.service-metrics")
+public class ServiceMetricsProperties {
+    /**
+     * Включает таймеры вызовов публичных методов сервисов.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Публикует гистограммы для вычисления процентилей на стороне системы мониторинга.
+     */
+    private boolean percentileHistogram = true;
+
+    /**
+     * Верхняя граница гистограммы; чем она ниже, тем меньше корзин у каждого таймера.
+     */
+    private Duration maximumExpectedTime = Duration.ofSeconds(10);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isPercentileHistogram() { return percentileHistogram; }
+    public void setPercentileHistogram(boolean percentileHistogram) { this.percentileHistogram = percentileHistogram; }
+
+    public Duration getMaximumExpectedTime() { return maximumExpectedTime; }
+    public void setMaximumExpectedTime(Duration maximumExpectedTime) { this.maximumExpectedTime = maximumExpectedTime; }
+}
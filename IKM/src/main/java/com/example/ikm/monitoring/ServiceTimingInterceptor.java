@@ -0,0 +1,36 @@
+package com.example.ikm.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+
+/**
+ * Учитывает вызовы публичных методов сервисов как этап {@link RequestTiming.Stage#SERVICE}.
+ *
+ * <p>Каждый вызов попадает в разбивку отдельным отрезком, а в сумму этапа - только внешний
+ * вызов в потоке: время сервиса, вызванного из другого сервиса, уже входит во время вызвавшего.</p>
+ */
+class ServiceTimingInterceptor implements MethodInterceptor {
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return invocation.proceed();
+        }
+        int[] depth = DEPTH.get();
+        depth[0]++;
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            depth[0]--;
+            Method method = invocation.getMethod();
+            timing.add(RequestTiming.Stage.SERVICE,
+                    method.getDeclaringClass().getSimpleName() + "." + method.getName(), elapsed, depth[0] == 0);
+        }
+    }
+}
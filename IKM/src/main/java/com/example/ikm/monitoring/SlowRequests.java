@@ -0,0 +1,58 @@
+package com.example.ikm.monitoring;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Последние медленные и выборочно сохраненные запросы с полной разбивкой по этапам.
+ * Хранится не больше заданного количества; самые старые вытесняются.
+ */
+public class SlowRequests {
+    private final int capacity;
+    private final Deque<Report> reports = new ArrayDeque<>();
+
+    public SlowRequests(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(Report report) {
+        synchronized (reports) {
+            if (reports.size() == capacity) {
+                reports.removeLast();
+            }
+            reports.addFirst(report);
+        }
+    }
+
+    /**
+     * @return сохраненные запросы, новые первыми
+     */
+    public List<Report> reports() {
+        synchronized (reports) {
+            return new ArrayList<>(reports);
+        }
+    }
+
+    /**
+     * Разбивка одного запроса.
+     *
+     * @param at время завершения
+     * @param endpoint обработчик ("GET /books/view/{id}")
+     * @param uri адрес запроса с параметрами
+     * @param status код ответа
+     * @param slow true - запрос дольше порога, false - сохранен выборочно
+     * @param totalMs общее время
+     * @param stagesMs время по этапам
+     * @param counts количество отрезков по этапам (вызовов сервисов, SQL-запросов)
+     * @param spans отрезки в порядке начала
+     * @param droppedSpans отрезки, не поместившиеся в разбивку
+     */
+    public record Report(Instant at, String endpoint, String uri, int status, boolean slow, double totalMs,
+                         Map<String, Double> stagesMs, Map<String, Long> counts, List<RequestTiming.Span> spans,
+                         int droppedSpans) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.ikm.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * Конечная точка actuator с разбивкой медленных и выборочно сохраненных запросов:
+ * /actuator/slowrequests. Новые запросы первыми.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Endpoint - регистрирует конечную точку actuator</li>
+ *   <li>@ReadOperation - операция чтения (GET)</li>
+ * </ul>
+ * </p>
+ */
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+    private final SlowRequests slowRequests;
+
+    public SlowRequestsEndpoint(SlowRequests slowRequests) {
+        this.slowRequests = slowRequests;
+    }
+
+    @ReadOperation
+    public List<SlowRequests.Report> requests() {
+        return slowRequests.reports();
+    }
+}
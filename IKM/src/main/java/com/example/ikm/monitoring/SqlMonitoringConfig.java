@@ -0,0 +1,63 @@
+package com.example.ikm.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Конфигурация учета SQL-запросов: заменяет show-sql журналом медленных запросов
+ * и гистограммами времени выполнения по каждому запросу.
+ * Отключается свойством ikm.sql.monitoring.enabled=false.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - конфигурация активна, пока учет не отключен</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки учета</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.sql.monitoring", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SqlMonitoringProperties.class)
+public class SqlMonitoringConfig {
+
+    @Bean
+    public SqlStatementRecorder sqlStatementRecorder(MeterRegistry meterRegistry, SqlMonitoringProperties properties) {
+        return new SqlStatementRecorder(meterRegistry, properties);
+    }
+
+    /**
+     * Оборачивает основной DataSource приложения (бин dataSource). При маршрутизации
+     * на реплики это внешний DataSource, поэтому каждый запрос учитывается один раз.
+     */
+    @Bean
+    public static BeanPostProcessor sqlMonitoringDataSourcePostProcessor(ObjectProvider<SqlStatementRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+                        && !(bean instanceof SqlMonitoringDataSource)) {
+                    return new SqlMonitoringDataSource(dataSource, recorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public RequestEndpointInterceptor requestEndpointInterceptor() {
+        return new RequestEndpointInterceptor();
+    }
+
+    @Bean
+    public SqlStatementsEndpoint sqlStatementsEndpoint(SqlStatementRecorder recorder) {
+        return new SqlStatementsEndpoint(recorder);
+    }
+}
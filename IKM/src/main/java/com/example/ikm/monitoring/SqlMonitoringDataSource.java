@@ -0,0 +1,283 @@
+package com.example.ikm.monitoring;
+
+import com.example.ikm.fanout.QueryCancellation;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DataSource, измеряющий выполнение каждого SQL-запроса.
+ *
+ * <p>Соединения, запросы и результаты оборачиваются динамическими прокси. Для запросов
+ * запоминаются параметры (setXxx), время выполнения и время чтения результата (ResultSet.next),
+ * количество прочитанных или измененных строк. Выполнение передается в {@link SqlStatementRecorder},
+ * когда результат закрыт или, для изменений, сразу после выполнения.</p>
+ *
+ * <p>Выполняемые запросы регистрируются в {@link QueryCancellation} потока, чтобы истекший
+ * срок поиска или загрузки мог их отменить.</p>
+ */
+public class SqlMonitoringDataSource extends DelegatingDataSource {
+    private final SqlStatementRecorder recorder;
+
+    public SqlMonitoringDataSource(DataSource target, SqlStatementRecorder recorder) {
+        super(target);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlMonitoringDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Общая часть обработчиков: equals и hashCode относятся к самому прокси.
+     */
+    private abstract static class Handler implements InvocationHandler {
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> handle(method, args);
+            };
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private final class ConnectionHandler extends Handler {
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = SqlMonitoringDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement", "prepareCall" ->
+                        proxy(method.getReturnType(), new StatementHandler((Statement) result, (String) args[0]));
+                case "createStatement" -> proxy(method.getReturnType(), new StatementHandler((Statement) result, null));
+                default -> result;
+            };
+        }
+    }
+
+    private final class StatementHandler extends Handler {
+        private String sql;
+        private final Map<Integer, Object> binds = new TreeMap<>();
+        private int batchSize;
+        /** Выполнение, результат которого еще не прочитан до конца. */
+        private Execution open;
+
+        StatementHandler(Statement target, String sql) {
+            super(target);
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (isBind(method, args)) {
+                binds.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                return SqlMonitoringDataSource.invoke(target, method, args);
+            }
+            return switch (name) {
+                case "clearParameters" -> {
+                    binds.clear();
+                    yield SqlMonitoringDataSource.invoke(target, method, args);
+                }
+                case "addBatch" -> {
+                    batchSize++;
+                    if (args != null) {
+                        sql = (String) args[0];
+                    }
+                    yield SqlMonitoringDataSource.invoke(target, method, args);
+                }
+                case "executeQuery" -> {
+                    Execution execution = start(args);
+                    ResultSet resultSet = (ResultSet) execution.time(() -> SqlMonitoringDataSource.invoke(target, method, args));
+                    yield resultSet(resultSet, execution);
+                }
+                case "executeUpdate", "executeLargeUpdate" -> {
+                    Execution execution = start(args);
+                    Number rows = (Number) execution.time(() -> SqlMonitoringDataSource.invoke(target, method, args));
+                    execution.rows = rows.longValue();
+                    execution.finish();
+                    yield rows;
+                }
+                case "execute" -> {
+                    Execution execution = start(args);
+                    Boolean hasResultSet = (Boolean) execution.time(() -> SqlMonitoringDataSource.invoke(target, method, args));
+                    if (hasResultSet) {
+                        open = execution;
+                    } else {
+                        execution.rows = Math.max(0, ((Statement) target).getUpdateCount());
+                        execution.finish();
+                    }
+                    yield hasResultSet;
+                }
+                case "getResultSet" -> {
+                    ResultSet resultSet = (ResultSet) SqlMonitoringDataSource.invoke(target, method, args);
+                    yield resultSet != null && open != null ? resultSet(resultSet, open) : resultSet;
+                }
+                case "executeBatch", "executeLargeBatch" -> {
+                    Execution execution = start(null);
+                    execution.batchSize = batchSize;
+                    Object counts = execution.time(() -> SqlMonitoringDataSource.invoke(target, method, args));
+                    execution.rows = sumPositive(counts);
+                    batchSize = 0;
+                    execution.finish();
+                    yield counts;
+                }
+                case "clearBatch" -> {
+                    batchSize = 0;
+                    yield SqlMonitoringDataSource.invoke(target, method, args);
+                }
+                case "close" -> {
+                    finishOpen();
+                    QueryCancellation.unregister((Statement) target);
+                    yield SqlMonitoringDataSource.invoke(target, method, args);
+                }
+                default -> SqlMonitoringDataSource.invoke(target, method, args);
+            };
+        }
+
+        private Execution start(Object[] args) throws SQLException {
+            finishOpen();
+            QueryCancellation.register((Statement) target);
+            String executed = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+            return new Execution(executed, binds.isEmpty() ? Map.of() : new TreeMap<>(binds));
+        }
+
+        private void finishOpen() {
+            if (open != null) {
+                open.finish();
+                open = null;
+            }
+        }
+
+        private ResultSet resultSet(ResultSet resultSet, Execution execution) {
+            open = execution;
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, execution));
+        }
+
+        private static boolean isBind(Method method, Object[] args) {
+            return method.getName().startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer && method.getDeclaringClass() != Statement.class;
+        }
+
+        private static long sumPositive(Object counts) {
+            long total = 0;
+            if (counts instanceof int[] ints) {
+                for (int count : ints) {
+                    total += Math.max(0, count);
+                }
+            } else if (counts instanceof long[] longs) {
+                for (long count : longs) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class ResultSetHandler extends Handler {
+        private final Execution execution;
+
+        ResultSetHandler(ResultSet target, Execution execution) {
+            super(target);
+            this.execution = execution;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "next" -> {
+                    Boolean hasRow = (Boolean) execution.time(() -> SqlMonitoringDataSource.invoke(target, method, args));
+                    if (hasRow) {
+                        execution.rows++;
+                    }
+                    yield hasRow;
+                }
+                case "close" -> {
+                    Object result = SqlMonitoringDataSource.invoke(target, method, args);
+                    execution.finish();
+                    yield result;
+                }
+                default -> SqlMonitoringDataSource.invoke(target, method, args);
+            };
+        }
+    }
+
+    /**
+     * Одно выполнение запроса: накопленное время, строки и параметры.
+     */
+    private final class Execution {
+        private final String sql;
+        private final Map<Integer, Object> binds;
+        private int batchSize;
+        private long elapsedNanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(String sql, Map<Integer, Object> binds) {
+            this.sql = sql;
+            this.binds = binds;
+        }
+
+        Object time(JdbcCall call) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return call.run();
+            } finally {
+                elapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                recorder.record(sql, binds, batchSize, rows, elapsedNanos);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface JdbcCall {
+        Object run() throws Throwable;
+    }
+}
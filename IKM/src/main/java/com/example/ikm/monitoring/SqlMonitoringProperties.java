@@ -0,0 +1,59 @@
+package com.example.ikm.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки журнала медленных SQL-запросов и статистики выполнения запросов.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.sql.monitoring.slow-threshold=200ms
+ * ikm.sql.monitoring.sample-rate=0.01
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.sql.monitoring")
+public class SqlMonitoringProperties {
+    /**
+     * Включает перехват JDBC-запросов: журнал медленных запросов и гистограммы по запросам.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Запросы, выполнявшиеся дольше этого порога, записываются в журнал медленных запросов.
+     */
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    /**
+     * Доля остальных запросов (от 0 до 1), которые записываются в журнал выборочно.
+     */
+    private double sampleRate;
+
+    /**
+     * Максимальная длина значения параметра в журнале; длинные строки обрезаются.
+     */
+    private int maxBindValueLength = 100;
+
+    /**
+     * Максимальное количество различных запросов со своей гистограммой;
+     * остальные учитываются под общим тегом "other".
+     */
+    private int maxStatements = 500;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getSlowThreshold() { return slowThreshold; }
+    public void setSlowThreshold(Duration slowThreshold) { this.slowThreshold = slowThreshold; }
+
+    public double getSampleRate() { return sampleRate; }
+    public void setSampleRate(double sampleRate) { this.sampleRate = sampleRate; }
+
+    public int getMaxBindValueLength() { return maxBindValueLength; }
+    public void setMaxBindValueLength(int maxBindValueLength) { this.maxBindValueLength = maxBindValueLength; }
+
+    public int getMaxStatements() { return maxStatements; }
+    public void setMaxStatements(int maxStatements) { this.maxStatements = maxStatements; }
+}
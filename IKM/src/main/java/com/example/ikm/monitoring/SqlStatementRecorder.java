@@ -0,0 +1,156 @@
+package com.example.ikm.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Учет выполненных SQL-запросов.
+ *
+ * <p>Каждое выполнение попадает в таймер {@value #METRIC} с тегом statement - текстом запроса,
+ * в котором литералы и списки параметров IN (?, ?, ...) сведены к одному виду.
+ * Запросы дольше порога и выборочная доля остальных пишутся в журнал {@value #LOGGER}
+ * вместе со значениями параметров, количеством строк, временем и обработчиком запроса.
+ * Время запроса также добавляется к этапу JDBC текущего HTTP-запроса ({@link RequestTiming}).</p>
+ */
+public class SqlStatementRecorder {
+    public static final String METRIC = "ikm.sql.statement";
+    public static final String LOGGER = "com.example.ikm.sql.slow";
+    static final String OTHER_STATEMENTS = "other";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final int MAX_STATEMENT_LENGTH = 300;
+
+    private final MeterRegistry registry;
+    private final SqlMonitoringProperties properties;
+    private final long slowThresholdNanos;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public SqlStatementRecorder(MeterRegistry registry, SqlMonitoringProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+    }
+
+    /**
+     * Учитывает одно выполнение запроса.
+     *
+     * @param sql текст запроса
+     * @param binds значения параметров по номерам (может быть пустым)
+     * @param batchSize количество наборов параметров в пакете, 0 - не пакет
+     * @param rows прочитанные или измененные строки
+     * @param elapsedNanos время выполнения и чтения результата
+     */
+    void record(String sql, Map<Integer, Object> binds, int batchSize, long rows, long elapsedNanos) {
+        if (sql == null) {
+            return;
+        }
+        String statement = normalize(sql);
+        timer(statement).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        RequestTiming.record(RequestTiming.Stage.DB, statement, elapsedNanos);
+
+        boolean slow = elapsedNanos >= slowThresholdNanos;
+        if (slow || sampled()) {
+            String endpoint = MDC.get(RequestEndpointInterceptor.MDC_KEY);
+            String message = "{} ms, rows={}, endpoint={}: {} binds={}{}";
+            Object[] arguments = {
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rows, endpoint != null ? endpoint : "-",
+                    WHITESPACE.matcher(sql).replaceAll(" ").trim(), formatBinds(binds),
+                    batchSize > 0 ? " batch=" + batchSize : ""};
+            if (slow) {
+                log.warn("slow " + message, arguments);
+            } else {
+                log.info("sampled " + message, arguments);
+            }
+        }
+    }
+
+    /**
+     * Возвращает таймеры всех учтенных запросов.
+     *
+     * @return таймеры по тексту запроса
+     */
+    public Map<String, Timer> timers() {
+        return Map.copyOf(timers);
+    }
+
+    private Timer timer(String statement) {
+        Timer timer = timers.get(statement);
+        if (timer != null) {
+            return timer;
+        }
+        String tag = timers.size() < properties.getMaxStatements() ? statement : OTHER_STATEMENTS;
+        return timers.computeIfAbsent(tag, key -> Timer.builder(METRIC)
+                .description("Время выполнения SQL-запроса")
+                .tag("statement", key)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private boolean sampled() {
+        double rate = properties.getSampleRate();
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private String formatBinds(Map<Integer, Object> binds) {
+        if (binds.isEmpty()) {
+            return "[]";
+        }
+        StringBuilder result = new StringBuilder("[");
+        for (Map.Entry<Integer, Object> bind : binds.entrySet()) {
+            if (result.length() > 1) {
+                result.append(", ");
+            }
+            result.append(bind.getKey()).append('=').append(formatValue(bind.getValue()));
+        }
+        return result.append(']').toString();
+    }
+
+    private String formatValue(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (value instanceof Collection<?> || value.getClass().isArray()) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        String text = String.valueOf(value);
+        int limit = properties.getMaxBindValueLength();
+        if (text.length() > limit) {
+            text = text.substring(0, limit) + "...(" + text.length() + ")";
+        }
+        return value instanceof CharSequence ? "'" + text + "'" : text;
+    }
+
+    /**
+     * Приводит текст запроса к виду, общему для всех его выполнений:
+     * пробелы схлопываются, литералы заменяются на ?, списки параметров IN - на (?...).
+     *
+     * @param sql текст запроса
+     * @return нормализованный текст
+     */
+    static String normalize(String sql) {
+        String result = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        result = STRING_LITERAL.matcher(result).replaceAll("?");
+        result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+        result = PARAMETER_LIST.matcher(result).replaceAll("(?...)");
+        return result.length() > MAX_STATEMENT_LENGTH ? result.substring(0, MAX_STATEMENT_LENGTH) : result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ikm.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конечная точка actuator со статистикой SQL-запросов: /actuator/sqlstatements.
+ * Запросы отсортированы по суммарному времени выполнения.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Endpoint - регистрирует конечную точку actuator</li>
+ *   <li>@ReadOperation - операция чтения (GET)</li>
+ * </ul>
+ * </p>
+ */
+@Endpoint(id = "sqlstatements")
+public class SqlStatementsEndpoint {
+    private final SqlStatementRecorder recorder;
+
+    public SqlStatementsEndpoint(SqlStatementRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<StatementStats> statements() {
+        return recorder.timers().entrySet().stream()
+                .map(entry -> StatementStats.of(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingDouble(StatementStats::totalMs).reversed())
+                .toList();
+    }
+
+    /**
+     * Статистика одного запроса. Процентили - по скользящему окну таймера.
+     */
+    public record StatementStats(String statement, long count, double totalMs, double meanMs, double maxMs,
+                                 Map<String, Double> percentilesMs) {
+
+        static StatementStats of(String statement, Timer timer) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                percentiles.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS));
+            }
+            return new StatementStats(statement, snapshot.count(), snapshot.total(TimeUnit.MILLISECONDS),
+                    snapshot.mean(TimeUnit.MILLISECONDS), snapshot.max(TimeUnit.MILLISECONDS), percentiles);
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.example.ikm.repositories;
 
 import com.example.ikm.entity.Authors;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Репозиторий для работы с сущностью Authors в базе данных.
  * Наследует JpaRepository для получения стандартных CRUD операций.
@@ -22,19 +26,21 @@ import java.util.Optional;
 @Repository
 public interface AuthorsRepository extends JpaRepository<Authors, Long> {
     /**
-     * Находит авторов по частичному совпадению имени (без учета регистра).
+     * Находит авторов, ключ поиска имени которых содержит указанный ключ
+     * (кириллическое и латинское написание совпадают, см. {@link com.example.ikm.entity.SearchKeys}).
      *
-     * @param firstName часть имени для поиска
-     * @return список авторов с именами, содержащими указанную строку
+     * @param firstNameKey ключ поиска части имени
+     * @return список найденных авторов
      */
-    List<Authors> findByFirstNameContainingIgnoreCase(String firstName);
+    List<Authors> findByFirstNameKeyContaining(String firstNameKey);
     /**
-     * Находит авторов по частичному совпадению фамилии (без учета регистра).
+     * Находит авторов, ключ поиска фамилии которых содержит указанный ключ
+     * (кириллическое и латинское написание совпадают, см. {@link com.example.ikm.entity.SearchKeys}).
      *
-     * @param lastName часть фамилии для поиска
-     * @return список авторов с фамилиями, содержащими указанную строку
+     * @param lastNameKey ключ поиска части фамилии
+     * @return список найденных авторов
      */
-    List<Authors> findByLastNameContainingIgnoreCase(String lastName);
+    List<Authors> findByLastNameKeyContaining(String lastNameKey);
 
     /**
      * Находит авторов по году рождения.
@@ -54,21 +60,84 @@ public interface AuthorsRepository extends JpaRepository<Authors, Long> {
     List<Authors> findByBirthYearBetween(Integer startYear, Integer endYear);
 
     /**
-     * Находит авторов по частичному совпадению имени или фамилии (без учета регистра).
+     * Находит авторов, ключ поиска полного имени ("имя фамилия") которых содержит указанный ключ.
      *
-     * @param firstName часть имени для поиска
-     * @param lastName часть фамилии для поиска
-     * @return список авторов с именами или фамилиями, содержащими указанные строки
+     * @param nameKey ключ поиска части имени
+     * @return список найденных авторов
      */
-    List<Authors> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(
-            String firstName, String lastName);
+    List<Authors> findByNameKeyContaining(String nameKey);
 
     /**
-     * Находит автора по точному совпадению имени и фамилии (без учета регистра).
+     * Находит автора по ключу поиска полного имени: совпадают написания, различающиеся
+     * регистром, алфавитом (кириллица или латиница) и буквами ё/е.
      *
-     * @param firstName имя автора
-     * @param lastName фамилия автора
-     * @return Optional с автором, если найден
+     * @param nameKey ключ поиска полного имени
+     * @return Optional с автором (первым по идентификатору, если таких несколько)
      */
-    Optional<Authors> findByFirstNameIgnoreCaseAndLastNameIgnoreCase(String firstName, String lastName);
+    Optional<Authors> findFirstByNameKeyOrderByIdAsc(String nameKey);
+
+    /**
+     * Удаляет автора одним запросом, минуя загрузку сущности и каскад на книги.
+     * Книги автора должны быть удалены заранее.
+     *
+     * @param id идентификатор автора
+     * @return количество удаленных строк (0, если автор не найден)
+     */
+    @Modifying
+    @Query("delete from Authors a where a.id = :id")
+    int deleteByIdInBulk(@Param("id") Long id);
+
+    /**
+     * Обновляет данные автора одним запросом, если версия строки не изменилась.
+     * Версия увеличивается в том же запросе.
+     *
+     * @param id идентификатор автора
+     * @param version ожидаемая версия строки
+     * @param firstName новое имя
+     * @param lastName новая фамилия
+     * @param birthYear новый год рождения
+     * @param nameKey ключ поиска полного имени
+     * @param firstNameKey ключ поиска имени
+     * @param lastNameKey ключ поиска фамилии
+     * @return количество обновленных строк (0 - автор не найден или изменен другим пользователем)
+     */
+    @Modifying
+    @Query("update Authors a set a.firstName = :firstName, a.lastName = :lastName, a.birthYear = :birthYear, " +
+            "a.nameKey = :nameKey, a.firstNameKey = :firstNameKey, a.lastNameKey = :lastNameKey, " +
+            "a.version = a.version + 1 where a.id = :id and a.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id,
+                               @Param("version") Long version,
+                               @Param("firstName") String firstName,
+                               @Param("lastName") String lastName,
+                               @Param("birthYear") Integer birthYear,
+                               @Param("nameKey") String nameKey,
+                               @Param("firstNameKey") String firstNameKey,
+                               @Param("lastNameKey") String lastNameKey);
+
+    /**
+     * Читает имена всех авторов из курсора (для индекса нечеткого поиска).
+     * Вызывающий код обязан закрыть поток внутри транзакции.
+     *
+     * @return поток строк с идентификатором, именем и фамилией автора
+     */
+    @Query("select a.id as id, a.firstName as firstName, a.lastName as lastName from Authors a")
+    Stream<NameRow> streamNames();
+
+    /**
+     * Возвращает имя и фамилию автора (для обновления индекса нечеткого поиска).
+     *
+     * @param id идентификатор автора
+     * @return Optional со строкой автора, если автор найден
+     */
+    @Query("select a.id as id, a.firstName as firstName, a.lastName as lastName from Authors a where a.id = :id")
+    Optional<NameRow> findNameRowById(@Param("id") Long id);
+
+    /**
+     * Имя и фамилия автора для индекса нечеткого поиска.
+     */
+    interface NameRow {
+        Long getId();
+        String getFirstName();
+        String getLastName();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.ikm.repositories;
+
+import com.example.ikm.entity.BookFeedback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Репозиторий для работы с отзывами о книгах.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Repository - помечает интерфейс как репозиторий Spring Data</li>
+ * </ul>
+ * </p>
+ */
+@Repository
+public interface BookFeedbackRepository extends JpaRepository<BookFeedback, Long> {
+
+    /**
+     * Заменяет текст отзыва одним запросом, без предварительной загрузки.
+     *
+     * @param bookId идентификатор книги
+     * @param feedback новый текст отзыва
+     * @return количество обновленных строк (0 - у книги еще нет отзыва)
+     */
+    @Modifying
+    @Query("update BookFeedback f set f.feedback = :feedback where f.bookId = :bookId")
+    int updateFeedback(@Param("bookId") Long bookId, @Param("feedback") String feedback);
+
+    /**
+     * Удаляет отзыв книги одним запросом.
+     *
+     * @param bookId идентификатор книги
+     * @return количество удаленных строк
+     */
+    @Modifying
+    @Query("delete from BookFeedback f where f.bookId = :bookId")
+    int deleteByBookIdInBulk(@Param("bookId") Long bookId);
+}
@@ -1,10 +1,21 @@
 package com.example.ikm.repositories;
 
 import com.example.ikm.entity.Books;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью Books в базе данных.
@@ -13,6 +24,8 @@ import java.util.List;
  * <p>Аннотации:
  * <ul>
  *   <li>@Repository - помечает интерфейс как репозиторий Spring Data</li>
+ *   <li>@EntityGraph - автор (и жанры) загружаются тем же запросом, чтобы шаблоны
+ *   получали полностью инициализированные книги уже после закрытия транзакции</li>
  * </ul>
  * </p>
  */
@@ -20,12 +33,68 @@ import java.util.List;
 public interface BooksRepository extends JpaRepository<Books, Long> {
 
     /**
-     * Находит книги по частичному совпадению названия (без учета регистра).
+     * Находит все книги вместе с авторами.
      *
-     * @param title часть названия для поиска
-     * @return список книг с названиями, содержащими указанную строку
+     * @return список всех книг
      */
-    List<Books> findByTitleContainingIgnoreCase(String title);
+    @Override
+    @EntityGraph(attributePaths = "author")
+    List<Books> findAll();
+
+    /**
+     * Находит книгу вместе с автором и жанрами (для просмотра и редактирования).
+     *
+     * @param id идентификатор книги
+     * @return Optional с книгой, если найдена
+     */
+    @EntityGraph(attributePaths = {"author", "genres"})
+    Optional<Books> findWithAuthorAndGenresById(Long id);
+
+    /**
+     * Читает все книги вместе с авторами из курсора в порядке идентификаторов.
+     * Вызывающий код обязан закрыть поток внутри транзакции.
+     *
+     * @return поток книг
+     */
+    @Query("select b from Books b left join fetch b.author order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Books> streamAllWithAuthor();
+
+    /**
+     * Читает книги автора из курсора в порядке идентификаторов.
+     * Вызывающий код обязан закрыть поток внутри транзакции.
+     *
+     * @param authorId идентификатор автора
+     * @return поток книг автора
+     */
+    @Query("select b from Books b where b.author.id = :authorId order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Books> streamByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Находит книги вместе с авторами по списку идентификаторов (порядок не гарантируется).
+     *
+     * @param ids идентификаторы книг
+     * @return список найденных книг
+     */
+    @EntityGraph(attributePaths = "author")
+    List<Books> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Находит книги, ключ поиска названия которых содержит указанный ключ
+     * (кириллическое и латинское написание совпадают, см. {@link com.example.ikm.entity.SearchKeys}).
+     *
+     * @param titleKey ключ поиска части названия
+     * @return список найденных книг
+     */
+    @EntityGraph(attributePaths = "author")
+    List<Books> findByTitleKeyContaining(String titleKey);
 
     /**
      * Находит книги по году публикации.
@@ -33,6 +102,7 @@ public interface BooksRepository extends JpaRepository<Books, Long> {
      * @param publishYear год публикации
      * @return список книг, опубликованных в указанный год
      */
+    @EntityGraph(attributePaths = "author")
     List<Books> findByPublishYear(Integer publishYear);
 
     /**
@@ -41,24 +111,198 @@ public interface BooksRepository extends JpaRepository<Books, Long> {
      * @param authorId идентификатор автора
      * @return список книг указанного автора
      */
+    @EntityGraph(attributePaths = "author")
     List<Books> findByAuthorId(Long authorId);
 
+    /**
+     * Находит книги указанного жанра.
+     *
+     * @param genreId идентификатор жанра
+     * @return список книг жанра
+     */
+    @EntityGraph(attributePaths = "author")
+    List<Books> findByGenresId(Long genreId);
+
+    /**
+     * Проверяет, есть ли книги указанного жанра.
+     *
+     * @param genreId идентификатор жанра
+     * @return true, если жанр указан хотя бы у одной книги
+     */
+    boolean existsByGenresId(Long genreId);
+
     /**
      * Находит книги по содержанию отзыва (без учета регистра).
      *
      * @param feedback текст для поиска в отзывах
      * @return список книг с отзывами, содержащими указанный текст
      */
-    List<Books> findByFeedbackContainingIgnoreCase(String feedback);
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from Books b where b.id in (select f.bookId from BookFeedback f " +
+            "where upper(f.feedback) like upper(concat('%', :feedback, '%')))")
+    List<Books> findByFeedbackContainingIgnoreCase(@Param("feedback") String feedback);
+
+    /**
+     * Находит книги авторов, ключ поиска полного имени которых содержит указанный ключ.
+     *
+     * @param nameKey ключ поиска части имени или фамилии автора
+     * @return список найденных книг
+     */
+    @EntityGraph(attributePaths = "author")
+    List<Books> findByAuthorNameKeyContaining(String nameKey);
+
+    /**
+     * Подсчитывает количество книг автора без загрузки самих книг.
+     *
+     * @param authorId идентификатор автора
+     * @return количество книг автора
+     */
+    long countByAuthorId(Long authorId);
+
+    /**
+     * Возвращает идентификаторы книг автора порциями (для поэтапного удаления).
+     *
+     * @param authorId идентификатор автора
+     * @param pageable размер порции
+     * @return идентификаторы книг автора, упорядоченные по возрастанию
+     */
+    @Query("select b.id from Books b where b.author.id = :authorId order by b.id")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
 
     /**
-     * Находит книги по частичному совпадению имени автора и названия книги (без учета регистра).
+     * Находит идентификаторы книг в порядке возрастания.
      *
-     * @param authorFirstName часть имени автора для поиска
-     * @param title часть названия книги для поиска
-     * @return список книг, удовлетворяющих обоим критериям
+     * @param pageable ограничение количества
+     * @return идентификаторы книг
      */
-    List<Books> findByAuthorFirstNameContainingIgnoreCaseAndTitleContainingIgnoreCase(
-            String authorFirstName, String title);
+    @Query("select b.id from Books b order by b.id")
+    List<Long> findIds(Pageable pageable);
 
+    /**
+     * Читает названия и авторов всех книг из курсора (для индекса нечеткого поиска).
+     * Вызывающий код обязан закрыть поток внутри транзакции.
+     *
+     * @return поток строк с идентификатором, названием и автором книги
+     */
+    @Query("select b.id as id, b.title as title, a.id as authorId from Books b left join b.author a")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<TitleRow> streamTitles();
+
+    /**
+     * Возвращает название и автора книги (для обновления индекса нечеткого поиска).
+     *
+     * @param id идентификатор книги
+     * @return Optional со строкой книги, если книга найдена
+     */
+    @Query("select b.id as id, b.title as title, a.id as authorId from Books b left join b.author a where b.id = :id")
+    Optional<TitleRow> findTitleRowById(@Param("id") Long id);
+
+    /**
+     * Находит книги указанных авторов вместе с авторами.
+     *
+     * @param authorIds идентификаторы авторов
+     * @return список книг
+     */
+    @EntityGraph(attributePaths = "author")
+    List<Books> findByAuthorIdIn(Collection<Long> authorIds);
+
+    /**
+     * Возвращает автора и жанры всех книг для построения индекса похожих книг:
+     * по строке на каждый жанр книги, книга без жанров - одна строка без жанра.
+     *
+     * @return строки, упорядоченные по идентификатору книги
+     */
+    @Query("select b.id as bookId, a.id as authorId, g.id as genreId from Books b " +
+            "left join b.author a left join b.genres g order by b.id")
+    List<SimilarityRow> findSimilarityRows();
+
+    /**
+     * Возвращает автора и жанры одной книги для обновления индекса похожих книг.
+     *
+     * @param id идентификатор книги
+     * @return строки книги (пустой список, если книги нет)
+     */
+    @Query("select b.id as bookId, a.id as authorId, g.id as genreId from Books b " +
+            "left join b.author a left join b.genres g where b.id = :id")
+    List<SimilarityRow> findSimilarityRowsById(@Param("id") Long id);
+
+    /**
+     * Удаляет все книги автора одним запросом, минуя загрузку сущностей.
+     * Строки таблицы связи book_genres Hibernate удаляет сам отдельным
+     * запросом над множеством строк перед удалением книг.
+     *
+     * @param authorId идентификатор автора
+     * @return количество удаленных книг
+     */
+    @Modifying
+    @Query("delete from Books b where b.author.id = :authorId")
+    int deleteAllByAuthorIdInBulk(@Param("authorId") Long authorId);
+
+    /**
+     * Обновляет столбцы книги одним запросом, если версия строки не изменилась.
+     *
+     * @param id идентификатор книги
+     * @param version ожидаемая версия строки
+     * @param title новое название
+     * @param publishYear новый год публикации
+     * @param authorId идентификатор нового автора
+     * @param titleKey ключ поиска нового названия
+     * @return количество обновленных строк (0 - книга не найдена или изменена другим пользователем)
+     */
+    @Modifying
+    @Query("update Books b set b.title = :title, b.titleKey = :titleKey, b.publishYear = :publishYear, " +
+            "b.author.id = :authorId, b.version = b.version + 1 where b.id = :id and b.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id,
+                               @Param("version") Long version,
+                               @Param("title") String title,
+                               @Param("publishYear") Integer publishYear,
+                               @Param("authorId") Long authorId,
+                               @Param("titleKey") String titleKey);
+
+    /**
+     * Удаляет связи книги с жанрами, не входящими в указанный набор.
+     *
+     * @param bookId идентификатор книги
+     * @param genreIds идентификаторы жанров, которые должны остаться
+     * @return количество удаленных связей
+     */
+    @Modifying
+    @Query(value = "DELETE FROM book_genres WHERE book_id = :bookId AND genre_id NOT IN (:genreIds)",
+            nativeQuery = true)
+    int deleteGenreLinksExcept(@Param("bookId") Long bookId, @Param("genreIds") Collection<Long> genreIds);
+
+    /**
+     * Добавляет недостающие связи книги с указанными жанрами.
+     *
+     * @param bookId идентификатор книги
+     * @param genreIds идентификаторы жанров книги
+     * @return количество добавленных связей
+     */
+    @Modifying
+    @Query(value = "INSERT INTO book_genres (book_id, genre_id) " +
+            "SELECT :bookId, g.id FROM genres g WHERE g.id IN (:genreIds) " +
+            "AND NOT EXISTS (SELECT 1 FROM book_genres bg WHERE bg.book_id = :bookId AND bg.genre_id = g.id)",
+            nativeQuery = true)
+    int insertMissingGenreLinks(@Param("bookId") Long bookId, @Param("genreIds") Collection<Long> genreIds);
+
+    /**
+     * Название и автор книги для индекса нечеткого поиска.
+     */
+    interface TitleRow {
+        Long getId();
+        String getTitle();
+        Long getAuthorId();
+    }
+
+    /**
+     * Строка признаков книги для индекса похожих книг.
+     */
+    interface SimilarityRow {
+        Long getBookId();
+        Long getAuthorId();
+        Long getGenreId();
+    }
 }
\ No newline at end of file
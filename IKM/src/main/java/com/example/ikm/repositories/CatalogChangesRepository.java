@@ -0,0 +1,101 @@
+package com.example.ikm.repositories;
+
+import com.example.ikm.entity.CatalogChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий журнала изменений каталога.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Repository - помечает интерфейс как репозиторий Spring Data</li>
+ * </ul>
+ * </p>
+ */
+@Repository
+public interface CatalogChangesRepository extends JpaRepository<CatalogChange, Long> {
+
+    /**
+     * Находит записи журнала после указанного номера.
+     *
+     * @param seq номер последней прочитанной записи
+     * @param limit наибольшее количество записей
+     * @return записи в порядке номеров
+     */
+    List<CatalogChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+
+    /**
+     * @return номер самой старой хранимой записи
+     */
+    @Query("select min(c.seq) from CatalogChange c")
+    Optional<Long> findFirstSeq();
+
+    /**
+     * Выдает следующие номера записей. Строка счетчика остается заблокированной до конца транзакции,
+     * поэтому параллельные транзакции получают номера в порядке фиксации.
+     *
+     * @param count количество выдаваемых номеров
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @Query(value = "UPDATE catalog_change_sequence SET last_seq = last_seq + :count WHERE id = 1", nativeQuery = true)
+    int advanceSeq(@Param("count") int count);
+
+    /**
+     * Записывает удаление всех книг автора: одна запись BOOK DELETED на книгу, номера -
+     * {@code firstSeq}, {@code firstSeq + 1}, ... в порядке идентификаторов книг.
+     *
+     * @param authorId идентификатор автора
+     * @param firstSeq номер первой записи
+     * @param changedAt время изменения
+     * @return количество записей
+     */
+    @Modifying
+    @Query(value = "INSERT INTO catalog_changes (seq, entity, entity_id, change, changed_at) "
+            + "SELECT :firstSeq - 1 + ROW_NUMBER() OVER (ORDER BY b.id), 'BOOK', b.id, 'DELETED', :changedAt "
+            + "FROM books b WHERE b.author_id = :authorId", nativeQuery = true)
+    int insertBookDeletionsByAuthor(@Param("authorId") Long authorId, @Param("firstSeq") long firstSeq,
+                                    @Param("changedAt") Instant changedAt);
+
+    /**
+     * Записывает удаление указанных книг: одна запись BOOK DELETED на книгу, номера -
+     * {@code firstSeq}, {@code firstSeq + 1}, ... в порядке идентификаторов книг.
+     *
+     * @param bookIds идентификаторы книг
+     * @param firstSeq номер первой записи
+     * @param changedAt время изменения
+     * @return количество записей
+     */
+    @Modifying
+    @Query(value = "INSERT INTO catalog_changes (seq, entity, entity_id, change, changed_at) "
+            + "SELECT :firstSeq - 1 + ROW_NUMBER() OVER (ORDER BY b.id), 'BOOK', b.id, 'DELETED', :changedAt "
+            + "FROM books b WHERE b.id IN (:bookIds)", nativeQuery = true)
+    int insertBookDeletions(@Param("bookIds") Collection<Long> bookIds, @Param("firstSeq") long firstSeq,
+                            @Param("changedAt") Instant changedAt);
+
+    /**
+     * @return последний выданный номер записи
+     */
+    @Query(value = "SELECT last_seq FROM catalog_change_sequence WHERE id = 1", nativeQuery = true)
+    long findLastSeq();
+
+    /**
+     * Удаляет записи старше указанного момента.
+     *
+     * @param threshold граница хранения
+     * @return количество удаленных записей
+     */
+    @Modifying
+    @Query("delete from CatalogChange c where c.changedAt < :threshold")
+    int deleteOlderThan(@Param("threshold") Instant threshold);
+}
@@ -2,8 +2,12 @@ package com.example.ikm.repositories;
 
 import com.example.ikm.entity.Genres;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,12 +33,13 @@ public interface GenresRepository extends JpaRepository<Genres, Long> {
     Optional<Genres> findByName(String name);
 
     /**
-     * Находит жанры по частичному совпадению названия (без учета регистра).
+     * Находит жанры, ключ поиска названия которых содержит указанный ключ
+     * (кириллическое и латинское написание совпадают, см. {@link com.example.ikm.entity.SearchKeys}).
      *
-     * @param name часть названия для поиска
-     * @return список жанров с названиями, содержащими указанную строку
+     * @param nameKey ключ поиска части названия
+     * @return список найденных жанров
      */
-    List<Genres> findByNameContainingIgnoreCase(String name);
+    List<Genres> findByNameKeyContaining(String nameKey);
 
     /**
      * Проверяет существование жанра по названию.
@@ -46,4 +51,76 @@ public interface GenresRepository extends JpaRepository<Genres, Long> {
 
     Optional<Genres> findByNameIgnoreCase(String name);
     boolean existsByNameIgnoreCase(String name);
+
+    /**
+     * Переименовывает жанр одним запросом, если версия строки не изменилась.
+     *
+     * @param id идентификатор жанра
+     * @param version ожидаемая версия строки
+     * @param name новое название
+     * @param nameKey ключ поиска нового названия
+     * @return количество обновленных строк (0 - жанр не найден или изменен другим пользователем)
+     */
+    @Modifying
+    @Query("update Genres g set g.name = :name, g.nameKey = :nameKey, g.version = g.version + 1 " +
+            "where g.id = :id and g.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id, @Param("version") Long version, @Param("name") String name,
+                               @Param("nameKey") String nameKey);
+
+    /**
+     * Подсчитывает жанры с указанными идентификаторами.
+     *
+     * @param ids идентификаторы жанров
+     * @return количество найденных жанров
+     */
+    long countByIdIn(Collection<Long> ids);
+
+    /**
+     * Увеличивает версию книг, у которых есть хотя бы один из указанных жанров:
+     * открытая до объединения форма редактирования такой книги не сохранит старые жанры.
+     *
+     * @param genreIds идентификаторы жанров
+     * @return количество обновленных книг
+     */
+    @Modifying
+    @Query(value = "UPDATE books SET version = version + 1 " +
+            "WHERE id IN (SELECT book_id FROM book_genres WHERE genre_id IN (:genreIds))", nativeQuery = true)
+    int incrementBookVersionsByGenres(@Param("genreIds") Collection<Long> genreIds);
+
+    /**
+     * Удаляет связи книг с исходными жанрами, которые после переноса на целевой жанр
+     * стали бы дубликатами: книга уже связана с целевым жанром или с исходным жанром
+     * с меньшим идентификатором.
+     *
+     * @param targetId идентификатор целевого жанра
+     * @param sourceIds идентификаторы исходных жанров
+     * @return количество удаленных связей
+     */
+    @Modifying
+    @Query(value = "DELETE FROM book_genres bg WHERE bg.genre_id IN (:sourceIds) AND EXISTS (" +
+            "SELECT 1 FROM book_genres other WHERE other.book_id = bg.book_id " +
+            "AND (other.genre_id = :targetId OR other.genre_id IN (:sourceIds) AND other.genre_id < bg.genre_id))",
+            nativeQuery = true)
+    int deleteDuplicateBookLinks(@Param("targetId") Long targetId, @Param("sourceIds") Collection<Long> sourceIds);
+
+    /**
+     * Переносит связи книг с исходных жанров на целевой.
+     *
+     * @param targetId идентификатор целевого жанра
+     * @param sourceIds идентификаторы исходных жанров
+     * @return количество перенесенных связей
+     */
+    @Modifying
+    @Query(value = "UPDATE book_genres SET genre_id = :targetId WHERE genre_id IN (:sourceIds)", nativeQuery = true)
+    int moveBookLinks(@Param("targetId") Long targetId, @Param("sourceIds") Collection<Long> sourceIds);
+
+    /**
+     * Удаляет жанры одним запросом, минуя загрузку сущностей.
+     *
+     * @param ids идентификаторы жанров
+     * @return количество удаленных жанров
+     */
+    @Modifying
+    @Query("delete from Genres g where g.id in :ids")
+    int deleteByIdInBulk(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
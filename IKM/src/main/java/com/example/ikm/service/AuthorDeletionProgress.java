@@ -0,0 +1,66 @@
+package com.example.ikm.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Состояние фонового удаления автора с большим количеством книг.
+ * Обновляется потоком удаления и читается контроллером для отображения прогресса.
+ */
+public class AuthorDeletionProgress {
+    /**
+     * Стадия фонового удаления.
+     */
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final Long authorId;
+    private final long totalBooks;
+    private final AtomicLong deletedBooks = new AtomicLong();
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String errorMessage;
+
+    public AuthorDeletionProgress(Long authorId, long totalBooks) {
+        this.authorId = authorId;
+        this.totalBooks = totalBooks;
+    }
+
+    void addDeletedBooks(long count) {
+        deletedBooks.addAndGet(count);
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    void fail(Exception e) {
+        errorMessage = e.getMessage();
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    /**
+     * Возвращает процент выполнения (0-100).
+     *
+     * @return процент удаленных книг от исходного количества
+     */
+    public int getPercent() {
+        if (status == Status.COMPLETED || totalBooks == 0) {
+            return status == Status.COMPLETED ? 100 : 0;
+        }
+        return (int) Math.min(99, deletedBooks.get() * 100 / totalBooks);
+    }
+
+    public boolean isFinished() { return status != Status.RUNNING; }
+
+    // Геттеры
+    public Long getAuthorId() { return authorId; }
+    public long getTotalBooks() { return totalBooks; }
+    public long getDeletedBooks() { return deletedBooks.get(); }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getErrorMessage() { return errorMessage; }
+}
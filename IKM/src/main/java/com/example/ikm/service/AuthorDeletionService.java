@@ -0,0 +1,142 @@
+package com.example.ikm.service;
+
+import com.example.ikm.repositories.AuthorsRepository;
+import com.example.ikm.repositories.BooksRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Фоновое удаление авторов с большим количеством книг.
+ * Книги удаляются порциями ограниченного размера, каждая порция - в отдельной
+ * короткой транзакции, поэтому удаление не держит долгих блокировок.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Service - помечает класс как сервисный компонент Spring</li>
+ *   <li>@Async - метод удаления выполняется в пуле фоновых задач</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class AuthorDeletionService {
+    private static final Logger log = LoggerFactory.getLogger(AuthorDeletionService.class);
+    private static final Duration FINISHED_RETENTION = Duration.ofHours(1);
+
+    private final BooksRepository bookRepository;
+    private final AuthorsRepository authorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final ApplicationEventPublisher events;
+    private final ChangeFeed changeFeed;
+    private final Map<Long, AuthorDeletionProgress> progressByAuthor = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param bookRepository репозиторий для работы с книгами
+     * @param authorRepository репозиторий для работы с авторами
+     * @param transactionManager менеджер транзакций для порционных транзакций
+     * @param chunkSize количество книг, удаляемых в одной транзакции
+     * @param events публикатор событий изменения каталога
+     * @param changeFeed лента изменений каталога
+     */
+    @Autowired
+    public AuthorDeletionService(BooksRepository bookRepository,
+                                 AuthorsRepository authorRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${ikm.authors.delete-chunk-size:500}") int chunkSize,
+                                 ApplicationEventPublisher events,
+                                 ChangeFeed changeFeed) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.events = events;
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Регистрирует удаление автора. Если удаление этого автора уже идет,
+     * возвращает состояние уже запущенного удаления.
+     *
+     * @param progress состояние нового удаления
+     * @return зарегистрированное состояние (переданное или уже существующее)
+     */
+    AuthorDeletionProgress register(AuthorDeletionProgress progress) {
+        evictFinished();
+        return progressByAuthor.compute(progress.getAuthorId(), (id, current) ->
+                current != null && !current.isFinished() ? current : progress);
+    }
+
+    /**
+     * Возвращает состояние удаления автора, если оно запускалось.
+     *
+     * @param authorId идентификатор автора
+     * @return Optional с состоянием удаления
+     */
+    public Optional<AuthorDeletionProgress> getProgress(Long authorId) {
+        return Optional.ofNullable(progressByAuthor.get(authorId));
+    }
+
+    /**
+     * Удаляет книги автора порциями, затем самого автора.
+     * Каждая порция: выборка идентификаторов книг, запись их удаления в журнал изменений одной
+     * вставкой и удаление книг вместе со связями с жанрами. Событие каталога публикуется одно -
+     * об удалении автора: индексы удаляют книги автора по нему.
+     *
+     * @param progress состояние удаления, обновляемое по мере выполнения
+     * @return future, завершающийся по окончании удаления
+     */
+    @Async
+    public CompletableFuture<AuthorDeletionProgress> deleteInChunks(AuthorDeletionProgress progress) {
+        Long authorId = progress.getAuthorId();
+        try {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> deleteNextChunk(authorId));
+                progress.addDeletedBooks(deleted);
+            } while (deleted == chunkSize);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                authorRepository.deleteByIdInBulk(authorId);
+                events.publishEvent(CatalogChangedEvent.author(authorId, CatalogChangedEvent.Change.DELETED));
+            });
+            progress.complete();
+            log.info("Автор {} удален вместе с {} книгами", authorId, progress.getDeletedBooks());
+        } catch (RuntimeException e) {
+            progress.fail(e);
+            log.error("Ошибка фонового удаления автора {}", authorId, e);
+        }
+        return CompletableFuture.completedFuture(progress);
+    }
+
+    private int deleteNextChunk(Long authorId) {
+        List<Long> bookIds = bookRepository.findIdsByAuthorId(authorId, PageRequest.of(0, chunkSize));
+        if (!bookIds.isEmpty()) {
+            changeFeed.logBooksDeleted(bookIds);
+            bookRepository.deleteAllByIdInBatch(bookIds);
+        }
+        return bookIds.size();
+    }
+
+    private void evictFinished() {
+        Instant threshold = Instant.now().minus(FINISHED_RETENTION);
+        progressByAuthor.values().removeIf(p -> p.isFinished() && p.getFinishedAt().isBefore(threshold));
+    }
+}
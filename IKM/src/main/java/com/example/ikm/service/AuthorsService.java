@@ -1,12 +1,22 @@
 package com.example.ikm.service;
 
 import com.example.ikm.entity.Authors;
+import com.example.ikm.entity.SearchKeys;
+import com.example.ikm.fanout.SearchGuard;
 import com.example.ikm.repositories.AuthorsRepository;
+import com.example.ikm.repositories.BooksRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 /**
  * Сервисный класс для работы с авторами.
  * Содержит бизнес-логику операций с авторами.
@@ -14,20 +24,55 @@ import java.util.Optional;
  * <p>Аннотации:
  * <ul>
  *   <li>@Service - помечает класс как сервисный компонент Spring</li>
+ *   <li>@Transactional(readOnly = true) - методы чтения по умолчанию, запись помечена отдельно</li>
  * </ul>
  * </p>
  */
 @Service
+@Transactional(readOnly = true)
 public class AuthorsService {
     private final AuthorsRepository authorRepository;
+    private final BooksRepository bookRepository;
+    private final AuthorDeletionService authorDeletionService;
+    private final long asyncDeleteThreshold;
+    private final ApplicationEventPublisher events;
+    private final FuzzySearch fuzzySearch;
+    private final int duplicateDistance;
+    private final SearchGuard searchGuard;
+    private final ChangeFeed changeFeed;
     /**
-     * Конструктор с внедрением зависимости репозитория.
+     * Конструктор с внедрением зависимостей.
      *
      * @param authorRepository репозиторий для работы с авторами в БД
+     * @param bookRepository репозиторий для работы с книгами в БД
+     * @param authorDeletionService сервис фонового удаления авторов
+     * @param asyncDeleteThreshold количество книг, начиная с которого автор удаляется в фоне
+     * @param events публикатор событий изменения каталога
+     * @param fuzzySearch индекс нечеткого поиска
+     * @param duplicateDistance наибольшее число опечаток в полном имени, при котором вместо нового
+     *                          автора предлагается существующий (0 - не предлагать)
+     * @param searchGuard ограничение длительности поиска
+     * @param changeFeed лента изменений каталога
      */
     @Autowired
-    public AuthorsService(AuthorsRepository authorRepository) {
+    public AuthorsService(AuthorsRepository authorRepository,
+                          BooksRepository bookRepository,
+                          AuthorDeletionService authorDeletionService,
+                          @Value("${ikm.authors.async-delete-threshold:1000}") long asyncDeleteThreshold,
+                          ApplicationEventPublisher events,
+                          FuzzySearch fuzzySearch,
+                          @Value("${ikm.fuzzy.author-duplicate-distance:0}") int duplicateDistance,
+                          SearchGuard searchGuard,
+                          ChangeFeed changeFeed) {
         this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.authorDeletionService = authorDeletionService;
+        this.asyncDeleteThreshold = asyncDeleteThreshold;
+        this.events = events;
+        this.fuzzySearch = fuzzySearch;
+        this.duplicateDistance = duplicateDistance;
+        this.searchGuard = searchGuard;
+        this.changeFeed = changeFeed;
     }
     /**
      * Получает список всех авторов.
@@ -52,49 +97,128 @@ public class AuthorsService {
      * @param author объект автора для сохранения
      * @return сохраненный автор
      */
+    @Transactional
     public Authors saveAuthor(Authors author) {
-        return authorRepository.save(author);
+        boolean isNew = author.getId() == null;
+        Authors saved = authorRepository.save(author);
+        events.publishEvent(CatalogChangedEvent.author(saved.getId(),
+                isNew ? CatalogChangedEvent.Change.CREATED : CatalogChangedEvent.Change.UPDATED));
+        return saved;
     }
     /**
-     * Обновляет данные существующего автора.
+     * Обновляет данные существующего автора одним запросом с проверкой версии строки.
      *
      * @param id идентификатор автора для обновления
-     * @param authorDetails новые данные автора
-     * @return обновленный автор
+     * @param authorDetails новые данные автора, включая версию, с которой начиналось редактирование
+     * @return переданные данные с идентификатором и новой версией автора
      * @throws RuntimeException если автор не найден
+     * @throws ObjectOptimisticLockingFailureException если автора уже изменил другой пользователь
      */
+    @Transactional
     public Authors updateAuthor(Long id, Authors authorDetails) {
-        Authors author = authorRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Автор не найден"));
+        if (authorDetails.getVersion() == null) {
+            throw new IllegalArgumentException("Не указана версия автора");
+        }
 
-        author.setFirstName(authorDetails.getFirstName());
-        author.setLastName(authorDetails.getLastName());
-        author.setBirthYear(authorDetails.getBirthYear());
+        int updated = authorRepository.updateIfVersionMatches(id, authorDetails.getVersion(),
+                authorDetails.getFirstName(), authorDetails.getLastName(), authorDetails.getBirthYear(),
+                Authors.nameKey(authorDetails.getFirstName(), authorDetails.getLastName()),
+                SearchKeys.of(authorDetails.getFirstName()), SearchKeys.of(authorDetails.getLastName()));
+        if (updated == 0) {
+            if (!authorRepository.existsById(id)) {
+                throw new RuntimeException("Автор не найден");
+            }
+            throw new ObjectOptimisticLockingFailureException(Authors.class, id);
+        }
+        events.publishEvent(CatalogChangedEvent.author(id, CatalogChangedEvent.Change.UPDATED));
 
-        return authorRepository.save(author);
+        authorDetails.setId(id);
+        authorDetails.setVersion(authorDetails.getVersion() + 1);
+        return authorDetails;
     }
     /**
-     * Удаляет автора по идентификатору.
+     * Удаляет автора по идентификатору вместе со всеми его книгами.
+     * Выполняется тремя запросами над множествами строк (связи с жанрами, книги, автор)
+     * без загрузки книг в память. Перед ними удаление книг записывается в ленту изменений
+     * одной вставкой (запись на каждую книгу); событие каталога публикуется только об удалении
+     * автора, индексы удаляют его книги по нему.
      *
      * @param id идентификатор автора для удаления
+     * @throws RuntimeException если автор не найден
      */
+    @Transactional
     public void deleteAuthor(Long id) {
-        Authors author = authorRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Автор не найден"));
-        if (author.getBooks() != null) {
-            author.getBooks().size();
+        changeFeed.logBooksDeleted(id, bookRepository.countByAuthorId(id));
+        bookRepository.deleteAllByAuthorIdInBulk(id);
+        if (authorRepository.deleteByIdInBulk(id) == 0) {
+            throw new RuntimeException("Автор не найден");
         }
-
-        authorRepository.delete(author);
+        events.publishEvent(CatalogChangedEvent.author(id, CatalogChangedEvent.Change.DELETED));
+    }
+    /**
+     * Проверяет, следует ли удалять автора в фоне из-за большого количества книг.
+     *
+     * @param id идентификатор автора
+     * @return true, если количество книг автора не меньше порога фонового удаления
+     */
+    public boolean requiresAsyncDeletion(Long id) {
+        return bookRepository.countByAuthorId(id) >= asyncDeleteThreshold;
+    }
+    /**
+     * Запускает фоновое удаление автора порциями.
+     *
+     * @param id идентификатор автора для удаления
+     * @return состояние удаления для отслеживания прогресса
+     * @throws RuntimeException если автор не найден
+     */
+    public AuthorDeletionProgress deleteAuthorAsync(Long id) {
+        if (!authorRepository.existsById(id)) {
+            throw new RuntimeException("Автор не найден");
+        }
+        AuthorDeletionProgress progress = new AuthorDeletionProgress(id, bookRepository.countByAuthorId(id));
+        AuthorDeletionProgress current = authorDeletionService.register(progress);
+        if (current == progress) {
+            authorDeletionService.deleteInChunks(progress);
+        }
+        return current;
+    }
+    /**
+     * Возвращает состояние фонового удаления автора.
+     *
+     * @param id идентификатор автора
+     * @return Optional с состоянием удаления, если оно запускалось
+     */
+    public Optional<AuthorDeletionProgress> getDeletionProgress(Long id) {
+        return authorDeletionService.getProgress(id);
     }
     /**
      * Выполняет поиск авторов по различным критериям.
      *
-     * @param searchType тип поиска (firstName, lastName, birthYear, fullName)
+     * Длительность поиска ограничена сроком его вида (см. {@link SearchGuard}).
+     *
+     * @param searchType тип поиска (firstName, lastName, birthYear, fullName, fuzzy)
      * @param searchQuery поисковый запрос
      * @return список авторов, соответствующих критериям поиска
+     * @throws org.springframework.dao.QueryTimeoutException если срок поиска истек
      */
     public List<Authors> searchAuthors(String searchType, String searchQuery) {
+        return searchGuard.run("authors." + searchKind(searchType, searchQuery),
+                () -> findAuthors(searchType, searchQuery));
+    }
+    /**
+     * Определяет вид поиска авторов так же, как {@link #findAuthors} выбирает запрос:
+     * all (пустой запрос) или тип поиска.
+     */
+    static String searchKind(String searchType, String searchQuery) {
+        if (searchQuery == null || searchQuery.trim().isEmpty()) {
+            return "all";
+        }
+        return switch (searchType != null ? searchType : "lastName") {
+            case "firstName", "birthYear", "fullName", "fuzzy" -> searchType;
+            default -> "lastName";
+        };
+    }
+    private List<Authors> findAuthors(String searchType, String searchQuery) {
         List<Authors> authors;
 
         if (searchQuery == null || searchQuery.trim().isEmpty()) {
@@ -102,7 +226,7 @@ public class AuthorsService {
         } else {
             switch (searchType != null ? searchType : "lastName") {
                 case "firstName":
-                    authors = authorRepository.findByFirstNameContainingIgnoreCase(searchQuery);
+                    authors = authorRepository.findByFirstNameKeyContaining(SearchKeys.ofQuery(searchQuery));
                     break;
                 case "birthYear":
                     try {
@@ -113,11 +237,13 @@ public class AuthorsService {
                     }
                     break;
                 case "fullName":
-                    authors = authorRepository.findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(
-                            searchQuery, searchQuery);
+                    authors = authorRepository.findByNameKeyContaining(SearchKeys.ofQuery(searchQuery));
+                    break;
+                case "fuzzy":
+                    authors = searchFuzzy(searchQuery);
                     break;
                 default:
-                    authors = authorRepository.findByLastNameContainingIgnoreCase(searchQuery);
+                    authors = authorRepository.findByLastNameKeyContaining(SearchKeys.ofQuery(searchQuery));
                     break;
             }
         }
@@ -148,14 +274,31 @@ public class AuthorsService {
     public long countAuthors() {
         return authorRepository.count();
     }
+    /**
+     * Ищет авторов по полному имени или фамилии с учетом опечаток, без просмотра таблицы авторов.
+     *
+     * @param query поисковый запрос
+     * @return найденные авторы, ближайшие первыми
+     */
+    private List<Authors> searchFuzzy(String query) {
+        List<Long> ids = fuzzySearch.findAuthors(query, fuzzySearch.distanceFor(query)).stream()
+                .map(BkTree.Match::id).toList();
+        Map<Long, Authors> byId = authorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Authors::getId, author -> author));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
     /**
      * Находит существующего автора или создает нового, если не найден.
+     * Имя сравнивается по ключу поиска: "Tolstoy" и "Толстой" - один автор.
+     * Авторы с похожими, но не совпадающими именами не объединяются
+     * (см. {@link #findSimilarAuthor(String, String)}).
      *
      * @param firstName имя автора
      * @param lastName фамилия автора
      * @return существующий или созданный автор
      * @throws IllegalArgumentException если имя или фамилия пустые
      */
+    @Transactional
     public Authors findOrCreateAuthor(String firstName, String lastName) {
         if (firstName == null || firstName.trim().isEmpty() ||
                 lastName == null || lastName.trim().isEmpty()) {
@@ -165,19 +308,40 @@ public class AuthorsService {
         String cleanFirstName = firstName.trim();
         String cleanLastName = lastName.trim();
 
-        return authorRepository.findByFirstNameIgnoreCaseAndLastNameIgnoreCase(cleanFirstName, cleanLastName)
+        return authorRepository.findFirstByNameKeyOrderByIdAsc(Authors.nameKey(cleanFirstName, cleanLastName))
                 .orElseGet(() -> {
                     Authors newAuthor = new Authors();
                     newAuthor.setFirstName(cleanFirstName);
                     newAuthor.setLastName(cleanLastName);
-                    return authorRepository.save(newAuthor);
+                    Authors saved = authorRepository.save(newAuthor);
+                    events.publishEvent(CatalogChangedEvent.author(saved.getId(), CatalogChangedEvent.Change.CREATED));
+                    return saved;
                 });
     }
+    /**
+     * Находит существующего автора с похожим именем для подсказки при вводе нового:
+     * полное имя отличается не более чем на ikm.fuzzy.author-duplicate-distance опечаток,
+     * и такой автор единственный. Если автор с таким именем уже есть, подсказки нет.
+     * Похожее имя может принадлежать другому человеку ("Саша Петрова" и "Саша Петров"),
+     * поэтому выбор подтверждает пользователь.
+     *
+     * @param firstName имя автора
+     * @param lastName фамилия автора
+     * @return Optional с похожим автором
+     */
+    public Optional<Authors> findSimilarAuthor(String firstName, String lastName) {
+        if (firstName == null || firstName.isBlank() || lastName == null || lastName.isBlank()
+                || authorExists(firstName, lastName)) {
+            return Optional.empty();
+        }
+        return fuzzySearch.findSimilarAuthor(firstName.trim(), lastName.trim(), duplicateDistance)
+                .flatMap(authorRepository::findById);
+    }
     public boolean authorExists(String firstName, String lastName) {
         if (firstName == null || lastName == null) {
             return false;
         }
-        return authorRepository.findByFirstNameIgnoreCaseAndLastNameIgnoreCase(
-                firstName.trim(), lastName.trim()).isPresent();
+        return authorRepository.findFirstByNameKeyOrderByIdAsc(
+                Authors.nameKey(firstName.trim(), lastName.trim())).isPresent();
     }
 }
\ No newline at end of file
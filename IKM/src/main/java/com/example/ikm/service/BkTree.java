@@ -0,0 +1,189 @@
+package com.example.ikm.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * BK-дерево строк для поиска в пределах расстояния Левенштейна.
+ *
+ * <p>Потомки узла разложены по расстоянию до строки узла, поэтому при поиске с допуском k
+ * из узла на расстоянии d достаточно спуститься в потомков с расстояниями от d - k до d + k
+ * (неравенство треугольника); остальные поддеревья не просматриваются.
+ * Строка хранится в дереве один раз вместе с идентификаторами записей, у которых она совпадает.
+ * Узел, из которого удалены все идентификаторы, остается в дереве для маршрутизации поиска.</p>
+ *
+ * <p>Класс не потокобезопасен.</p>
+ */
+final class BkTree {
+    private Node root;
+    private int nodes;
+    private int emptyNodes;
+
+    /**
+     * Добавляет идентификатор записи к строке. Повторное добавление той же пары не проверяется:
+     * перед изменением строки записи старую строку нужно убрать через {@link #remove}.
+     */
+    void add(String term, long id) {
+        if (root == null) {
+            root = new Node(term);
+            root.add(id);
+            nodes++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(term, node.term);
+            if (distance == 0) {
+                if (node.count == 0) {
+                    emptyNodes--;
+                }
+                node.add(id);
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                child = new Node(term);
+                child.add(id);
+                node.setChild(distance, child);
+                nodes++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Убирает идентификатор записи из строки.
+     */
+    void remove(String term, long id) {
+        Node node = root;
+        while (node != null) {
+            int distance = distance(term, node.term);
+            if (distance == 0) {
+                if (node.remove(id) && node.count == 0) {
+                    emptyNodes++;
+                }
+                return;
+            }
+            node = node.child(distance);
+        }
+    }
+
+    /**
+     * Доля узлов без идентификаторов; при большой доле дерево стоит построить заново.
+     */
+    double emptyShare() {
+        return nodes == 0 ? 0 : (double) emptyNodes / nodes;
+    }
+
+    /**
+     * Находит записи, строки которых отличаются от запроса не более чем на {@code maxDistance} правок.
+     *
+     * @return совпадения в порядке возрастания расстояния (при равном расстоянии - по идентификатору)
+     */
+    List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.push(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.pop();
+            int distance = distance(query, node.term);
+            if (distance <= maxDistance) {
+                for (int i = 0; i < node.count; i++) {
+                    matches.add(new Match(node.ids[i], distance));
+                }
+            }
+            if (node.children != null) {
+                int from = Math.max(1, distance - maxDistance);
+                int to = Math.min(node.children.length - 1, distance + maxDistance);
+                for (int d = from; d <= to; d++) {
+                    if (node.children[d] != null) {
+                        queue.push(node.children[d]);
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparingLong(Match::id));
+        return matches;
+    }
+
+    /**
+     * Расстояние Левенштейна: минимальное число вставок, удалений и замен символов.
+     */
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Найденная запись и расстояние от запроса до ее строки.
+     */
+    record Match(long id, int distance) {
+    }
+
+    private static final class Node {
+        private final String term;
+        private long[] ids = new long[1];
+        private int count;
+        private Node[] children;
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        void add(long id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--count];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Node child(int distance) {
+            return children != null && distance < children.length ? children[distance] : null;
+        }
+
+        void setChild(int distance, Node child) {
+            if (children == null || distance >= children.length) {
+                children = Arrays.copyOf(children != null ? children : new Node[0], Math.max(distance + 1, 4));
+            }
+            children[distance] = child;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.ikm.service;
+
+import com.example.ikm.entity.SearchKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов поиска книг: для нормализованных параметров поиска хранит
+ * список идентификаторов найденных книг в порядке выдачи.
+ *
+ * <p>Кэш ограничен по размеру (вытесняются давно не использованные записи) и по времени жизни.
+ * Каждая запись помечена версией каталога, при которой она вычислена; после любой
+ * зафиксированной записи в каталог ({@link CatalogVersion}) старые записи не используются.
+ * Одновременные промахи по одному ключу объединяются: запрос к БД выполняет первый поток,
+ * остальные дожидаются его результата. Если первый поток прерван по истечении срока поиска,
+ * ожидающие получают ту же ошибку; после других ошибок они один раз повторяют поиск,
+ * снова объединяясь в один запрос.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Component - регистрирует кэш как бин Spring</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class BookSearchCache {
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final CatalogVersion catalogVersion;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final int maxResultSize;
+    private final Map<Key, Entry> entries;
+    private final Map<Flight, CompletableFuture<List<Long>>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param catalogVersion версия каталога
+     * @param maximumSize максимальное количество кэшируемых поисков
+     * @param ttl время жизни записи
+     * @param maxResultSize результаты большего размера не кэшируются
+     */
+    @Autowired
+    public BookSearchCache(CatalogVersion catalogVersion,
+                           @Value("${ikm.search-cache.maximum-size:1000}") int maximumSize,
+                           @Value("${ikm.search-cache.ttl:60s}") Duration ttl,
+                           @Value("${ikm.search-cache.max-result-size:1000}") int maxResultSize) {
+        this.catalogVersion = catalogVersion;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.maxResultSize = maxResultSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > BookSearchCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Возвращает результат поиска из кэша или вычисляет его.
+     * При промахе результат загружает {@code loader}; при попадании (или если результат
+     * загрузил другой поток) книги читаются по идентификаторам через {@code byIds}
+     * и упорядочиваются так же, как в исходной выдаче.
+     *
+     * @param key нормализованные параметры поиска
+     * @param loader выполняет поиск в БД
+     * @param idOf идентификатор элемента результата
+     * @param byIds загружает элементы по идентификаторам (в любом порядке)
+     * @return результат поиска
+     * @throws QueryTimeoutException если поиск, результата которого ждал поток, прерван по сроку
+     */
+    public <T> List<T> get(Key key, Supplier<List<T>> loader,
+                           Function<T, Long> idOf, Function<List<Long>, List<T>> byIds) {
+        for (int attempt = 1; ; attempt++) {
+            long version = catalogVersion.current();
+            List<Long> cached = lookup(key, version);
+            if (cached != null) {
+                return inOrder(cached, byIds.apply(cached), idOf);
+            }
+
+            Flight flight = new Flight(key, version);
+            CompletableFuture<List<Long>> mine = new CompletableFuture<>();
+            CompletableFuture<List<Long>> leader = inFlight.putIfAbsent(flight, mine);
+            if (leader == null) {
+                return load(key, version, flight, mine, loader, idOf);
+            }
+            try {
+                List<Long> ids = leader.join();
+                return inOrder(ids, byIds.apply(ids), idOf);
+            } catch (CompletionException e) {
+                // истекший срок поиска у первого потока истечет и у остальных: повтор только
+                // добавил бы нагрузки на БД, поэтому ошибка передается всем ожидающим
+                if (e.getCause() instanceof QueryTimeoutException timeout) {
+                    throw new QueryTimeoutException(timeout.getMessage(), timeout);
+                }
+                // после другой ошибки поиск повторяется один раз - снова одним запросом на ключ
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+    }
+
+    private <T> List<T> load(Key key, long version, Flight flight, CompletableFuture<List<Long>> mine,
+                             Supplier<List<T>> loader, Function<T, Long> idOf) {
+        List<T> result;
+        List<Long> ids;
+        try {
+            result = loader.get();
+            ids = result.stream().map(idOf).toList();
+        } catch (RuntimeException e) {
+            // запрос снимается до оповещения ожидающих, чтобы повтор начал новый запрос
+            inFlight.remove(flight, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        store(key, version, ids);
+        inFlight.remove(flight, mine);
+        mine.complete(ids);
+        return result;
+    }
+
+    /**
+     * Удаляет все записи кэша.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private List<Long> lookup(Key key, long version) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version() != version || System.nanoTime() - entry.createdAt() > ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.ids();
+        }
+    }
+
+    private void store(Key key, long version, List<Long> ids) {
+        if (ids.size() > maxResultSize) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(ids, version, System.nanoTime()));
+        }
+    }
+
+    private static <T> List<T> inOrder(List<Long> ids, List<T> items, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>(items.size() * 2);
+        items.forEach(item -> byId.put(idOf.apply(item), item));
+        // книги, удаленные после кэширования, пропускаются
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Нормализованные параметры поиска книг.
+     *
+     * @param kind вид поиска
+     * @param value идентификатор, ключ поиска или текст запроса в нижнем регистре
+     */
+    public record Key(BookSearchKind kind, String value) {
+
+        public static Key of(BookSearchKind kind, String searchQuery, Long authorId, Long genreId) {
+            // названия и имена ищутся по ключам поиска: "Tolstoy" и "Толстой" - один запрос
+            String value = switch (kind) {
+                case AUTHOR_ID -> authorId.toString();
+                case GENRE -> genreId.toString();
+                case ALL -> "";
+                case YEAR, FEEDBACK -> searchQuery.trim().toLowerCase(Locale.ROOT);
+                case FUZZY -> SearchKeys.of(searchQuery);
+                case TITLE, AUTHOR -> SearchKeys.ofQuery(searchQuery);
+            };
+            return new Key(kind, value);
+        }
+    }
+
+    private record Entry(List<Long> ids, long version, long createdAt) {
+    }
+
+    private record Flight(Key key, long version) {
+    }
+}
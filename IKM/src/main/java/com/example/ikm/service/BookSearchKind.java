@@ -0,0 +1,63 @@
+package com.example.ikm.service;
+
+/**
+ * Вид поиска книг. Определяется один раз по параметрам поиска и задает запрос к БД
+ * ({@link BooksService#searchBooks}), ключ кэша ({@link BookSearchCache.Key}) и срок поиска
+ * (ikm.search.books.&lt;имя вида&gt;, см. {@link com.example.ikm.fanout.SearchGuard}).
+ *
+ * <p>Фильтр по автору важнее фильтра по жанру, фильтр по жанру - текстового поиска;
+ * пустой запрос без фильтров выдает все книги, неизвестный тип поиска - поиск по названию.</p>
+ */
+public enum BookSearchKind {
+    AUTHOR_ID("authorId"),
+    GENRE("genre"),
+    ALL("all"),
+    TITLE("title"),
+    AUTHOR("author"),
+    YEAR("year"),
+    FEEDBACK("feedback"),
+    FUZZY("fuzzy");
+
+    private final String id;
+
+    BookSearchKind(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Имя вида в настройках сроков поиска и метриках.
+     *
+     * @return имя вида
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Определяет вид поиска по параметрам запроса.
+     *
+     * @param searchType тип поиска (title, author, year, feedback, fuzzy)
+     * @param searchQuery поисковый запрос
+     * @param authorId идентификатор автора для фильтрации
+     * @param genreId идентификатор жанра для фильтрации
+     * @return вид поиска
+     */
+    public static BookSearchKind of(String searchType, String searchQuery, Long authorId, Long genreId) {
+        if (authorId != null) {
+            return AUTHOR_ID;
+        }
+        if (genreId != null) {
+            return GENRE;
+        }
+        if (searchQuery == null || searchQuery.isBlank()) {
+            return ALL;
+        }
+        return switch (searchType != null ? searchType : "title") {
+            case "year" -> YEAR;
+            case "author" -> AUTHOR;
+            case "feedback" -> FEEDBACK;
+            case "fuzzy" -> FUZZY;
+            default -> TITLE;
+        };
+    }
+}
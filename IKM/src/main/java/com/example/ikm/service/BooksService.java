@@ -1,47 +1,96 @@
 package com.example.ikm.service;
 
 import com.example.ikm.entity.Authors;
+import com.example.ikm.entity.BookFeedback;
 import com.example.ikm.entity.Books;
 import com.example.ikm.entity.Genres;
+import com.example.ikm.entity.SearchKeys;
+import com.example.ikm.fanout.SearchGuard;
 import com.example.ikm.repositories.AuthorsRepository;
+import com.example.ikm.repositories.BookFeedbackRepository;
 import com.example.ikm.repositories.BooksRepository;
 import com.example.ikm.repositories.GenresRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 /**
  * Сервисный класс для работы с книгами.
  * Содержит бизнес-логику операций с книгами.
  *
+ * <p>Методы чтения выполняются в read-only транзакциях (FlushMode.MANUAL, без проверки
+ * изменений загруженных сущностей), методы записи - в отдельных транзакциях с записью.</p>
+ *
  * <p>Аннотации:
  * <ul>
  *   <li>@Service - помечает класс как сервисный компонент Spring</li>
+ *   <li>@Transactional(readOnly = true) - граница транзакции чтения для всех методов класса</li>
  * </ul>
  * </p>
  */
 @Service
+@Transactional(readOnly = true)
 public class BooksService {
     private final BooksRepository bookRepository;
     private final AuthorsRepository authorRepository;
     private final GenresRepository genreRepository;
+    private final BookFeedbackRepository feedbackRepository;
+    private final BookSearchCache searchCache;
+    private final ApplicationEventPublisher events;
+    private final CursorResults cursors;
+    private final SimilarBooksIndex similarBooks;
+    private final FuzzySearch fuzzySearch;
+    private final SearchGuard searchGuard;
     /**
      * Конструктор с внедрением зависимостей репозиториев.
      *
      * @param bookRepository репозиторий для работы с книгами
      * @param authorRepository репозиторий для работы с авторами
      * @param genreRepository репозиторий для работы с жанрами
+     * @param feedbackRepository репозиторий для работы с отзывами о книгах
+     * @param searchCache кэш результатов поиска книг
+     * @param events публикатор событий изменения каталога
+     * @param cursors фабрика результатов, читаемых из курсора БД
+     * @param similarBooks индекс похожих книг
+     * @param fuzzySearch индекс нечеткого поиска
+     * @param searchGuard ограничение длительности поиска
      */
     @Autowired
     public BooksService(BooksRepository bookRepository,
                         AuthorsRepository authorRepository,
-                        GenresRepository genreRepository) {
+                        GenresRepository genreRepository,
+                        BookFeedbackRepository feedbackRepository,
+                        BookSearchCache searchCache,
+                        ApplicationEventPublisher events,
+                        CursorResults cursors,
+                        SimilarBooksIndex similarBooks,
+                        FuzzySearch fuzzySearch,
+                        SearchGuard searchGuard) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.genreRepository = genreRepository;
+        this.feedbackRepository = feedbackRepository;
+        this.searchCache = searchCache;
+        this.events = events;
+        this.cursors = cursors;
+        this.similarBooks = similarBooks;
+        this.fuzzySearch = fuzzySearch;
+        this.searchGuard = searchGuard;
     }
     /**
      * Получает список всех книг.
@@ -52,13 +101,52 @@ public class BooksService {
         return bookRepository.findAll();
     }
     /**
-     * Находит книгу по идентификатору.
+     * Возвращает все книги с авторами для потоковой отрисовки: запрос выполняется
+     * при обходе результата, книги читаются из курсора порциями.
+     *
+     * @return книги в порядке идентификаторов
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CursorResult<Books> streamAllBooks() {
+        return cursors.open(bookRepository::streamAllWithAuthor);
+    }
+    /**
+     * Возвращает книги автора для потоковой отрисовки (см. {@link #streamAllBooks()}).
+     *
+     * @param authorId идентификатор автора
+     * @return книги автора в порядке идентификаторов
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CursorResult<Books> streamBooksByAuthorId(Long authorId) {
+        return cursors.open(() -> bookRepository.streamByAuthorId(authorId));
+    }
+    /**
+     * Находит книгу по идентификатору вместе с автором, жанрами и отзывом.
      *
      * @param id идентификатор книги
      * @return Optional с книгой, если найдена
      */
     public Optional<Books> getBookById(Long id) {
-        return bookRepository.findById(id);
+        Optional<Books> book = bookRepository.findWithAuthorAndGenresById(id);
+        book.ifPresent(found -> feedbackRepository.findById(id)
+                .ifPresent(feedback -> found.setFeedback(feedback.getFeedback())));
+        return book;
+    }
+    /**
+     * Находит книги, похожие на указанную (общие жанры, тот же автор).
+     *
+     * @param id идентификатор книги
+     * @return похожие книги вместе с авторами в порядке убывания сходства
+     */
+    public List<Books> getSimilarBooks(Long id) {
+        List<Long> ids = similarBooks.similarTo(id);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Books> byId = bookRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Books::getId, book -> book));
+        // книга могла быть удалена раньше, чем обновился индекс
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
     }
     /**
      * Сохраняет новую книгу или обновляет существующую.
@@ -67,99 +155,135 @@ public class BooksService {
      * @param book объект книги для сохранения
      * @return сохраненная книга
      */
+    @Transactional
     public Books saveBook(Books book) {
         validateAndPrepareBook(book);
-        return bookRepository.save(book);
+        boolean isNew = book.getId() == null;
+        String feedback = book.getFeedback();
+        Books saved = bookRepository.save(book);
+        saved.setFeedback(feedback);
+        if (isNew) {
+            if (feedback != null && !feedback.isBlank()) {
+                feedbackRepository.save(new BookFeedback(saved.getId(), feedback));
+            }
+        } else {
+            writeFeedback(saved.getId(), feedback);
+        }
+        events.publishEvent(CatalogChangedEvent.book(saved.getId(),
+                isNew ? CatalogChangedEvent.Change.CREATED : CatalogChangedEvent.Change.UPDATED));
+        return saved;
     }
     /**
-     * Обновляет данные существующей книги.
+     * Обновляет данные существующей книги без ее предварительной загрузки.
+     * Столбцы книги обновляются одним запросом с проверкой версии строки,
+     * связи с жанрами - двумя запросами над множествами строк (удаление лишних, вставка недостающих).
      *
      * @param id идентификатор книги для обновления
-     * @param bookDetails новые данные книги
-     * @return обновленная книга
+     * @param bookDetails новые данные книги, включая версию, с которой начиналось редактирование
+     * @return переданные данные с идентификатором и новой версией книги
      * @throws RuntimeException если книга не найдена
+     * @throws ObjectOptimisticLockingFailureException если книгу уже изменил другой пользователь
      */
+    @Transactional
     public Books updateBook(Long id, Books bookDetails) {
-        Books book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Книга не найдена"));
-
-        book.setTitle(bookDetails.getTitle());
-        book.setPublishYear(bookDetails.getPublishYear());
-        book.setFeedback(bookDetails.getFeedback());
+        if (bookDetails.getVersion() == null) {
+            throw new IllegalArgumentException("Не указана версия книги");
+        }
+        if (bookDetails.getAuthor() == null || bookDetails.getAuthor().getId() == null) {
+            throw new IllegalArgumentException("Автор обязателен");
+        }
 
-        // Обновляем автора если указан
-        if (bookDetails.getAuthor() != null && bookDetails.getAuthor().getId() != null) {
-            Authors author = authorRepository.findById(bookDetails.getAuthor().getId())
-                    .orElseThrow(() -> new RuntimeException("Автор не найден"));
-            book.setAuthor(author);
+        int updated = bookRepository.updateIfVersionMatches(id, bookDetails.getVersion(),
+                bookDetails.getTitle(), bookDetails.getPublishYear(), bookDetails.getAuthor().getId(),
+                SearchKeys.of(bookDetails.getTitle()));
+        if (updated == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new RuntimeException("Книга не найдена");
+            }
+            throw new ObjectOptimisticLockingFailureException(Books.class, id);
         }
 
         // Обновляем жанры если указаны
-        if (bookDetails.getGenres() != null && !bookDetails.getGenres().isEmpty()) {
-            Set<Genres> managedGenres = new HashSet<>();
-            for (Genres genre : bookDetails.getGenres()) {
-                if (genre.getId() != null) {
-                    Genres managedGenre = genreRepository.findById(genre.getId())
-                            .orElseThrow(() -> new RuntimeException("Жанр не найден"));
-                    managedGenres.add(managedGenre);
-                }
+        if (bookDetails.getGenres() != null) {
+            Set<Long> genreIds = bookDetails.getGenres().stream()
+                    .map(Genres::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            if (!genreIds.isEmpty()) {
+                bookRepository.deleteGenreLinksExcept(id, genreIds);
+                bookRepository.insertMissingGenreLinks(id, genreIds);
             }
-            book.setGenres(managedGenres);
         }
 
-        return bookRepository.save(book);
+        writeFeedback(id, bookDetails.getFeedback());
+        events.publishEvent(CatalogChangedEvent.book(id, CatalogChangedEvent.Change.UPDATED));
+
+        bookDetails.setId(id);
+        bookDetails.setVersion(bookDetails.getVersion() + 1);
+        return bookDetails;
+    }
+    /**
+     * Записывает отзыв книги: пустой отзыв удаляется, существующий заменяется, новый добавляется.
+     *
+     * @param bookId идентификатор книги
+     * @param feedback текст отзыва
+     */
+    private void writeFeedback(Long bookId, String feedback) {
+        if (feedback == null || feedback.isBlank()) {
+            feedbackRepository.deleteByBookIdInBulk(bookId);
+        } else if (feedbackRepository.updateFeedback(bookId, feedback) == 0) {
+            feedbackRepository.save(new BookFeedback(bookId, feedback));
+        }
     }
     /**
      * Удаляет книгу по идентификатору.
      *
      * @param id идентификатор книги для удаления
      */
+    @Transactional
     public void deleteBook(Long id) {
         bookRepository.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.book(id, CatalogChangedEvent.Change.DELETED));
     }
     /**
      * Выполняет поиск книг по различным критериям.
      * Поддерживает поиск по типу, автору и жанру.
+     * Идентификаторы найденных книг кэшируются до следующей записи в каталог
+     * (см. {@link BookSearchCache}). Длительность поиска ограничена сроком его вида
+     * (см. {@link SearchGuard}).
      *
-     * @param searchType тип поиска (title, author, year, feedback)
+     * @param searchType тип поиска (title, author, year, feedback, fuzzy)
      * @param searchQuery поисковый запрос
      * @param authorId идентификатор автора для фильтрации
      * @param genreId идентификатор жанра для фильтрации
      * @return список книг, соответствующих критериям поиска
+     * @throws org.springframework.dao.QueryTimeoutException если срок поиска истек
      */
     public List<Books> searchBooks(String searchType, String searchQuery, Long authorId, Long genreId) {
-        List<Books> books;
-
-        // Поиск по ID автора или жанра (приоритет)
-        if (authorId != null) {
-            books = bookRepository.findByAuthorId(authorId);
-        } else if (genreId != null) {
-            books = getBooksByGenreId(genreId);
-        } else if (searchQuery == null || searchQuery.trim().isEmpty()) {
-            books = bookRepository.findAll();
-        } else {
-            switch (searchType != null ? searchType : "title") {
-                case "year":
-                    try {
-                        Integer year = Integer.parseInt(searchQuery);
-                        books = bookRepository.findByPublishYear(year);
-                    } catch (NumberFormatException e) {
-                        books = List.of();
-                    }
-                    break;
-                case "author":
-                    books = searchByAuthorName(searchQuery);
-                    break;
-                case "feedback":
-                    books = searchByFeedbackContaining(searchQuery);
-                    break;
-                default: // title
-                    books = searchByTitleContaining(searchQuery);
-                    break;
+        String query = searchQuery != null ? searchQuery.trim() : null;
+        BookSearchKind kind = BookSearchKind.of(searchType, query, authorId, genreId);
+        return searchGuard.run("books." + kind.id(),
+                () -> searchCache.get(BookSearchCache.Key.of(kind, query, authorId, genreId),
+                        () -> findBooks(kind, query, authorId, genreId),
+                        Books::getId, bookRepository::findByIdIn));
+    }
+    private List<Books> findBooks(BookSearchKind kind, String searchQuery, Long authorId, Long genreId) {
+        return switch (kind) {
+            case AUTHOR_ID -> bookRepository.findByAuthorId(authorId);
+            case GENRE -> getBooksByGenreId(genreId);
+            case ALL -> bookRepository.findAll();
+            case YEAR -> {
+                try {
+                    yield bookRepository.findByPublishYear(Integer.parseInt(searchQuery));
+                } catch (NumberFormatException e) {
+                    yield List.of();
+                }
             }
-        }
-
-        return books;
+            case AUTHOR -> searchByAuthorName(searchQuery);
+            case FEEDBACK -> searchByFeedbackContaining(searchQuery);
+            case FUZZY -> searchFuzzy(searchQuery, fuzzySearch.distanceFor(searchQuery));
+            case TITLE -> searchByTitleContaining(searchQuery);
+        };
     }
     /**
      * Получает книги по идентификатору автора.
@@ -195,8 +319,7 @@ public class BooksService {
      * @return список книг указанного автора
      */
     public List<Books> searchByAuthorName(String authorName) {
-        return bookRepository.findByAuthorFirstNameContainingIgnoreCaseAndTitleContainingIgnoreCase(
-                authorName, "");
+        return bookRepository.findByAuthorNameKeyContaining(SearchKeys.ofQuery(authorName));
     }
     /**
      * Ищет книги по содержанию отзыва.
@@ -214,7 +337,37 @@ public class BooksService {
      * @return список книг с названиями, содержащими указанный текст
      */
     public List<Books> searchByTitleContaining(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+        return bookRepository.findByTitleKeyContaining(SearchKeys.ofQuery(title));
+    }
+    /**
+     * Ищет книги по названию или имени автора с учетом опечаток, без просмотра таблиц БД.
+     * Книги упорядочены по расстоянию от запроса до названия или имени автора.
+     *
+     * @param query поисковый запрос
+     * @param distance допустимое расстояние Левенштейна
+     * @return найденные книги, ближайшие первыми
+     */
+    public List<Books> searchFuzzy(String query, int distance) {
+        Map<Long, Integer> byTitle = new HashMap<>();
+        fuzzySearch.findTitles(query, distance).forEach(match -> byTitle.put(match.id(), match.distance()));
+        Map<Long, Integer> byAuthor = new HashMap<>();
+        fuzzySearch.findAuthors(query, distance).forEach(match -> byAuthor.put(match.id(), match.distance()));
+
+        Map<Long, Books> found = new LinkedHashMap<>();
+        if (!byTitle.isEmpty()) {
+            bookRepository.findByIdIn(byTitle.keySet()).forEach(book -> found.put(book.getId(), book));
+        }
+        if (!byAuthor.isEmpty()) {
+            bookRepository.findByAuthorIdIn(byAuthor.keySet()).forEach(book -> found.putIfAbsent(book.getId(), book));
+        }
+        List<Books> books = new ArrayList<>(found.values());
+        books.sort(Comparator.comparingInt((Books book) -> Math.min(
+                        byTitle.getOrDefault(book.getId(), Integer.MAX_VALUE),
+                        book.getAuthor() != null
+                                ? byAuthor.getOrDefault(book.getAuthor().getId(), Integer.MAX_VALUE)
+                                : Integer.MAX_VALUE))
+                .thenComparing(Books::getTitle));
+        return books;
     }
     /**
      * Валидирует и подготавливает книгу перед сохранением.
@@ -257,11 +410,16 @@ public class BooksService {
      * @return список книг, относящихся к указанному жанру
      */
     private List<Books> filterBooksByGenre(Long genreId) {
-        List<Books> allBooks = bookRepository.findAll();
-        return allBooks.stream()
-                .filter(book -> book.getGenres().stream()
-                        .anyMatch(genre -> genre.getId().equals(genreId)))
-                .toList();
+        return bookRepository.findByGenresId(genreId);
+    }
+    /**
+     * Возвращает идентификаторы первых книг каталога (например, для выборки при прогреве).
+     *
+     * @param limit максимальное количество идентификаторов
+     * @return идентификаторы книг в порядке возрастания
+     */
+    public List<Long> getBookIds(int limit) {
+        return bookRepository.findIds(PageRequest.of(0, limit));
     }
     /**
      * Подсчитывает общее количество книг.
@@ -278,6 +436,6 @@ public class BooksService {
      * @return количество книг автора
      */
     public long countBooksByAuthor(Long authorId) {
-        return bookRepository.findByAuthorId(authorId).size();
+        return bookRepository.countByAuthorId(authorId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.example.ikm.service;
+
+/**
+ * Событие изменения каталога (книги, авторы, жанры).
+ * Публикуется сервисами внутри транзакции записи; слушатели, которым нужны только
+ * зафиксированные изменения, подписываются через {@code @TransactionalEventListener}.
+ *
+ * @param entity тип измененной сущности
+ * @param id идентификатор измененной сущности (null, если изменено множество строк)
+ * @param change вид изменения
+ */
+public record CatalogChangedEvent(Entity entity, Long id, Change change) {
+
+    public enum Entity { BOOK, AUTHOR, GENRE }
+
+    public enum Change { CREATED, UPDATED, DELETED }
+
+    public static CatalogChangedEvent book(Long id, Change change) {
+        return new CatalogChangedEvent(Entity.BOOK, id, change);
+    }
+
+    public static CatalogChangedEvent author(Long id, Change change) {
+        return new CatalogChangedEvent(Entity.AUTHOR, id, change);
+    }
+
+    public static CatalogChangedEvent genre(Long id, Change change) {
+        return new CatalogChangedEvent(Entity.GENRE, id, change);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ikm.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версия каталога: счетчик, увеличиваемый после фиксации каждой транзакции,
+ * изменившей книги, авторов или жанры. Кэши чтения сравнивают сохраненную версию
+ * с текущей и не отдают результаты, вычисленные до последней записи.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Component - регистрирует счетчик как бин Spring</li>
+ *   <li>@TransactionalEventListener - версия меняется только после фиксации записи,
+ *   откаченные транзакции кэш не сбрасывают</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class CatalogVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.ikm.service;
+
+import com.example.ikm.entity.CatalogChange;
+import com.example.ikm.repositories.CatalogChangesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Лента изменений каталога для внешних систем: журнал catalog_changes, читаемый с курсора
+ * (номера последней полученной записи).
+ *
+ * <p>Каждое {@link CatalogChangedEvent} записывается в журнал перед фиксацией транзакции,
+ * в которой оно опубликовано: изменение и запись о нем фиксируются или откатываются вместе.
+ * Номер выдается из счетчика, строка которого заблокирована до фиксации, поэтому номера
+ * идут в порядке фиксации без пропусков, и потребитель не может пропустить изменение,
+ * зафиксированное позже прочитанного им номера. Записи без идентификатора означают изменение
+ * множества строк: потребитель перечитывает сущности этого типа целиком.</p>
+ *
+ * <p>Удаление автора удаляет и его книги: в журнал попадает запись BOOK DELETED для каждой
+ * книги, затем AUTHOR DELETED - одинаково при обычном и фоновом удалении (при фоновом
+ * записи книг фиксируются порциями, запись автора - последней). Записи книг добавляются
+ * одной вставкой ({@link #logBooksDeleted(Long, long)}, {@link #logBooksDeleted(List)}),
+ * а не событием на каждую книгу; слушатели внутри приложения получают только удаление автора.</p>
+ *
+ * <p>Записи старше ikm.change-feed.retention удаляются. Курсор, после которого часть
+ * записей уже удалена, считается устаревшим, и потребитель выполняет полную синхронизацию.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Service - помечает класс как сервисный компонент Spring</li>
+ *   <li>@TransactionalEventListener(BEFORE_COMMIT) - запись в журнал в транзакции изменения</li>
+ *   <li>@Scheduled - периодическое удаление старых записей</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class ChangeFeed {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private final CatalogChangesRepository changeRepository;
+    private final TransactionTemplate transaction;
+    private final int maxPageSize;
+    private final Duration retention;
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param changeRepository репозиторий журнала изменений
+     * @param transactionManager менеджер транзакций для записи в журнал
+     * @param maxPageSize наибольшее количество записей в ответе
+     * @param retention срок хранения записей
+     */
+    @Autowired
+    public ChangeFeed(CatalogChangesRepository changeRepository,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${ikm.change-feed.max-page-size:1000}") int maxPageSize,
+                      @Value("${ikm.change-feed.retention:7d}") Duration retention) {
+        this.changeRepository = changeRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.maxPageSize = maxPageSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Возвращает записи журнала после курсора.
+     *
+     * @param after номер последней полученной записи (0 - с начала журнала)
+     * @param limit наибольшее количество записей (ограничено ikm.change-feed.max-page-size)
+     * @return страница ленты или пустой Optional, если курсор устарел и нужна полная синхронизация
+     */
+    @Transactional(readOnly = true)
+    public Optional<Page> changesAfter(long after, int limit) {
+        long lastSeq = changeRepository.findLastSeq();
+        if (!isRetained(after, lastSeq)) {
+            return Optional.empty();
+        }
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        List<Entry> changes = changeRepository.findBySeqGreaterThanOrderBySeqAsc(after, Limit.of(size)).stream()
+                .map(Entry::of)
+                .toList();
+        long next = changes.isEmpty() ? after : changes.get(changes.size() - 1).seq();
+        return Optional.of(new Page(changes, next, next < lastSeq));
+    }
+
+    /**
+     * @return номер последней записи журнала
+     */
+    @Transactional(readOnly = true)
+    public long lastSeq() {
+        return changeRepository.findLastSeq();
+    }
+
+    /**
+     * Возвращает изменения после указанного номера в виде событий каталога
+     * (для догрузки состояния, сохраненного на момент этого номера).
+     *
+     * @param after номер последней учтенной записи
+     * @param max наибольшее количество изменений
+     * @return события в порядке фиксации или пустой Optional, если часть записей уже удалена
+     * или изменений больше {@code max}
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<CatalogChangedEvent>> eventsAfter(long after, int max) {
+        long lastSeq = changeRepository.findLastSeq();
+        if (!isRetained(after, lastSeq) || lastSeq - after > max) {
+            return Optional.empty();
+        }
+        if (lastSeq == after) {
+            return Optional.of(List.of());
+        }
+        return Optional.of(changeRepository.findBySeqGreaterThanOrderBySeqAsc(after, Limit.of(max)).stream()
+                .map(change -> new CatalogChangedEvent(CatalogChangedEvent.Entity.valueOf(change.getEntity()),
+                        change.getEntityId(), CatalogChangedEvent.Change.valueOf(change.getChange())))
+                .toList());
+    }
+
+    /**
+     * Записывает удаление всех книг автора одной вставкой. Вызывается в транзакции удаления
+     * до удаления книг.
+     *
+     * @param authorId идентификатор автора
+     * @param count количество книг автора
+     * @throws IllegalStateException если количество книг изменилось после подсчета
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void logBooksDeleted(Long authorId, long count) {
+        logBooksDeleted(count, (firstSeq, now) -> changeRepository.insertBookDeletionsByAuthor(authorId, firstSeq, now));
+    }
+
+    /**
+     * Записывает удаление книг одной вставкой. Вызывается в транзакции удаления до удаления книг.
+     *
+     * @param bookIds идентификаторы существующих книг
+     * @throws IllegalStateException если часть книг уже удалена
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void logBooksDeleted(List<Long> bookIds) {
+        logBooksDeleted(bookIds.size(), (firstSeq, now) -> changeRepository.insertBookDeletions(bookIds, firstSeq, now));
+    }
+
+    /**
+     * Выдает {@code count} номеров одним обновлением счетчика и заполняет их вставкой;
+     * если вставлено другое количество строк, транзакция откатывается, чтобы в номерах не было пропусков.
+     */
+    private void logBooksDeleted(long count, BookDeletionsInsert insert) {
+        if (count == 0) {
+            return;
+        }
+        changeRepository.advanceSeq(Math.toIntExact(count));
+        long firstSeq = changeRepository.findLastSeq() - count + 1;
+        int inserted = insert.insert(firstSeq, Instant.now());
+        if (inserted != count) {
+            throw new IllegalStateException("Книги изменились во время удаления: ожидалось "
+                    + count + " записей журнала, вставлено " + inserted);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // присоединяется к фиксируемой транзакции; без транзакции (fallbackExecution) открывает свою
+        transaction.executeWithoutResult(status -> {
+            changeRepository.advanceSeq(1);
+            long seq = changeRepository.findLastSeq();
+            changeRepository.save(new CatalogChange(seq, event.entity().name(), event.id(),
+                    event.change().name(), Instant.now()));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${ikm.change-feed.cleanup-interval:1h}")
+    public void deleteExpired() {
+        Integer deleted = transaction.execute(status -> changeRepository.deleteOlderThan(Instant.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Из журнала изменений удалено {} записей старше {}", deleted, retention);
+        }
+    }
+
+    /**
+     * Проверяет, что в журнале есть все записи после курсора: журнал не очищен дальше курсора,
+     * а курсор не указывает вперед журнала (например, после восстановления БД из копии).
+     */
+    private boolean isRetained(long after, long lastSeq) {
+        long firstSeq = changeRepository.findFirstSeq().orElse(lastSeq + 1);
+        return after >= 0 && after + 1 >= firstSeq && after <= lastSeq;
+    }
+
+    private interface BookDeletionsInsert {
+        int insert(long firstSeq, Instant changedAt);
+    }
+
+    /**
+     * Страница ленты изменений.
+     *
+     * @param changes записи в порядке номеров
+     * @param next курсор для следующего запроса
+     * @param hasMore есть ли записи после этой страницы
+     */
+    public record Page(List<Entry> changes, long next, boolean hasMore) {
+    }
+
+    /**
+     * Запись ленты изменений.
+     *
+     * @param seq номер записи
+     * @param entity тип сущности (BOOK, AUTHOR, GENRE)
+     * @param id идентификатор сущности или null, если изменено множество строк
+     * @param change вид изменения (CREATED, UPDATED, DELETED)
+     * @param changedAt время изменения
+     */
+    public record Entry(long seq, String entity, Long id, String change, Instant changedAt) {
+
+        static Entry of(CatalogChange change) {
+            return new Entry(change.getSeq(), change.getEntity(), change.getEntityId(),
+                    change.getChange(), change.getChangedAt());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ikm.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Результат запроса, читаемый из курсора БД по мере обхода, а не загружаемый списком.
+ * Предназначен для потоковой отрисовки больших таблиц: шаблон начинает выводить страницу
+ * до выполнения запроса, а строки попадают в ответ порциями по мере чтения.
+ *
+ * <p>Запрос выполняется при первом обходе в собственной read-only транзакции, которая
+ * завершается вместе с обходом или вызовом {@link #close()}. Через каждые {@code chunkSize}
+ * строк контекст персистентности очищается, поэтому в памяти остается только текущая порция,
+ * и вызывается обработчик {@link #onChunk(Runnable)} (например, сброс буфера ответа).
+ * Обойти результат можно только один раз.</p>
+ *
+ * @param <T> тип строки результата
+ */
+public class CursorResult<T> implements Iterable<T>, AutoCloseable {
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final Supplier<Stream<T>> query;
+    private final int chunkSize;
+    private Runnable chunkListener = () -> { };
+    private TransactionStatus transaction;
+    private Stream<T> rows;
+
+    CursorResult(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                 Supplier<Stream<T>> query, int chunkSize) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        this.query = query;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Задает действие, выполняемое перед запросом к БД и после каждой порции строк.
+     *
+     * @param listener обработчик
+     * @return этот же результат
+     */
+    public CursorResult<T> onChunk(Runnable listener) {
+        this.chunkListener = listener;
+        return this;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (transaction != null) {
+            throw new IllegalStateException("Результат из курсора можно обойти только один раз");
+        }
+        chunkListener.run();
+
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        transaction = transactionManager.getTransaction(definition);
+        Iterator<T> cursor;
+        try {
+            rows = query.get();
+            cursor = rows.iterator();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+
+        return new Iterator<>() {
+            private int inChunk;
+
+            @Override
+            public boolean hasNext() {
+                if (rows == null) {
+                    return false;
+                }
+                if (cursor.hasNext()) {
+                    return true;
+                }
+                close();
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (inChunk == chunkSize) {
+                    // предыдущая порция уже выведена
+                    entityManager.clear();
+                    chunkListener.run();
+                    inChunk = 0;
+                }
+                inChunk++;
+                return cursor.next();
+            }
+        };
+    }
+
+    /**
+     * Закрывает курсор и завершает транзакцию чтения. Повторный вызов ничего не делает.
+     */
+    @Override
+    public void close() {
+        if (rows != null) {
+            rows.close();
+            rows = null;
+        }
+        if (transaction != null && !transaction.isCompleted()) {
+            transactionManager.commit(transaction);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ikm.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Создает результаты запросов, читаемые из курсора БД ({@link CursorResult}).
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Component - регистрирует фабрику как бин Spring</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class CursorResults {
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final int chunkSize;
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param transactionManager менеджер транзакций для транзакций чтения курсора
+     * @param entityManager общий EntityManager, очищаемый после каждой порции строк
+     * @param chunkSize количество строк в порции
+     */
+    @Autowired
+    public CursorResults(PlatformTransactionManager transactionManager,
+                         EntityManager entityManager,
+                         @Value("${ikm.streaming.chunk-size:200}") int chunkSize) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @param query запрос, возвращающий поток строк; выполняется внутри транзакции курсора
+     * @return результат, выполняющий запрос при первом обходе
+     */
+    public <T> CursorResult<T> open(Supplier<Stream<T>> query) {
+        return new CursorResult<>(transactionManager, entityManager, query, chunkSize);
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.ikm.service;
+
+import com.example.ikm.config.ReplicaRoutingContext;
+import com.example.ikm.entity.SearchKeys;
+import com.example.ikm.repositories.AuthorsRepository;
+import com.example.ikm.repositories.BooksRepository;
+import com.example.ikm.snapshot.CatalogSnapshot;
+import com.example.ikm.snapshot.CatalogSnapshots;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Нечеткий поиск с учетом опечаток: названия книг и имена авторов в BK-деревьях ({@link BkTree})
+ * в памяти, поиск в пределах ограниченного расстояния Левенштейна без запросов к БД.
+ *
+ * <p>В деревьях хранятся ключи поиска ({@link SearchKeys}), поэтому опечатки находятся
+ * и при кириллическом, и при латинском написании запроса. Автор ищется по полному имени
+ * ("имя фамилия") и по одной фамилии. Индексы строятся при запуске (из снимка каталога, если он есть)
+ * и обновляются после фиксации каждой записи в каталог; при изменении множества строк
+ * (событие без идентификатора) индекс строится заново.</p>
+ *
+ * <p>Изменения применяет один фоновый поток: запрос, зафиксировавший запись, только ставит
+ * идентификатор в очередь. Измененная строка читается из основной БД до взятия блокировки записи,
+ * блокировка удерживается только на время изменения деревьев; изменения одной строки,
+ * накопившиеся за время обновления, объединяются.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Component - регистрирует индекс как бин Spring</li>
+ *   <li>@Order - индекс строится до прогрева ({@code WarmupRunner})</li>
+ *   <li>@TransactionalEventListener - индекс обновляется только зафиксированными изменениями</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class FuzzySearch implements ApplicationRunner, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(FuzzySearch.class);
+    /**
+     * Доля узлов без записей, после которой деревья перестраиваются.
+     */
+    private static final double MAX_EMPTY_SHARE = 0.5;
+
+    private final BooksRepository bookRepository;
+    private final AuthorsRepository authorRepository;
+    private final CatalogSnapshots snapshots;
+    private final TransactionTemplate transaction;
+    private final int maxDistance;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadPoolTaskExecutor reloader;
+    private final Set<Long> pendingBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingAuthors = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+    private final Map<Long, String> titleOf = new HashMap<>();
+    private final Map<Long, Long> authorOfBook = new HashMap<>();
+    private final Map<Long, Name> nameOf = new HashMap<>();
+    private BkTree titles = new BkTree();
+    private BkTree fullNames = new BkTree();
+    private BkTree lastNames = new BkTree();
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param bookRepository репозиторий книг
+     * @param authorRepository репозиторий авторов
+     * @param snapshots снимки каталога для построения при запуске
+     * @param transactionManager менеджер транзакций для чтения изменений
+     * @param maxDistance наибольшее допустимое расстояние Левенштейна
+     */
+    @Autowired
+    public FuzzySearch(BooksRepository bookRepository,
+                       AuthorsRepository authorRepository,
+                       CatalogSnapshots snapshots,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${ikm.fuzzy.max-distance:2}") int maxDistance) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.snapshots = snapshots;
+        this.maxDistance = maxDistance;
+        // не read-only: изменение читается из основной БД, реплика могла его еще не получить
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.reloader = new ThreadPoolTaskExecutor();
+        reloader.setThreadNamePrefix("fuzzy-search-");
+        reloader.setCorePoolSize(1);
+        reloader.setMaxPoolSize(1);
+        reloader.initialize();
+    }
+
+    /**
+     * Допустимое расстояние для запроса: одна правка на каждые четыре символа,
+     * но не больше ikm.fuzzy.max-distance.
+     *
+     * @param query поисковый запрос
+     * @return допустимое расстояние Левенштейна
+     */
+    public int distanceFor(String query) {
+        return Math.min(maxDistance, normalize(query).length() / 4);
+    }
+
+    /**
+     * Находит книги по названию с учетом опечаток.
+     *
+     * @param query поисковый запрос
+     * @param distance допустимое расстояние (ограничено ikm.fuzzy.max-distance)
+     * @return идентификаторы книг с расстоянием, ближайшие первыми
+     */
+    List<BkTree.Match> findTitles(String query, int distance) {
+        String term = normalize(query);
+        lock.readLock().lock();
+        try {
+            return titles.search(term, Math.min(distance, maxDistance));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Находит авторов по полному имени или фамилии с учетом опечаток.
+     *
+     * @param query поисковый запрос
+     * @param distance допустимое расстояние (ограничено ikm.fuzzy.max-distance)
+     * @return идентификаторы авторов с расстоянием, ближайшие первыми
+     */
+    List<BkTree.Match> findAuthors(String query, int distance) {
+        String term = normalize(query);
+        int bounded = Math.min(distance, maxDistance);
+        List<BkTree.Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            matches.addAll(fullNames.search(term, bounded));
+            matches.addAll(lastNames.search(term, bounded));
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<Long, BkTree.Match> best = new LinkedHashMap<>();
+        matches.sort(Comparator.comparingInt(BkTree.Match::distance));
+        matches.forEach(match -> best.putIfAbsent(match.id(), match));
+        return new ArrayList<>(best.values());
+    }
+
+    /**
+     * Находит автора, полное имя которого отличается от указанного не более чем на {@code distance}
+     * правок, если такой автор единственный среди ближайших. Используется только для подсказки:
+     * похожее имя может принадлежать другому человеку.
+     *
+     * @param firstName имя
+     * @param lastName фамилия
+     * @param distance допустимое расстояние
+     * @return Optional с идентификатором автора
+     */
+    Optional<Long> findSimilarAuthor(String firstName, String lastName, int distance) {
+        if (distance <= 0) {
+            return Optional.empty();
+        }
+        List<BkTree.Match> matches;
+        lock.readLock().lock();
+        try {
+            matches = fullNames.search(normalize(firstName + " " + lastName), Math.min(distance, maxDistance));
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (matches.isEmpty() || matches.size() > 1 && matches.get(1).distance() == matches.get(0).distance()) {
+            return Optional.empty();
+        }
+        return Optional.of(matches.get(0).id());
+    }
+
+    /**
+     * Строит индексы при запуске: по снимку каталога с изменениями после него или из БД.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        try {
+            reloader.submit(() -> {
+                ReplicaRoutingContext.pinToPrimary();
+                Optional<CatalogSnapshots.Startup> startup = snapshots.forStartup();
+                if (startup.isPresent()) {
+                    loadFrom(startup.get().snapshot());
+                    startup.get().changes().forEach(this::enqueue);
+                    update();
+                } else {
+                    load();
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            log.warn("Индекс нечеткого поиска не построен", e.getCause());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (enqueue(event) && updateScheduled.compareAndSet(false, true)) {
+            reloader.execute(this::update);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdown();
+    }
+
+    /**
+     * Добавляет изменение к ожидающим обновления.
+     *
+     * @return false, если изменение не влияет на индекс
+     */
+    private boolean enqueue(CatalogChangedEvent event) {
+        if (event.entity() == CatalogChangedEvent.Entity.GENRE) {
+            return false;
+        }
+        if (event.id() == null) {
+            rebuildPending.set(true);
+        } else if (event.entity() == CatalogChangedEvent.Entity.BOOK) {
+            pendingBooks.add(event.id());
+        } else {
+            pendingAuthors.add(event.id());
+        }
+        return true;
+    }
+
+    /**
+     * Применяет ожидающие изменения. Строка, которой уже нет в БД, удаляется из индекса;
+     * вместе с удаленным автором удаляются его книги: событий по каждой книге нет,
+     * их удаление записывается только в ленту изменений.
+     */
+    private void update() {
+        updateScheduled.set(false);
+        ReplicaRoutingContext.pinToPrimary();
+        try {
+            if (rebuildPending.getAndSet(false)) {
+                load();
+            }
+            for (Iterator<Long> it = pendingBooks.iterator(); it.hasNext(); ) {
+                Long bookId = it.next();
+                it.remove();
+                Optional<BooksRepository.TitleRow> row =
+                        transaction.execute(status -> bookRepository.findTitleRowById(bookId));
+                write(() -> {
+                    removeBook(bookId);
+                    row.ifPresent(this::addBook);
+                });
+            }
+            for (Iterator<Long> it = pendingAuthors.iterator(); it.hasNext(); ) {
+                Long authorId = it.next();
+                it.remove();
+                Optional<AuthorsRepository.NameRow> row =
+                        transaction.execute(status -> authorRepository.findNameRowById(authorId));
+                write(() -> {
+                    removeAuthor(authorId);
+                    if (row.isPresent()) {
+                        addAuthor(row.get());
+                    } else {
+                        removeBooksOf(authorId);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Индекс нечеткого поиска не обновлен, изменения будут учтены при следующем построении", e);
+            rebuildPending.set(true);
+        }
+    }
+
+    /**
+     * Изменяет деревья под блокировкой записи.
+     */
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Приводит строку к виду, в котором она хранится в индексе.
+     */
+    static String normalize(String value) {
+        return value == null ? "" : SearchKeys.of(value);
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        // изменения, зафиксированные до чтения каталога, построение учтет само
+        pendingBooks.clear();
+        pendingAuthors.clear();
+        List<BooksRepository.TitleRow> books = new ArrayList<>();
+        List<AuthorsRepository.NameRow> authors = new ArrayList<>();
+        transaction.executeWithoutResult(status -> {
+            try (Stream<BooksRepository.TitleRow> rows = bookRepository.streamTitles()) {
+                rows.forEach(books::add);
+            }
+            try (Stream<AuthorsRepository.NameRow> rows = authorRepository.streamNames()) {
+                rows.forEach(authors::add);
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            clear();
+            books.forEach(this::addBook);
+            authors.forEach(this::addAuthor);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс нечеткого поиска построен за {} мс: {} книг, {} авторов",
+                (System.nanoTime() - started) / 1_000_000, titleOf.size(), nameOf.size());
+    }
+
+    private void loadFrom(CatalogSnapshot snapshot) {
+        long started = System.nanoTime();
+        pendingBooks.clear();
+        pendingAuthors.clear();
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (int i = 0; i < snapshot.bookCount(); i++) {
+                addBook(snapshot.bookId(i), snapshot.bookTitle(i), snapshot.bookAuthorId(i));
+            }
+            for (int i = 0; i < snapshot.authorCount(); i++) {
+                addAuthor(snapshot.authorId(i), snapshot.authorFirstName(i), snapshot.authorLastName(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс нечеткого поиска построен по снимку каталога за {} мс: {} книг, {} авторов",
+                (System.nanoTime() - started) / 1_000_000, titleOf.size(), nameOf.size());
+    }
+
+    private void clear() {
+        titleOf.clear();
+        authorOfBook.clear();
+        nameOf.clear();
+        titles = new BkTree();
+        fullNames = new BkTree();
+        lastNames = new BkTree();
+    }
+
+    private void addBook(BooksRepository.TitleRow row) {
+        addBook(row.getId(), row.getTitle(), row.getAuthorId());
+    }
+
+    private void addBook(Long id, String rawTitle, Long authorId) {
+        String title = normalize(rawTitle);
+        titleOf.put(id, title);
+        if (authorId != null) {
+            authorOfBook.put(id, authorId);
+        }
+        titles.add(title, id);
+    }
+
+    private void removeBooksOf(Long authorId) {
+        List<Long> books = new ArrayList<>();
+        authorOfBook.forEach((bookId, bookAuthorId) -> {
+            if (bookAuthorId.equals(authorId)) {
+                books.add(bookId);
+            }
+        });
+        books.forEach(this::removeBook);
+    }
+
+    private void removeBook(Long id) {
+        String title = titleOf.remove(id);
+        authorOfBook.remove(id);
+        if (title != null) {
+            titles.remove(title, id);
+        }
+    }
+
+    private void addAuthor(AuthorsRepository.NameRow row) {
+        addAuthor(row.getId(), row.getFirstName(), row.getLastName());
+    }
+
+    private void addAuthor(Long id, String firstName, String lastName) {
+        Name name = new Name(normalize(firstName + " " + lastName), normalize(lastName));
+        nameOf.put(id, name);
+        fullNames.add(name.fullName(), id);
+        lastNames.add(name.lastName(), id);
+    }
+
+    private void removeAuthor(Long id) {
+        Name name = nameOf.remove(id);
+        if (name != null) {
+            fullNames.remove(name.fullName(), id);
+            lastNames.remove(name.lastName(), id);
+        }
+    }
+
+    /**
+     * Перестраивает деревья из сохраненных строк, когда в них накопилось много пустых узлов.
+     */
+    private void compactIfNeeded() {
+        if (titles.emptyShare() > MAX_EMPTY_SHARE) {
+            titles = new BkTree();
+            titleOf.forEach((id, title) -> titles.add(title, id));
+        }
+        if (fullNames.emptyShare() > MAX_EMPTY_SHARE || lastNames.emptyShare() > MAX_EMPTY_SHARE) {
+            fullNames = new BkTree();
+            lastNames = new BkTree();
+            nameOf.forEach((id, name) -> {
+                fullNames.add(name.fullName(), id);
+                lastNames.add(name.lastName(), id);
+            });
+        }
+    }
+
+    private record Name(String fullName, String lastName) {
+    }
+}
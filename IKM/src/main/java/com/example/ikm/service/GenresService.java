@@ -1,11 +1,14 @@
 package com.example.ikm.service;
 
-import com.example.ikm.entity.Books;
 import com.example.ikm.entity.Genres;
+import com.example.ikm.entity.SearchKeys;
 import com.example.ikm.repositories.GenresRepository;
 import com.example.ikm.repositories.BooksRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 /**
@@ -15,23 +18,29 @@ import java.util.*;
  * <p>Аннотации:
  * <ul>
  *   <li>@Service - помечает класс как сервисный компонент Spring</li>
+ *   <li>@Transactional(readOnly = true) - методы чтения по умолчанию, запись помечена отдельно</li>
  * </ul>
  * </p>
  */
 @Service
+@Transactional(readOnly = true)
 public class GenresService {
     private final GenresRepository genreRepository;
     private final BooksRepository booksRepository;
+    private final ApplicationEventPublisher events;
     /**
      * Конструктор с внедрением зависимостей репозиториев.
      *
      * @param genreRepository репозиторий для работы с жанрами
      * @param booksRepository репозиторий для работы с книгами
+     * @param events публикатор событий изменения каталога
      */
     @Autowired
-    public GenresService(GenresRepository genreRepository, BooksRepository booksRepository) {
+    public GenresService(GenresRepository genreRepository, BooksRepository booksRepository,
+                         ApplicationEventPublisher events) {
         this.genreRepository = genreRepository;
         this.booksRepository = booksRepository;
+        this.events = events;
     }
     /**
      * Получает список всех жанров.
@@ -58,33 +67,50 @@ public class GenresService {
      * @return сохраненный жанр
      * @throws RuntimeException если жанр с таким названием уже существует
      */
+    @Transactional
     public Genres saveGenre(Genres genre) {
         String normalizedName = capitalizeFirst(genre.getName().trim().toLowerCase());
         if (genreRepository.existsByNameIgnoreCase(normalizedName)) {
             throw new RuntimeException("Жанр '" + normalizedName + "' уже существует");
         }
         genre.setName(normalizedName); // сохраняем в нормализованном виде
-        return genreRepository.save(genre);
+        Genres saved = genreRepository.save(genre);
+        events.publishEvent(CatalogChangedEvent.genre(saved.getId(), CatalogChangedEvent.Change.CREATED));
+        return saved;
     }
     /**
-     * Обновляет данные существующего жанра.
+     * Обновляет данные существующего жанра одним запросом с проверкой версии строки.
      *
      * @param id идентификатор жанра для обновления
-     * @param genreDetails новые данные жанра
-     * @return обновленный жанр
+     * @param genreDetails новые данные жанра, включая версию, с которой начиналось редактирование
+     * @return переданные данные с идентификатором и новой версией жанра
      * @throws RuntimeException если жанр не найден или новое название уже существует
+     * @throws ObjectOptimisticLockingFailureException если жанр уже изменил другой пользователь
      */
+    @Transactional
     public Genres updateGenre(Long id, Genres genreDetails) {
-        Genres genre = genreRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Жанр не найден"));
+        if (genreDetails.getVersion() == null) {
+            throw new IllegalArgumentException("Не указана версия жанра");
+        }
+        genreRepository.findByNameIgnoreCase(genreDetails.getName())
+                .filter(existing -> !existing.getId().equals(id))
+                .ifPresent(existing -> {
+                    throw new RuntimeException("Жанр '" + genreDetails.getName() + "' уже существует");
+                });
 
-        if (!genre.getName().equals(genreDetails.getName()) &&
-                genreRepository.existsByName(genreDetails.getName())) {
-            throw new RuntimeException("Жанр '" + genreDetails.getName() + "' уже существует");
+        int updated = genreRepository.updateIfVersionMatches(id, genreDetails.getVersion(), genreDetails.getName(),
+                SearchKeys.of(genreDetails.getName()));
+        if (updated == 0) {
+            if (!genreRepository.existsById(id)) {
+                throw new RuntimeException("Жанр не найден");
+            }
+            throw new ObjectOptimisticLockingFailureException(Genres.class, id);
         }
+        events.publishEvent(CatalogChangedEvent.genre(id, CatalogChangedEvent.Change.UPDATED));
 
-        genre.setName(genreDetails.getName());
-        return genreRepository.save(genre);
+        genreDetails.setId(id);
+        genreDetails.setVersion(genreDetails.getVersion() + 1);
+        return genreDetails;
     }
     /**
      * Удаляет жанр по идентификатору.
@@ -93,11 +119,50 @@ public class GenresService {
      * @param id идентификатор жанра для удаления
      * @throws RuntimeException если жанр используется в книгах
      */
+    @Transactional
     public void deleteGenre(Long id) {
         if (isGenreUsed(id)) {
             throw new RuntimeException("Нельзя удалить жанр, который используется в книгах");
         }
         genreRepository.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.genre(id, CatalogChangedEvent.Change.DELETED));
+    }
+    /**
+     * Объединяет жанры: связи книг с исходными жанрами переносятся на целевой жанр,
+     * связи, которые стали бы дубликатами, удаляются, исходные жанры удаляются.
+     * Выполняется несколькими запросами над множествами строк в одной транзакции,
+     * время не зависит от количества книг в объединяемых жанрах.
+     *
+     * @param targetId идентификатор жанра, который остается
+     * @param sourceIds идентификаторы жанров, которые объединяются с целевым
+     * @return количество перенесенных связей книг
+     * @throws IllegalArgumentException если не выбраны жанры для объединения
+     * @throws RuntimeException если целевой или один из исходных жанров не найден
+     */
+    @Transactional
+    public int mergeGenres(Long targetId, Collection<Long> sourceIds) {
+        Set<Long> sources = new HashSet<>(sourceIds);
+        sources.remove(targetId);
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Не выбраны жанры для объединения");
+        }
+        if (!genreRepository.existsById(targetId) || genreRepository.countByIdIn(sources) != sources.size()) {
+            throw new RuntimeException("Жанр не найден");
+        }
+
+        int books = genreRepository.incrementBookVersionsByGenres(sources);
+        genreRepository.deleteDuplicateBookLinks(targetId, sources);
+        int moved = genreRepository.moveBookLinks(targetId, sources);
+        genreRepository.deleteByIdInBulk(sources);
+
+        sources.forEach(id -> events.publishEvent(CatalogChangedEvent.genre(id, CatalogChangedEvent.Change.DELETED)));
+        events.publishEvent(CatalogChangedEvent.genre(targetId, CatalogChangedEvent.Change.UPDATED));
+        if (books > 0) {
+            // жанры изменились у множества книг
+            events.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Entity.BOOK, null,
+                    CatalogChangedEvent.Change.UPDATED));
+        }
+        return moved;
     }
     /**
      * Ищет жанры по названию.
@@ -109,7 +174,7 @@ public class GenresService {
         if (searchQuery == null || searchQuery.trim().isEmpty()) {
             return genreRepository.findAll();
         } else {
-            return genreRepository.findByNameContainingIgnoreCase(searchQuery);
+            return genreRepository.findByNameKeyContaining(SearchKeys.ofQuery(searchQuery));
         }
     }
     /**
@@ -137,14 +202,7 @@ public class GenresService {
      * @return true, если жанр используется в книгах, иначе false
      */
     public boolean isGenreUsed(Long genreId) {
-        List<Books> allBooks = booksRepository.findAll();
-        for (Books book : allBooks) {
-            if (book.getGenres().stream()
-                    .anyMatch(genre -> genre.getId().equals(genreId))) {
-                return true;
-            }
-        }
-        return false;
+        return booksRepository.existsByGenresId(genreId);
     }
     /**
      * Находит существующий жанр или создает новый, если не найден.
@@ -153,6 +211,7 @@ public class GenresService {
      * @return существующий или созданный жанр
      * @throws IllegalArgumentException если название пустое
      */
+    @Transactional
     public Genres getOrCreateGenre(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Название жанра не может быть пустым");
@@ -166,7 +225,9 @@ public class GenresService {
                     String normalized = capitalizeFirst(cleanName.toLowerCase());
                     Genres newGenre = new Genres();
                     newGenre.setName(normalized);
-                    return genreRepository.save(newGenre);
+                    Genres saved = genreRepository.save(newGenre);
+                    events.publishEvent(CatalogChangedEvent.genre(saved.getId(), CatalogChangedEvent.Change.CREATED));
+                    return saved;
                 });
     }
 
@@ -182,6 +243,7 @@ public class GenresService {
      * @return множество жанров
      * @throws IllegalArgumentException если строка пустая или не удалось извлечь жанры
      */
+    @Transactional
     public Set<Genres> findOrCreateGenresFromInput(String input) {
         if (input == null || input.trim().isEmpty()) {
             throw new IllegalArgumentException("Жанры не указаны");
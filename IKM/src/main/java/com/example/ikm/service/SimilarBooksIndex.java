@@ -0,0 +1,542 @@
+package com.example.ikm.service;
+
+import com.example.ikm.config.ReplicaRoutingContext;
+import com.example.ikm.repositories.BooksRepository;
+import com.example.ikm.snapshot.CatalogSnapshot;
+import com.example.ikm.snapshot.CatalogSnapshots;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Индекс похожих книг: для каждой книги заранее вычислены K наиболее похожих книг,
+ * поэтому страница книги получает их за O(K).
+ *
+ * <p>Сходство двух книг - коэффициент Жаккара по множествам жанров плюс
+ * ikm.similar-books.author-boost, если у книг один автор. Жанры книги хранятся битовым множеством;
+ * кандидатами в соседи считаются только книги с общим жанром или автором - их битовое множество
+ * собирается из инвертированных списков жанров и авторов. При равном сходстве выше книга
+ * с более близким идентификатором (книги, добавленные в каталог примерно в одно время).</p>
+ *
+ * <p>Индекс строится при запуске в пуле fork-join, до перевода приложения в состояние готовности;
+ * признаки книг берутся из снимка каталога ({@link CatalogSnapshots}), если он есть, и догружаются
+ * изменениями после снимка, иначе читаются из БД.
+ * После фиксации записи в каталог измененная книга перечитывается из БД, ее соседи вычисляются
+ * заново, а в списках соседей книг-кандидатов она добавляется или вытесняет последнюю; списки,
+ * в которых она была, пересчитываются. Все изменения выполняет один фоновый поток, изменения
+ * одной книги, накопившиеся за время обновления, объединяются.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Component - регистрирует индекс как бин Spring</li>
+ *   <li>@Order - индекс строится раньше прогрева ({@code WarmupRunner})</li>
+ *   <li>@TransactionalEventListener - индекс обновляется только зафиксированными изменениями</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SimilarBooksIndex implements ApplicationRunner, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(SimilarBooksIndex.class);
+
+    private final BooksRepository bookRepository;
+    private final CatalogSnapshots snapshots;
+    private final int k;
+    private final double authorBoost;
+    private final int parallelism;
+    private final ThreadPoolTaskExecutor updater;
+    /** Соседи книг, лучший первым; массивы не изменяются, а заменяются целиком. */
+    private final Map<Long, Neighbor[]> neighbors = new ConcurrentHashMap<>();
+    private final Set<Long> pendingBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingAuthors = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+    /** Изменяется только потоком обновления. */
+    private Catalog catalog;
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param bookRepository репозиторий книг
+     * @param snapshots снимки каталога для построения при запуске
+     * @param k количество похожих книг на книгу
+     * @param authorBoost прибавка к сходству книг одного автора
+     * @param parallelism параллелизм построения индекса (0 - по числу процессоров)
+     */
+    @Autowired
+    public SimilarBooksIndex(BooksRepository bookRepository,
+                             CatalogSnapshots snapshots,
+                             @Value("${ikm.similar-books.k:8}") int k,
+                             @Value("${ikm.similar-books.author-boost:0.5}") double authorBoost,
+                             @Value("${ikm.similar-books.parallelism:0}") int parallelism) {
+        this.bookRepository = bookRepository;
+        this.snapshots = snapshots;
+        this.k = k;
+        this.authorBoost = authorBoost;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.catalog = new Catalog(k, authorBoost);
+        this.updater = new ThreadPoolTaskExecutor();
+        updater.setThreadNamePrefix("similar-books-");
+        updater.setCorePoolSize(1);
+        updater.setMaxPoolSize(1);
+        updater.initialize();
+    }
+
+    /**
+     * Возвращает идентификаторы книг, похожих на указанную, в порядке убывания сходства.
+     *
+     * @param bookId идентификатор книги
+     * @return не более K идентификаторов (пустой список, если книги нет в индексе)
+     */
+    public List<Long> similarTo(Long bookId) {
+        Neighbor[] list = neighbors.get(bookId);
+        if (list == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(list.length);
+        for (Neighbor neighbor : list) {
+            ids.add(neighbor.id());
+        }
+        return ids;
+    }
+
+    public int size() {
+        return neighbors.size();
+    }
+
+    /**
+     * Строит индекс при запуске. Ошибка построения не мешает запуску:
+     * индекс достраивается по мере изменения книг.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        try {
+            updater.submit(() -> {
+                ReplicaRoutingContext.pinToPrimary();
+                Optional<CatalogSnapshots.Startup> startup = snapshots.forStartup();
+                if (startup.isPresent()) {
+                    buildFrom(startup.get().snapshot());
+                    startup.get().changes().forEach(this::enqueue);
+                    update();
+                } else {
+                    build();
+                }
+            }).get();
+        } catch (ExecutionException e) {
+            log.warn("Индекс похожих книг не построен", e.getCause());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (enqueue(event) && updateScheduled.compareAndSet(false, true)) {
+            updater.execute(this::update);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        updater.shutdown();
+    }
+
+    /**
+     * Добавляет изменение к ожидающим обновления.
+     *
+     * @return false, если изменение не влияет на сходство
+     */
+    private boolean enqueue(CatalogChangedEvent event) {
+        if (event.id() == null) {
+            rebuildPending.set(true);
+        } else if (event.entity() == CatalogChangedEvent.Entity.BOOK) {
+            pendingBooks.add(event.id());
+        } else if (event.entity() == CatalogChangedEvent.Entity.AUTHOR
+                && event.change() == CatalogChangedEvent.Change.DELETED) {
+            // книги удаленного автора удаляются по этому событию: событий по каждой книге нет,
+            // их удаление записывается только в ленту изменений
+            pendingAuthors.add(event.id());
+        } else {
+            // переименование жанра или автора и удаление неиспользуемого жанра сходство не меняют
+            return false;
+        }
+        return true;
+    }
+
+    private void update() {
+        updateScheduled.set(false);
+        ReplicaRoutingContext.pinToPrimary();
+        try {
+            if (rebuildPending.getAndSet(false)) {
+                build();
+            }
+            for (Iterator<Long> it = pendingAuthors.iterator(); it.hasNext(); ) {
+                Long authorId = it.next();
+                it.remove();
+                pendingBooks.addAll(catalog.booksOfAuthor(authorId));
+            }
+            for (Iterator<Long> it = pendingBooks.iterator(); it.hasNext(); ) {
+                Long bookId = it.next();
+                it.remove();
+                apply(bookId, features(bookRepository.findSimilarityRowsById(bookId)).get(bookId));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Индекс похожих книг не обновлен, изменения будут учтены при следующем построении", e);
+            rebuildPending.set(true);
+        }
+    }
+
+    private void build() {
+        long started = System.nanoTime();
+        // изменения, зафиксированные до чтения каталога, построение учтет само
+        pendingBooks.clear();
+        pendingAuthors.clear();
+        load(features(bookRepository.findSimilarityRows()).values());
+        log.info("Индекс похожих книг построен за {} мс: {} книг",
+                (System.nanoTime() - started) / 1_000_000, neighbors.size());
+    }
+
+    private void buildFrom(CatalogSnapshot snapshot) {
+        long started = System.nanoTime();
+        pendingBooks.clear();
+        pendingAuthors.clear();
+        List<Features> books = new ArrayList<>(snapshot.bookCount());
+        for (int i = 0; i < snapshot.bookCount(); i++) {
+            books.add(new Features(snapshot.bookId(i), snapshot.bookAuthorId(i), snapshot.bookGenreIds(i)));
+        }
+        load(books);
+        log.info("Индекс похожих книг построен по снимку каталога за {} мс: {} книг",
+                (System.nanoTime() - started) / 1_000_000, neighbors.size());
+    }
+
+    /**
+     * Заменяет индекс построенным заново по признакам всех книг.
+     */
+    void load(Iterable<Features> books) {
+        Catalog fresh = new Catalog(k, authorBoost);
+        for (Features book : books) {
+            fresh.put(book);
+        }
+        Neighbor[][] top = new Neighbor[fresh.slots()][];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new TopKTask(fresh, top, 0, top.length));
+        } finally {
+            pool.shutdown();
+        }
+        catalog = fresh;
+        for (int slot = 0; slot < top.length; slot++) {
+            if (top[slot] != null) {
+                neighbors.put(fresh.id(slot), top[slot]);
+            }
+        }
+        neighbors.keySet().retainAll(fresh.bookIds());
+    }
+
+    /**
+     * Учитывает изменение одной книги.
+     *
+     * @param bookId идентификатор книги
+     * @param book новые признаки книги или null, если книга удалена
+     */
+    void apply(Long bookId, Features book) {
+        BitSet affected = new BitSet();
+        int old = catalog.slotOf(bookId);
+        if (old >= 0) {
+            affected.or(catalog.candidates(old));
+            affected.clear(old);
+            catalog.remove(bookId);
+        }
+        int slot = -1;
+        if (book != null) {
+            slot = catalog.put(book);
+            affected.or(catalog.candidates(slot));
+            affected.clear(slot);
+            neighbors.put(bookId, catalog.topK(slot));
+        } else {
+            neighbors.remove(bookId);
+        }
+        for (int other = affected.nextSetBit(0); other >= 0; other = affected.nextSetBit(other + 1)) {
+            Long otherId = catalog.id(other);
+            Neighbor[] list = neighbors.get(otherId);
+            if (list == null || contains(list, bookId)) {
+                // книга могла опуститься ниже K-й или исчезнуть: место занимает следующий кандидат
+                neighbors.put(otherId, catalog.topK(other));
+            } else if (slot >= 0) {
+                Neighbor[] updated = catalog.offer(list, otherId, bookId, catalog.score(other, slot));
+                if (updated != list) {
+                    neighbors.put(otherId, updated);
+                }
+            }
+        }
+    }
+
+    private static boolean contains(Neighbor[] list, long bookId) {
+        for (Neighbor neighbor : list) {
+            if (neighbor.id() == bookId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<Long, Features> features(List<BooksRepository.SimilarityRow> rows) {
+        Map<Long, Features> books = new LinkedHashMap<>();
+        for (BooksRepository.SimilarityRow row : rows) {
+            Features book = books.computeIfAbsent(row.getBookId(),
+                    id -> new Features(id, row.getAuthorId(), new LinkedHashSet<>()));
+            if (row.getGenreId() != null) {
+                book.genreIds().add(row.getGenreId());
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Признаки книги, по которым считается сходство.
+     *
+     * @param bookId идентификатор книги
+     * @param authorId идентификатор автора (может быть null)
+     * @param genreIds идентификаторы жанров
+     */
+    record Features(Long bookId, Long authorId, Set<Long> genreIds) {
+    }
+
+    private record Neighbor(long id, double score) {
+    }
+
+    /**
+     * Вычисляет соседей диапазона слотов, разделяя его пополам до порога.
+     */
+    private static final class TopKTask extends RecursiveAction {
+        private static final int THRESHOLD = 64;
+        private final Catalog catalog;
+        private final Neighbor[][] top;
+        private final int from;
+        private final int to;
+
+        TopKTask(Catalog catalog, Neighbor[][] top, int from, int to) {
+            this.catalog = catalog;
+            this.top = top;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                for (int slot = from; slot < to; slot++) {
+                    if (catalog.isUsed(slot)) {
+                        top[slot] = catalog.topK(slot);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TopKTask(catalog, top, from, middle), new TopKTask(catalog, top, middle, to));
+        }
+    }
+
+    /**
+     * Книги индекса в плотных массивах (слот - номер книги в массивах) и инвертированные списки
+     * слотов по жанрам и авторам. Освобожденные слоты используются повторно.
+     */
+    private static final class Catalog {
+        private static final long NO_AUTHOR = Long.MIN_VALUE;
+        private final int k;
+        private final double authorBoost;
+        private final Map<Long, Integer> slots = new HashMap<>();
+        private final Deque<Integer> free = new ArrayDeque<>();
+        private final Map<Long, Integer> genreBits = new HashMap<>();
+        private final Map<Integer, BitSet> byGenre = new HashMap<>();
+        private final Map<Long, BitSet> byAuthor = new HashMap<>();
+        private long[] ids = new long[64];
+        private long[] authors = new long[64];
+        private long[][] genres = new long[64][];
+        private int size;
+
+        Catalog(int k, double authorBoost) {
+            this.k = k;
+            this.authorBoost = authorBoost;
+        }
+
+        int slots() {
+            return size;
+        }
+
+        boolean isUsed(int slot) {
+            return genres[slot] != null;
+        }
+
+        long id(int slot) {
+            return ids[slot];
+        }
+
+        Set<Long> bookIds() {
+            return slots.keySet();
+        }
+
+        int slotOf(Long bookId) {
+            return slots.getOrDefault(bookId, -1);
+        }
+
+        List<Long> booksOfAuthor(Long authorId) {
+            BitSet books = byAuthor.get(authorId);
+            List<Long> result = new ArrayList<>();
+            if (books != null) {
+                books.stream().forEach(slot -> result.add(ids[slot]));
+            }
+            return result;
+        }
+
+        int put(Features book) {
+            Integer slot = free.poll();
+            if (slot == null) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    authors = Arrays.copyOf(authors, size * 2);
+                    genres = Arrays.copyOf(genres, size * 2);
+                }
+                slot = size++;
+            }
+            BitSet bits = new BitSet();
+            for (Long genreId : book.genreIds()) {
+                int bit = genreBits.computeIfAbsent(genreId, id -> genreBits.size());
+                bits.set(bit);
+                byGenre.computeIfAbsent(bit, b -> new BitSet()).set(slot);
+            }
+            ids[slot] = book.bookId();
+            authors[slot] = book.authorId() != null ? book.authorId() : NO_AUTHOR;
+            genres[slot] = bits.toLongArray();
+            if (book.authorId() != null) {
+                byAuthor.computeIfAbsent(book.authorId(), id -> new BitSet()).set(slot);
+            }
+            slots.put(book.bookId(), slot);
+            return slot;
+        }
+
+        void remove(Long bookId) {
+            Integer slot = slots.remove(bookId);
+            if (slot == null) {
+                return;
+            }
+            BitSet bits = BitSet.valueOf(genres[slot]);
+            for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+                byGenre.get(bit).clear(slot);
+            }
+            if (authors[slot] != NO_AUTHOR) {
+                BitSet books = byAuthor.get(authors[slot]);
+                books.clear(slot);
+                if (books.isEmpty()) {
+                    byAuthor.remove(authors[slot]);
+                }
+            }
+            genres[slot] = null;
+            free.push(slot);
+        }
+
+        /**
+         * Слоты книг с общим жанром или автором (включая саму книгу).
+         */
+        BitSet candidates(int slot) {
+            BitSet result = new BitSet(size);
+            BitSet bits = BitSet.valueOf(genres[slot]);
+            for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+                result.or(byGenre.get(bit));
+            }
+            if (authors[slot] != NO_AUTHOR) {
+                result.or(byAuthor.get(authors[slot]));
+            }
+            return result;
+        }
+
+        double score(int a, int b) {
+            long[] x = genres[a];
+            long[] y = genres[b];
+            int common = 0;
+            int all = 0;
+            for (int i = 0; i < Math.max(x.length, y.length); i++) {
+                long wx = i < x.length ? x[i] : 0;
+                long wy = i < y.length ? y[i] : 0;
+                common += Long.bitCount(wx & wy);
+                all += Long.bitCount(wx | wy);
+            }
+            double jaccard = all == 0 ? 0 : (double) common / all;
+            return authors[a] != NO_AUTHOR && authors[a] == authors[b] ? jaccard + authorBoost : jaccard;
+        }
+
+        Neighbor[] topK(int slot) {
+            Neighbor[] top = new Neighbor[k];
+            int count = 0;
+            long self = ids[slot];
+            BitSet candidates = candidates(slot);
+            for (int other = candidates.nextSetBit(0); other >= 0; other = candidates.nextSetBit(other + 1)) {
+                if (other != slot) {
+                    count = insert(top, count, self, ids[other], score(slot, other));
+                }
+            }
+            return Arrays.copyOf(top, count);
+        }
+
+        /**
+         * Предлагает книгу в готовый список соседей.
+         *
+         * @return новый список или тот же, если книга в него не входит
+         */
+        Neighbor[] offer(Neighbor[] list, long self, long bookId, double score) {
+            Neighbor[] top = Arrays.copyOf(list, k);
+            int count = insert(top, list.length, self, bookId, score);
+            return count == list.length && (count == 0 || top[count - 1] == list[count - 1])
+                    ? list : Arrays.copyOf(top, count);
+        }
+
+        private static int insert(Neighbor[] top, int count, long self, long id, double score) {
+            if (score <= 0 || count == top.length && !better(self, id, score, top[count - 1])) {
+                return count;
+            }
+            int position = count < top.length ? count : count - 1;
+            while (position > 0 && better(self, id, score, top[position - 1])) {
+                top[position] = top[position - 1];
+                position--;
+            }
+            top[position] = new Neighbor(id, score);
+            return Math.min(count + 1, top.length);
+        }
+
+        private static boolean better(long self, long id, double score, Neighbor than) {
+            if (score != than.score()) {
+                return score > than.score();
+            }
+            long distance = Math.abs(id - self);
+            long thanDistance = Math.abs(than.id() - self);
+            return distance != thanDistance ? distance < thanDistance : id < than.id();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.ikm.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Двоичный снимок каталога, отображаемый в память ({@link FileChannel#map}).
+ *
+ * <p>Формат файла: заголовок, таблицы записей фиксированной длины (жанры, авторы, книги),
+ * битовые множества жанров книг и таблица строк в UTF-8. Записи ссылаются на строки смещением
+ * и длиной, бит i множества жанров книги означает i-й жанр таблицы жанров. Поля читаются прямо
+ * из отображенного файла по номеру записи, без разбора всего файла.</p>
+ *
+ * <pre>
+ * заголовок (64 байта): magic, версия формата, seq журнала изменений, время снимка,
+ *     количество жанров, авторов и книг, длина множества жанров (в long),
+ *     смещения таблиц жанров, авторов, книг, множеств и строк, CRC32 содержимого
+ * жанр (16 байт): id, смещение и длина названия
+ * автор (24 байта): id, смещение и длина имени, смещение и длина фамилии
+ * книга (24 байта): id, id автора (0 - нет), смещение и длина названия
+ * </pre>
+ *
+ * <p>Снимок неизменяем; файл заменяется целиком атомарным переименованием.</p>
+ */
+public final class CatalogSnapshot {
+    private static final int MAGIC = 0x494B4D53; // "IKMS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int GENRE_SIZE = 16;
+    private static final int AUTHOR_SIZE = 24;
+    private static final int BOOK_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final long seq;
+    private final Instant createdAt;
+    private final int genreCount;
+    private final int authorCount;
+    private final int bookCount;
+    private final int genreWords;
+    private final int genresOffset;
+    private final int authorsOffset;
+    private final int booksOffset;
+    private final int bitsetsOffset;
+    private final int stringsOffset;
+
+    private CatalogSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Файл не является снимком каталога");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("Неподдерживаемая версия снимка: " + buffer.getInt(4));
+        }
+        this.seq = buffer.getLong(8);
+        this.createdAt = Instant.ofEpochMilli(buffer.getLong(16));
+        this.genreCount = buffer.getInt(24);
+        this.authorCount = buffer.getInt(28);
+        this.bookCount = buffer.getInt(32);
+        this.genreWords = buffer.getInt(36);
+        this.genresOffset = buffer.getInt(40);
+        this.authorsOffset = buffer.getInt(44);
+        this.booksOffset = buffer.getInt(48);
+        this.bitsetsOffset = buffer.getInt(52);
+        this.stringsOffset = buffer.getInt(56);
+        if (checksum(buffer) != buffer.getInt(60)) {
+            throw new IllegalStateException("Снимок каталога поврежден");
+        }
+    }
+
+    /**
+     * Отображает файл снимка в память и проверяет заголовок и контрольную сумму.
+     *
+     * @param path путь к файлу
+     * @return снимок, читающий поля из отображенного файла
+     * @throws IOException если файл не удалось прочитать
+     * @throws IllegalStateException если файл не является снимком этой версии или поврежден
+     */
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // отображение остается действительным после закрытия канала
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CatalogSnapshot(mapped);
+        }
+    }
+
+    /**
+     * Записывает снимок во временный файл и атомарно заменяет им файл {@code path}.
+     *
+     * @param path путь к файлу снимка
+     * @param seq номер последней записи журнала изменений, учтенной в снимке
+     * @param genres жанры
+     * @param authors авторы
+     * @param books книги
+     * @throws IOException если файл не удалось записать
+     */
+    public static void write(Path path, long seq, List<Genre> genres, List<Author> authors, List<Book> books)
+            throws IOException {
+        Map<Long, Integer> genreBits = new HashMap<>();
+        for (int i = 0; i < genres.size(); i++) {
+            genreBits.put(genres.get(i).id(), i);
+        }
+        int genreWords = (genres.size() + 63) / 64;
+        int genresOffset = HEADER_SIZE;
+        int authorsOffset = genresOffset + genres.size() * GENRE_SIZE;
+        int booksOffset = authorsOffset + authors.size() * AUTHOR_SIZE;
+        int bitsetsOffset = booksOffset + books.size() * BOOK_SIZE;
+        int stringsOffset = bitsetsOffset + books.size() * genreWords * Long.BYTES;
+
+        ByteBuffer records = ByteBuffer.allocate(stringsOffset);
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        records.position(genresOffset);
+        for (Genre genre : genres) {
+            records.putLong(genre.id());
+            putString(records, strings, genre.name());
+        }
+        for (Author author : authors) {
+            records.putLong(author.id());
+            putString(records, strings, author.firstName());
+            putString(records, strings, author.lastName());
+        }
+        for (Book book : books) {
+            records.putLong(book.id());
+            records.putLong(book.authorId() != null ? book.authorId() : 0);
+            putString(records, strings, book.title());
+        }
+        for (Book book : books) {
+            long[] words = new long[genreWords];
+            for (Long genreId : book.genreIds()) {
+                Integer bit = genreBits.get(genreId);
+                if (bit != null) {
+                    words[bit >>> 6] |= 1L << bit;
+                }
+            }
+            for (long word : words) {
+                records.putLong(word);
+            }
+        }
+
+        ByteBuffer file = ByteBuffer.allocate(stringsOffset + strings.size());
+        file.put(records.array(), 0, stringsOffset);
+        file.put(strings.toByteArray());
+        file.putInt(0, MAGIC)
+                .putInt(4, FORMAT_VERSION)
+                .putLong(8, seq)
+                .putLong(16, System.currentTimeMillis())
+                .putInt(24, genres.size())
+                .putInt(28, authors.size())
+                .putInt(32, books.size())
+                .putInt(36, genreWords)
+                .putInt(40, genresOffset)
+                .putInt(44, authorsOffset)
+                .putInt(48, booksOffset)
+                .putInt(52, bitsetsOffset)
+                .putInt(56, stringsOffset);
+        file.putInt(60, checksum(file));
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                file.flip();
+                while (file.hasRemaining()) {
+                    channel.write(file);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return номер последней записи журнала изменений, учтенной в снимке
+     */
+    public long seq() { return seq; }
+
+    public Instant createdAt() { return createdAt; }
+
+    public int genreCount() { return genreCount; }
+
+    public int authorCount() { return authorCount; }
+
+    public int bookCount() { return bookCount; }
+
+    public long genreId(int index) { return buffer.getLong(genresOffset + index * GENRE_SIZE); }
+
+    public String genreName(int index) { return string(genresOffset + index * GENRE_SIZE + 8); }
+
+    public long authorId(int index) { return buffer.getLong(authorsOffset + index * AUTHOR_SIZE); }
+
+    public String authorFirstName(int index) { return string(authorsOffset + index * AUTHOR_SIZE + 8); }
+
+    public String authorLastName(int index) { return string(authorsOffset + index * AUTHOR_SIZE + 16); }
+
+    public long bookId(int index) { return buffer.getLong(booksOffset + index * BOOK_SIZE); }
+
+    /**
+     * @return идентификатор автора книги или null, если автора нет
+     */
+    public Long bookAuthorId(int index) {
+        long authorId = buffer.getLong(booksOffset + index * BOOK_SIZE + 8);
+        return authorId != 0 ? authorId : null;
+    }
+
+    public String bookTitle(int index) { return string(booksOffset + index * BOOK_SIZE + 16); }
+
+    /**
+     * @return идентификаторы жанров книги
+     */
+    public Set<Long> bookGenreIds(int index) {
+        Set<Long> genreIds = new LinkedHashSet<>();
+        int offset = bitsetsOffset + index * genreWords * Long.BYTES;
+        for (int w = 0; w < genreWords; w++) {
+            long word = buffer.getLong(offset + w * Long.BYTES);
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                genreIds.add(genreId(w * 64 + bit));
+                word &= word - 1;
+            }
+        }
+        return genreIds;
+    }
+
+    private String string(int reference) {
+        int offset = buffer.getInt(reference);
+        int length = buffer.getInt(reference + 4);
+        byte[] bytes = new byte[length];
+        buffer.get(stringsOffset + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer records, ByteArrayOutputStream strings, String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        records.putInt(strings.size());
+        records.putInt(bytes.length);
+        strings.writeBytes(bytes);
+    }
+
+    /**
+     * CRC32 всего файла, кроме заголовка.
+     */
+    private static int checksum(ByteBuffer file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.slice(HEADER_SIZE, file.limit() - HEADER_SIZE));
+        return (int) crc.getValue();
+    }
+
+    public record Genre(long id, String name) {
+    }
+
+    public record Author(long id, String firstName, String lastName) {
+    }
+
+    public record Book(long id, Long authorId, String title, Set<Long> genreIds) {
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.ikm.snapshot;
+
+import com.example.ikm.config.ReplicaRoutingContext;
+import com.example.ikm.repositories.AuthorsRepository;
+import com.example.ikm.repositories.BooksRepository;
+import com.example.ikm.repositories.GenresRepository;
+import com.example.ikm.service.CatalogChangedEvent;
+import com.example.ikm.service.ChangeFeed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Снимки каталога для быстрого запуска: периодически записывает {@link CatalogSnapshot}
+ * и при запуске отдает индексам в памяти отображенный снимок вместе с изменениями,
+ * зафиксированными после него (по журналу {@link ChangeFeed}).
+ *
+ * <p>Номер журнала читается до чтения каталога, поэтому снимок содержит все изменения
+ * до этого номера и, возможно, часть более поздних; повторное применение изменения
+ * к индексам безопасно. Оба чтения выполняются в основной БД: реплики отстают по-разному,
+ * и каталог, прочитанный с другой реплики, мог бы не содержать изменений до номера.
+ * Если снимка нет, он поврежден, журнал после него уже очищен или изменений больше
+ * ikm.snapshot.max-replay, индексы строятся из БД.</p>
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Component - регистрирует компонент как бин Spring</li>
+ *   <li>@Scheduled - периодическая запись снимка</li>
+ *   <li>@EventListener(ApplicationReadyEvent) - после запуска снимок больше не удерживается</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class CatalogSnapshots {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshots.class);
+
+    private final BooksRepository bookRepository;
+    private final AuthorsRepository authorRepository;
+    private final GenresRepository genreRepository;
+    private final ChangeFeed changeFeed;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+    private final Path path;
+    private final int maxReplay;
+    private Startup startup;
+    private boolean startupLoaded;
+    private volatile long writtenSeq = -1;
+
+    /**
+     * Конструктор с внедрением зависимостей.
+     *
+     * @param bookRepository репозиторий книг
+     * @param authorRepository репозиторий авторов
+     * @param genreRepository репозиторий жанров
+     * @param changeFeed журнал изменений каталога
+     * @param transactionManager менеджер транзакций для чтения каталога
+     * @param enabled использовать ли снимки
+     * @param path путь к файлу снимка
+     * @param maxReplay наибольшее количество изменений, догружаемых после снимка
+     */
+    @Autowired
+    public CatalogSnapshots(BooksRepository bookRepository,
+                            AuthorsRepository authorRepository,
+                            GenresRepository genreRepository,
+                            ChangeFeed changeFeed,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${ikm.snapshot.enabled:true}") boolean enabled,
+                            @Value("${ikm.snapshot.path:data/catalog.snapshot}") Path path,
+                            @Value("${ikm.snapshot.max-replay:10000}") int maxReplay) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.genreRepository = genreRepository;
+        this.changeFeed = changeFeed;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.path = path;
+        this.maxReplay = maxReplay;
+    }
+
+    /**
+     * Возвращает снимок для построения индексов при запуске. Файл отображается один раз
+     * и используется всеми индексами до готовности приложения.
+     *
+     * @return снимок с изменениями после него или пустой Optional, если индексы строятся из БД
+     */
+    public synchronized Optional<Startup> forStartup() {
+        if (!startupLoaded) {
+            startupLoaded = true;
+            startup = openForStartup();
+        }
+        return Optional.ofNullable(startup);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void releaseStartup() {
+        startup = null;
+    }
+
+    /**
+     * Записывает снимок, если каталог изменился после предыдущей записи.
+     */
+    @Scheduled(fixedDelayString = "${ikm.snapshot.interval:10m}", initialDelayString = "${ikm.snapshot.initial-delay:1m}")
+    public void writeIfChanged() {
+        if (!enabled) {
+            return;
+        }
+        // поток планировщика общий с другими задачами: закрепление снимается после записи
+        ReplicaRoutingContext.pinToPrimary();
+        try {
+            long seq = changeFeed.lastSeq();
+            if (seq != writtenSeq) {
+                write(seq);
+                writtenSeq = seq;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Снимок каталога не записан", e);
+        } finally {
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    private Startup openForStartup() {
+        if (!enabled || !Files.exists(path)) {
+            return null;
+        }
+        try {
+            CatalogSnapshot snapshot = CatalogSnapshot.open(path);
+            Optional<List<CatalogChangedEvent>> changes = changeFeed.eventsAfter(snapshot.seq(), maxReplay);
+            if (changes.isEmpty()) {
+                log.info("Снимок каталога {} устарел, индексы строятся из БД", path);
+                return null;
+            }
+            log.info("Снимок каталога {} от {}: {} книг, изменений после снимка: {}",
+                    path, snapshot.createdAt(), snapshot.bookCount(), changes.get().size());
+            writtenSeq = snapshot.seq();
+            return new Startup(snapshot, changes.get());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Снимок каталога {} не прочитан, индексы строятся из БД", path, e);
+            return null;
+        }
+    }
+
+    private void write(long seq) throws IOException {
+        long started = System.nanoTime();
+        List<CatalogSnapshot.Genre> genres = new ArrayList<>();
+        List<CatalogSnapshot.Author> authors = new ArrayList<>();
+        Map<Long, CatalogSnapshot.Book> books = new LinkedHashMap<>();
+        readTransaction.executeWithoutResult(status -> {
+            genreRepository.findAll().forEach(genre -> genres.add(new CatalogSnapshot.Genre(genre.getId(), genre.getName())));
+            try (Stream<AuthorsRepository.NameRow> rows = authorRepository.streamNames()) {
+                rows.forEach(row -> authors.add(new CatalogSnapshot.Author(row.getId(), row.getFirstName(), row.getLastName())));
+            }
+            try (Stream<BooksRepository.TitleRow> rows = bookRepository.streamTitles()) {
+                rows.forEach(row -> books.put(row.getId(), new CatalogSnapshot.Book(row.getId(), row.getAuthorId(),
+                        row.getTitle(), new LinkedHashSet<>())));
+            }
+            for (BooksRepository.SimilarityRow row : bookRepository.findSimilarityRows()) {
+                CatalogSnapshot.Book book = books.get(row.getBookId());
+                if (book != null && row.getGenreId() != null) {
+                    book.genreIds().add(row.getGenreId());
+                }
+            }
+        });
+        CatalogSnapshot.write(path, seq, genres, authors, new ArrayList<>(books.values()));
+        log.info("Снимок каталога {} записан за {} мс: {} книг, seq {}",
+                path, (System.nanoTime() - started) / 1_000_000, books.size(), seq);
+    }
+
+    /**
+     * Снимок и изменения каталога после него.
+     *
+     * @param snapshot отображенный снимок
+     * @param changes изменения, зафиксированные после снимка, в порядке фиксации
+     */
+    public record Startup(CatalogSnapshot snapshot, List<CatalogChangedEvent> changes) {
+    }
+}
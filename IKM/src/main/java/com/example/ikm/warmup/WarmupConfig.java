@@ -0,0 +1,39 @@
+package com.example.ikm.warmup;
+
+import com.example.ikm.service.AuthorsService;
+import com.example.ikm.service.BookSearchCache;
+import com.example.ikm.service.BooksService;
+import com.example.ikm.service.GenresService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация прогрева приложения перед тем, как узел сообщит о готовности.
+ * Отключается свойством ikm.warmup.enabled=false.
+ *
+ * <p>Аннотации:
+ * <ul>
+ *   <li>@Configuration - класс содержит определения бинов</li>
+ *   <li>@ConditionalOnProperty - прогрев включен, если не отключен явно</li>
+ *   <li>@EnableConfigurationProperties - регистрирует настройки прогрева</li>
+ * </ul>
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ikm.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(WarmupProperties.class)
+public class WarmupConfig {
+
+    @Bean
+    public WarmupRunner warmupRunner(WarmupProperties properties, BooksService booksService,
+                                     AuthorsService authorsService, GenresService genresService,
+                                     BookSearchCache searchCache, ApplicationContext context,
+                                     MeterRegistry meterRegistry) {
+        return new WarmupRunner(properties, booksService, authorsService, genresService, searchCache,
+                context, meterRegistry);
+    }
+}
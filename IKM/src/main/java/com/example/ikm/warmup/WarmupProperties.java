@@ -0,0 +1,86 @@
+package com.example.ikm.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки прогрева приложения после запуска.
+ *
+ * <p>Пример:
+ * <pre>
+ * ikm.warmup.max-rounds=100
+ * ikm.warmup.convergence-tolerance=0.15
+ * ikm.warmup.pages=/books/view/{bookId},/authors/view/{authorId}
+ * </pre>
+ * </p>
+ */
+@ConfigurationProperties("ikm.warmup")
+public class WarmupProperties {
+    /**
+     * Включает прогрев: до его окончания проба готовности (readiness) сообщает REFUSING_TRAFFIC.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Количество книг из каталога, на которых строятся синтетические запросы одного раунда.
+     */
+    private int sampleSize = 20;
+
+    /**
+     * Минимальное количество раундов прогрева.
+     */
+    private int minRounds = 5;
+
+    /**
+     * Максимальное количество раундов, если время раунда так и не стабилизировалось.
+     */
+    private int maxRounds = 100;
+
+    /**
+     * Количество последних раундов, по которым проверяется стабилизация времени раунда.
+     */
+    private int convergenceWindow = 5;
+
+    /**
+     * Допустимый разброс времени раунда в окне (доля от медианы), при котором прогрев завершается.
+     */
+    private double convergenceTolerance = 0.15;
+
+    /**
+     * Предельная длительность прогрева.
+     */
+    private Duration timeout = Duration.ofSeconds(60);
+
+    /**
+     * Страницы, запрашиваемые через HTTP для прогрева шаблонов. Подстановки:
+     * {bookId}, {authorId}, {year}.
+     */
+    private List<String> pages = new ArrayList<>(List.of("/books/view/{bookId}", "/authors/view/{authorId}"));
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getSampleSize() { return sampleSize; }
+    public void setSampleSize(int sampleSize) { this.sampleSize = sampleSize; }
+
+    public int getMinRounds() { return minRounds; }
+    public void setMinRounds(int minRounds) { this.minRounds = minRounds; }
+
+    public int getMaxRounds() { return maxRounds; }
+    public void setMaxRounds(int maxRounds) { this.maxRounds = maxRounds; }
+
+    public int getConvergenceWindow() { return convergenceWindow; }
+    public void setConvergenceWindow(int convergenceWindow) { this.convergenceWindow = convergenceWindow; }
+
+    public double getConvergenceTolerance() { return convergenceTolerance; }
+    public void setConvergenceTolerance(double convergenceTolerance) { this.convergenceTolerance = convergenceTolerance; }
+
+    public Duration getTimeout() { return timeout; }
+    public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+    public List<String> getPages() { return pages; }
+    public void setPages(List<String> pages) { this.pages = pages; }
+}
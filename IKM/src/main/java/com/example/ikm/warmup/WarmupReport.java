@@ -0,0 +1,25 @@
+package com.example.ikm.warmup;
+
+import java.time.Duration;
+
+/**
+ * Итог прогрева.
+ *
+ * @param rounds выполнено раундов
+ * @param duration общая длительность прогрева
+ * @param firstRound время первого (холодного) раунда
+ * @param lastRound время последнего раунда
+ * @param converged время раунда стабилизировалось до исчерпания раундов или времени
+ */
+public record WarmupReport(int rounds, Duration duration, Duration firstRound, Duration lastRound,
+                           boolean converged) {
+
+    static final WarmupReport NONE = new WarmupReport(0, Duration.ZERO, Duration.ZERO, Duration.ZERO, false);
+
+    /**
+     * @return во сколько раз последний раунд быстрее первого
+     */
+    public double speedup() {
+        return lastRound.isZero() ? 1.0 : (double) firstRound.toNanos() / lastRound.toNanos();
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.ikm.warmup;
+
+import com.example.ikm.entity.Books;
+import com.example.ikm.entity.Genres;
+import com.example.ikm.service.AuthorsService;
+import com.example.ikm.service.BookSearchCache;
+import com.example.ikm.service.BooksService;
+import com.example.ikm.service.GenresService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогрев приложения после запуска: синтетические запросы через сервисы книг, авторов и жанров
+ * и запросы страниц через HTTP (шаблоны Thymeleaf), пока время раунда не стабилизируется.
+ *
+ * <p>Spring Boot переводит пробу готовности в ACCEPTING_TRAFFIC только после выполнения всех
+ * {@link ApplicationRunner}, поэтому балансировщик не направляет запросы на узел,
+ * пока JIT-компиляция, кэши планов Hibernate и шаблонов не прогреты.</p>
+ *
+ * <p>Раунд - проход по выборке книг из каталога: чтение книги, все виды поиска книг
+ * (кэш результатов поиска перед раундом очищается), поиск автора и жанра, страницы из
+ * ikm.warmup.pages. Прогрев завершается, когда разброс времени последних раундов
+ * не превышает ikm.warmup.convergence-tolerance, либо по исчерпании раундов или времени.
+ * Итог записывается в журнал и в метрики ikm.warmup.*.</p>
+ */
+public class WarmupRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+    private static final Duration PAGE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final WarmupProperties properties;
+    private final BooksService booksService;
+    private final AuthorsService authorsService;
+    private final GenresService genresService;
+    private final BookSearchCache searchCache;
+    private final ApplicationContext context;
+    private volatile WarmupReport report = WarmupReport.NONE;
+
+    public WarmupRunner(WarmupProperties properties, BooksService booksService, AuthorsService authorsService,
+                        GenresService genresService, BookSearchCache searchCache, ApplicationContext context,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.booksService = booksService;
+        this.authorsService = authorsService;
+        this.genresService = genresService;
+        this.searchCache = searchCache;
+        this.context = context;
+        TimeGauge.builder("ikm.warmup.duration", this, TimeUnit.NANOSECONDS, r -> r.report.duration().toNanos())
+                .description("Длительность прогрева после запуска").register(meterRegistry);
+        TimeGauge.builder("ikm.warmup.round.first", this, TimeUnit.NANOSECONDS, r -> r.report.firstRound().toNanos())
+                .description("Время первого раунда прогрева").register(meterRegistry);
+        TimeGauge.builder("ikm.warmup.round.last", this, TimeUnit.NANOSECONDS, r -> r.report.lastRound().toNanos())
+                .description("Время последнего раунда прогрева").register(meterRegistry);
+        Gauge.builder("ikm.warmup.rounds", this, r -> r.report.rounds())
+                .description("Выполнено раундов прогрева").register(meterRegistry);
+        Gauge.builder("ikm.warmup.converged", this, r -> r.report.converged() ? 1 : 0)
+                .description("Время раунда стабилизировалось (1) или прогрев прерван по лимиту (0)")
+                .register(meterRegistry);
+    }
+
+    public WarmupReport getReport() {
+        return report;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long deadline = started + properties.getTimeout().toNanos();
+        try {
+            List<Sample> samples = samples();
+            List<Page> pages = pages(samples);
+            List<Long> roundTimes = new ArrayList<>();
+            boolean converged = false;
+            while (roundTimes.size() < properties.getMaxRounds() && System.nanoTime() < deadline) {
+                long roundStart = System.nanoTime();
+                round(samples, pages);
+                roundTimes.add(System.nanoTime() - roundStart);
+                if (roundTimes.size() >= properties.getMinRounds()
+                        && isConverged(roundTimes, properties.getConvergenceWindow(),
+                        properties.getConvergenceTolerance())) {
+                    converged = true;
+                    break;
+                }
+            }
+            report = new WarmupReport(roundTimes.size(), Duration.ofNanos(System.nanoTime() - started),
+                    Duration.ofNanos(roundTimes.isEmpty() ? 0 : roundTimes.get(0)),
+                    Duration.ofNanos(roundTimes.isEmpty() ? 0 : roundTimes.get(roundTimes.size() - 1)),
+                    converged);
+            log.info("Прогрев завершен за {} мс: {} раундов, первый раунд {} мс, последний {} мс (x{}), {}",
+                    report.duration().toMillis(), report.rounds(), report.firstRound().toMillis(),
+                    report.lastRound().toMillis(), String.format("%.1f", report.speedup()),
+                    converged ? "время раунда стабилизировалось" : "прерван по лимиту раундов или времени");
+        } catch (RuntimeException e) {
+            // недогретый узел лучше, чем узел, который не стал готовым
+            report = new WarmupReport(0, Duration.ofNanos(System.nanoTime() - started),
+                    Duration.ZERO, Duration.ZERO, false);
+            log.warn("Прогрев прерван ошибкой, узел принимает запросы без прогрева", e);
+        } finally {
+            searchCache.clear();
+        }
+    }
+
+    /**
+     * Проверяет, что разброс времени последних {@code window} раундов не больше
+     * {@code tolerance} от их медианы.
+     */
+    static boolean isConverged(List<Long> roundTimes, int window, double tolerance) {
+        if (roundTimes.size() < window) {
+            return false;
+        }
+        List<Long> last = new ArrayList<>(roundTimes.subList(roundTimes.size() - window, roundTimes.size()));
+        last.sort(null);
+        long median = last.get(last.size() / 2);
+        return median > 0 && (double) (last.get(last.size() - 1) - last.get(0)) / median <= tolerance;
+    }
+
+    private void round(List<Sample> samples, List<Page> pages) {
+        searchCache.clear();
+        for (Sample sample : samples) {
+            booksService.getBookById(sample.bookId());
+            booksService.searchBooks("title", sample.title(), null, null);
+            booksService.searchBooks("author", sample.firstName(), null, null);
+            booksService.searchBooks("year", Integer.toString(sample.year()), null, null);
+            booksService.searchBooks("feedback", sample.title(), null, null);
+            booksService.searchBooks(null, null, sample.authorId(), null);
+            if (sample.genreId() != null) {
+                booksService.searchBooks(null, null, null, sample.genreId());
+            }
+            authorsService.getAuthorById(sample.authorId());
+            authorsService.searchAuthors("lastName", sample.lastName());
+            authorsService.searchAuthors("fullName", sample.firstName());
+            genresService.searchGenres(sample.genreName());
+        }
+        genresService.getAllGenres();
+        for (Page page : pages) {
+            page.fetch();
+        }
+    }
+
+    private List<Sample> samples() {
+        List<Sample> samples = new ArrayList<>();
+        Set<Long> authors = new HashSet<>();
+        for (Long id : booksService.getBookIds(properties.getSampleSize())) {
+            // по одной книге на автора: поиск по автору может возвращать тысячи книг
+            booksService.getBookById(id)
+                    .filter(book -> book.getAuthor() != null && authors.add(book.getAuthor().getId()))
+                    .ifPresent(book -> samples.add(Sample.of(book)));
+        }
+        if (samples.isEmpty()) {
+            // пустой каталог: запросы все равно прогревают код, хотя ничего не находят
+            samples.add(new Sample(0L, "а", "а", "а", 0L, 2000, null, "а"));
+        }
+        return samples;
+    }
+
+    private List<Page> pages(List<Sample> samples) {
+        if (!(context instanceof WebServerApplicationContext web) || web.getWebServer() == null
+                || web.getWebServer().getPort() <= 0 || samples.get(0).bookId() == 0L) {
+            return List.of();
+        }
+        HttpClient client = HttpClient.newBuilder().connectTimeout(PAGE_TIMEOUT).build();
+        String base = "http://localhost:" + web.getWebServer().getPort();
+        List<Page> pages = new ArrayList<>();
+        for (String template : properties.getPages()) {
+            Set<String> paths = new HashSet<>();
+            for (Sample sample : samples) {
+                paths.add(template.replace("{bookId}", sample.bookId().toString())
+                        .replace("{authorId}", sample.authorId().toString())
+                        .replace("{year}", Integer.toString(sample.year())));
+            }
+            paths.forEach(path -> pages.add(new Page(client, URI.create(base + path))));
+        }
+        return pages;
+    }
+
+    /**
+     * Данные одной книги, из которых строятся запросы раунда.
+     */
+    private record Sample(Long bookId, String title, String firstName, String lastName, Long authorId,
+                          int year, Long genreId, String genreName) {
+
+        static Sample of(Books book) {
+            String title = book.getTitle().trim();
+            Optional<Genres> genre = book.getGenres() != null
+                    ? book.getGenres().stream().findFirst() : Optional.empty();
+            return new Sample(book.getId(), title, book.getAuthor().getFirstName(), book.getAuthor().getLastName(),
+                    book.getAuthor().getId(), book.getPublishYear() != null ? book.getPublishYear() : 2000,
+                    genre.map(Genres::getId).orElse(null), genre.map(Genres::getName).orElse(title));
+        }
+    }
+
+    /**
+     * Страница, запрашиваемая через HTTP. Страница, отвечающая ошибкой
+     * (например, 429 от ограничителя запросов), в следующих раундах пропускается.
+     */
+    private static final class Page {
+        private final HttpClient client;
+        private final URI uri;
+        private boolean failed;
+
+        private Page(HttpClient client, URI uri) {
+            this.client = client;
+            this.uri = uri;
+        }
+
+        void fetch() {
+            if (failed) {
+                return;
+            }
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(PAGE_TIMEOUT).GET().build();
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status >= 400) {
+                    failed = true;
+                    log.debug("Страница {} исключена из прогрева: статус {}", uri, status);
+                }
+            } catch (IOException e) {
+                failed = true;
+                log.debug("Страница {} исключена из прогрева: {}", uri, e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed = true;
+            }
+        }
+    }
+}
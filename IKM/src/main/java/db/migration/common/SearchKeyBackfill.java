@@ -0,0 +1,103 @@
+package db.migration.common;
+
+import com.example.ikm.entity.SearchKeys;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Записывает ключи поиска (см. {@link SearchKeys}) в строки книг, жанров и авторов.
+ * Транслитерация выполняется в Java, поэтому миграции ключей не SQL-скрипты:
+ * одна и та же функция вычисляет ключи и здесь, и при сохранении сущностей.
+ * Обновляются только строки, ключи которых отличаются от вычисленных.
+ */
+final class SearchKeyBackfill {
+    private static final int BATCH_SIZE = 1000;
+
+    private SearchKeyBackfill() {
+    }
+
+    /**
+     * Пересчитывает ключи.
+     *
+     * @param connection соединение миграции
+     * @param missingOnly только строки без ключей
+     */
+    static void run(Connection connection, boolean missingOnly) throws SQLException {
+        backfill(connection, "SELECT id, title, title_key FROM books"
+                        + (missingOnly ? " WHERE title_key IS NULL" : ""),
+                "UPDATE books SET title_key = ? WHERE id = ?",
+                (row, update) -> bind(update, 1, row.getString("title_key"), SearchKeys.of(row.getString("title"))));
+        backfill(connection, "SELECT id, name, name_key FROM genres"
+                        + (missingOnly ? " WHERE name_key IS NULL" : ""),
+                "UPDATE genres SET name_key = ? WHERE id = ?",
+                (row, update) -> bind(update, 1, row.getString("name_key"), SearchKeys.of(row.getString("name"))));
+        backfill(connection, "SELECT id, first_name, last_name, name_key, last_name_key FROM authors"
+                        + (missingOnly ? " WHERE name_key IS NULL" : ""),
+                "UPDATE authors SET name_key = ?, last_name_key = ? WHERE id = ?",
+                (row, update) -> bind(update, 1, row.getString("name_key"),
+                        SearchKeys.of(row.getString("first_name") + " " + row.getString("last_name")))
+                        | bind(update, 2, row.getString("last_name_key"), SearchKeys.of(row.getString("last_name"))));
+    }
+
+    /**
+     * Пересчитывает ключи имен авторов. Столбец появился в V10, после миграций, вызывающих
+     * {@link #run}, поэтому его ключи пересчитываются отдельно.
+     *
+     * @param connection соединение миграции
+     */
+    static void runFirstNames(Connection connection) throws SQLException {
+        backfill(connection, "SELECT id, first_name, first_name_key FROM authors",
+                "UPDATE authors SET first_name_key = ? WHERE id = ?",
+                (row, update) -> bind(update, 1, row.getString("first_name_key"),
+                        SearchKeys.of(row.getString("first_name"))));
+    }
+
+    private static boolean bind(PreparedStatement update, int parameter, String stored, String key)
+            throws SQLException {
+        update.setString(parameter, key);
+        return !Objects.equals(stored, key);
+    }
+
+    /**
+     * Читает строки и обновляет измененные пакетами; идентификатор строки -
+     * последний параметр запроса обновления.
+     */
+    private static void backfill(Connection connection, String selectSql, String updateSql, KeyBinder binder)
+            throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(selectSql);
+             PreparedStatement update = connection.prepareStatement(updateSql)) {
+            select.setFetchSize(BATCH_SIZE);
+            int idParameter = update.getParameterMetaData().getParameterCount();
+            try (ResultSet rows = select.executeQuery()) {
+                int pending = 0;
+                while (rows.next()) {
+                    if (!binder.bind(rows, update)) {
+                        continue;
+                    }
+                    update.setLong(idParameter, rows.getLong("id"));
+                    update.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    update.executeBatch();
+                }
+            }
+        }
+    }
+
+    private interface KeyBinder {
+        /**
+         * Устанавливает ключи в запрос обновления.
+         *
+         * @return true, если хотя бы один ключ изменился
+         */
+        boolean bind(ResultSet row, PreparedStatement update) throws SQLException;
+    }
+}
@@ -0,0 +1,18 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+
+/**
+ * Заполняет ключи поиска имени автора (см. {@link com.example.ikm.entity.SearchKeys}) у строк,
+ * созданных до появления столбца в V10.
+ */
+public class V11__Backfill_first_name_keys extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        SearchKeyBackfill.runFirstNames(context.getConnection());
+    }
+}
@@ -0,0 +1,18 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+
+/**
+ * Заполняет ключи поиска (см. {@link com.example.ikm.entity.SearchKeys}) у строк, созданных
+ * до появления столбцов в V4.
+ */
+public class V5__Backfill_search_keys extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        SearchKeyBackfill.run(context.getConnection(), true);
+    }
+}
@@ -0,0 +1,20 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.SQLException;
+
+/**
+ * Пересчитывает ключи поиска (см. {@link com.example.ikm.entity.SearchKeys}) всех строк
+ * по текущим правилам свертки. V5 вызывает ту же функцию, но только для строк без ключей:
+ * ключи, записанные ею или приложением по прежним правилам, иначе остались бы старыми
+ * и не находились бы запросами, вычисленными по новым.
+ */
+public class V8__Rekey_search_keys extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        SearchKeyBackfill.run(context.getConnection(), false);
+    }
+}
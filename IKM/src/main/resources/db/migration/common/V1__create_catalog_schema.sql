@@ -0,0 +1,39 @@
+-- Catalog schema: authors, books, genres and the book/genre link table.
+-- IF NOT EXISTS lets databases previously created by ddl-auto=update be adopted
+-- (together with spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS authors (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    first_name VARCHAR(255) NOT NULL,
+    last_name  VARCHAR(255) NOT NULL,
+    birth_year INTEGER CHECK (birth_year >= 1000),
+    version    BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_authors PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS genres (
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name    VARCHAR(255) NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_genres PRIMARY KEY (id),
+    CONSTRAINT uk_genres_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS books (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    title        VARCHAR(255) NOT NULL,
+    publish_year INTEGER NOT NULL CHECK (publish_year >= 1000),
+    feedback     TEXT,
+    author_id    BIGINT NOT NULL,
+    version      BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT pk_books PRIMARY KEY (id),
+    CONSTRAINT fk_books_author FOREIGN KEY (author_id) REFERENCES authors (id)
+);
+
+CREATE TABLE IF NOT EXISTS book_genres (
+    book_id  BIGINT NOT NULL,
+    genre_id BIGINT NOT NULL,
+    CONSTRAINT pk_book_genres PRIMARY KEY (book_id, genre_id),
+    CONSTRAINT fk_book_genres_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT fk_book_genres_genre FOREIGN KEY (genre_id) REFERENCES genres (id)
+);
@@ -0,0 +1,14 @@
+-- Book feedback moves out of books: list and search queries no longer read the long text.
+-- The row is removed together with the book, including bulk deletes of an author's books.
+
+CREATE TABLE book_feedback (
+    book_id  BIGINT NOT NULL,
+    feedback TEXT   NOT NULL,
+    CONSTRAINT pk_book_feedback PRIMARY KEY (book_id),
+    CONSTRAINT fk_book_feedback_book FOREIGN KEY (book_id) REFERENCES books (id) ON DELETE CASCADE
+);
+
+INSERT INTO book_feedback (book_id, feedback)
+SELECT id, feedback FROM books WHERE feedback IS NOT NULL AND CHAR_LENGTH(TRIM(feedback)) > 0;
+
+ALTER TABLE books DROP COLUMN feedback;
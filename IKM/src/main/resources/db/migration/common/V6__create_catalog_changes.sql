@@ -0,0 +1,24 @@
+-- Change log for the change feed (/api/changes): one row per catalog change, written in the
+-- transaction that made the change. seq is taken from a single-row counter updated in the same
+-- transaction, so sequence numbers follow commit order and have no gaps: a consumer that has seen
+-- seq N has seen every change committed before it.
+
+CREATE TABLE catalog_changes (
+    seq        BIGINT      NOT NULL,
+    entity     VARCHAR(16) NOT NULL,
+    entity_id  BIGINT,
+    change     VARCHAR(16) NOT NULL,
+    changed_at TIMESTAMP   NOT NULL,
+    CONSTRAINT pk_catalog_changes PRIMARY KEY (seq)
+);
+
+-- Retention cleanup deletes by age.
+CREATE INDEX idx_catalog_changes_changed_at ON catalog_changes (changed_at);
+
+CREATE TABLE catalog_change_sequence (
+    id       INTEGER NOT NULL,
+    last_seq BIGINT  NOT NULL,
+    CONSTRAINT pk_catalog_change_sequence PRIMARY KEY (id)
+);
+
+INSERT INTO catalog_change_sequence (id, last_seq) VALUES (1, 0);
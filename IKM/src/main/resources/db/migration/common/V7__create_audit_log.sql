@@ -0,0 +1,16 @@
+-- Audit trail of catalog changes (ikm.audit.table-enabled=true); rows are appended in batches
+-- by the audit writer thread, off the request path.
+
+CREATE TABLE audit_log (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    occurred_at TIMESTAMP    NOT NULL,
+    actor       VARCHAR(64)  NOT NULL,
+    endpoint    VARCHAR(255) NOT NULL,
+    entity      VARCHAR(16)  NOT NULL,
+    entity_id   BIGINT,
+    change      VARCHAR(16)  NOT NULL,
+    CONSTRAINT pk_audit_log PRIMARY KEY (id)
+);
+
+-- History of one book, author or genre.
+CREATE INDEX idx_audit_log_entity ON audit_log (entity, entity_id);
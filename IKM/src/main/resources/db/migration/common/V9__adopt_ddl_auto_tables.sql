@@ -0,0 +1,16 @@
+-- Adoption of a database created by ddl-auto=update (spring.flyway.baseline-on-migrate):
+-- CREATE TABLE IF NOT EXISTS in V1 left its existing tables as they were.
+-- ddl-auto created the primary keys, foreign keys, the unique genre name and the year checks (from @Min),
+-- but no optimistic-locking version columns and no NOT NULL on the required columns.
+-- On a database created by V1 these statements change nothing. Rows with NULL in a required column
+-- must be fixed before the upgrade, otherwise the migration fails.
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE genres ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE authors ALTER COLUMN first_name SET NOT NULL;
+ALTER TABLE authors ALTER COLUMN last_name SET NOT NULL;
+ALTER TABLE genres ALTER COLUMN name SET NOT NULL;
+ALTER TABLE books ALTER COLUMN title SET NOT NULL;
+ALTER TABLE books ALTER COLUMN publish_year SET NOT NULL;
+ALTER TABLE books ALTER COLUMN author_id SET NOT NULL;
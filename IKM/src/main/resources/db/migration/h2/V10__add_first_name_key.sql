@@ -0,0 +1,4 @@
+-- Search key of the author's first name (com.example.ikm.entity.SearchKeys), so that the first-name search
+-- finds "Лев" by "Lev" like the last-name and full-name searches. Existing rows are filled by V11.
+
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS first_name_key VARCHAR(1024);
@@ -0,0 +1,14 @@
+-- Indexes for the hot lookup paths.
+-- H2 has no expression indexes, so the case-folded name indexes exist only in the PostgreSQL migration.
+
+-- Books of an author: author page, author deletion, search by author.
+CREATE INDEX IF NOT EXISTS idx_books_author_id ON books (author_id);
+
+-- Search by publication year.
+CREATE INDEX IF NOT EXISTS idx_books_publish_year ON books (publish_year);
+
+-- Books of a genre; the primary key (book_id, genre_id) only serves lookups by book.
+CREATE INDEX IF NOT EXISTS idx_book_genres_genre_book ON book_genres (genre_id, book_id);
+
+-- Author search by birth year and year range.
+CREATE INDEX IF NOT EXISTS idx_authors_birth_year ON authors (birth_year);
@@ -0,0 +1,11 @@
+-- Search keys: canonical Latin form of titles and names (com.example.ikm.entity.SearchKeys),
+-- so that "Толстой" and "Tolstoy" are found by one lookup. Existing rows are filled by V5.
+-- H2 has no trigram indexes: the indexes serve exact lookups, containing search scans the key column.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS title_key VARCHAR(1024);
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS name_key VARCHAR(1024);
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS last_name_key VARCHAR(1024);
+ALTER TABLE genres ADD COLUMN IF NOT EXISTS name_key VARCHAR(1024);
+
+-- Find-or-create of authors when saving a book.
+CREATE INDEX IF NOT EXISTS idx_authors_name_key ON authors (name_key);
@@ -0,0 +1,7 @@
+-- Search key of the author's first name (com.example.ikm.entity.SearchKeys), so that the first-name search
+-- finds "Лев" by "Lev" like the last-name and full-name searches. Existing rows are filled by V11.
+
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS first_name_key VARCHAR(1024);
+
+-- Containing search, as for the other key columns in V4.
+CREATE INDEX IF NOT EXISTS idx_authors_first_name_key_trgm ON authors USING gin (first_name_key gin_trgm_ops);
@@ -0,0 +1,18 @@
+-- Indexes for the hot lookup paths.
+
+-- Books of an author: author page, author deletion, search by author.
+CREATE INDEX IF NOT EXISTS idx_books_author_id ON books (author_id);
+
+-- Search by publication year.
+CREATE INDEX IF NOT EXISTS idx_books_publish_year ON books (publish_year);
+
+-- Books of a genre; the primary key (book_id, genre_id) only serves lookups by book.
+CREATE INDEX IF NOT EXISTS idx_book_genres_genre_book ON book_genres (genre_id, book_id);
+
+-- Author search by birth year and year range.
+CREATE INDEX IF NOT EXISTS idx_authors_birth_year ON authors (birth_year);
+
+-- Case-insensitive exact lookups (Spring Data "IgnoreCase" compiles to upper(column) = upper(?)):
+-- find-or-create of authors and genres when saving a book.
+CREATE INDEX IF NOT EXISTS idx_authors_name_upper ON authors (upper(last_name), upper(first_name));
+CREATE INDEX IF NOT EXISTS idx_genres_name_upper ON genres (upper(name));
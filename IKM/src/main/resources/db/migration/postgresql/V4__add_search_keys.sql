@@ -0,0 +1,19 @@
+-- Search keys: canonical Latin form of titles and names (com.example.ikm.entity.SearchKeys),
+-- so that "Толстой" and "Tolstoy" are found by one lookup. Existing rows are filled by V5.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS title_key VARCHAR(1024);
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS name_key VARCHAR(1024);
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS last_name_key VARCHAR(1024);
+ALTER TABLE genres ADD COLUMN IF NOT EXISTS name_key VARCHAR(1024);
+
+-- Containing search (key LIKE '%...%') is served by trigram indexes instead of a table scan.
+-- pg_trgm is a trusted extension: the database owner can create it without superuser rights.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_books_title_key_trgm ON books USING gin (title_key gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_authors_name_key_trgm ON authors USING gin (name_key gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_authors_last_name_key_trgm ON authors USING gin (last_name_key gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_genres_name_key_trgm ON genres USING gin (name_key gin_trgm_ops);
+
+-- Find-or-create of authors when saving a book.
+CREATE INDEX IF NOT EXISTS idx_authors_name_key ON authors (name_key);
@@ -0,0 +1,68 @@
+package com.example.ikm.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EndpointClassLimiterTests {
+
+    @Test
+    void bucketAllowsBurstThenRefillsAtConfiguredRate() {
+        long start = 0;
+        TokenBucket bucket = new TokenBucket(10, 10, start);
+
+        assertEquals(0, bucket.tryAcquire(5, start));
+        assertEquals(0, bucket.tryAcquire(5, start));
+        long retryAfter = bucket.tryAcquire(5, start);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), retryAfter);
+        assertEquals(0, bucket.tryAcquire(5, start + retryAfter));
+    }
+
+    @Test
+    void expensiveRequestsExhaustClientBucketSooner() {
+        EndpointClassLimiter limiter = limiter(10, 100, 0);
+
+        int cheap = admittedInARow(limiter, "cheap-client", 1);
+        int expensive = admittedInARow(limiter, "expensive-client", 5);
+
+        assertEquals(10, cheap);
+        assertEquals(2, expensive);
+    }
+
+    @Test
+    void fullQueueIsRejectedImmediately() {
+        EndpointClassLimiter limiter = limiter(100, 1, 0);
+
+        assertTrue(limiter.admit("a", 1).admitted());
+        EndpointClassLimiter.Decision second = limiter.admit("b", 1);
+        limiter.release();
+
+        assertEquals(EndpointClassLimiter.Outcome.QUEUE_FULL, second.outcome());
+        assertTrue(limiter.admit("b", 1).admitted());
+    }
+
+    private static int admittedInARow(EndpointClassLimiter limiter, String client, int cost) {
+        int admitted = 0;
+        while (limiter.admit(client, cost).admitted()) {
+            limiter.release();
+            admitted++;
+        }
+        return admitted;
+    }
+
+    private static EndpointClassLimiter limiter(int capacity, int maxConcurrent, int queueCapacity) {
+        AdmissionProperties.EndpointClass settings = new AdmissionProperties.EndpointClass();
+        settings.setCapacity(capacity);
+        settings.setRefillPerSecond(0.001);
+        settings.setMaxConcurrent(maxConcurrent);
+        settings.setQueueCapacity(queueCapacity);
+        settings.setQueueTimeout(Duration.ofMillis(10));
+        return new EndpointClassLimiter("test", settings, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.ikm.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.FlashMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Flash-атрибуты переживают redirect через cookie без создания сессии.
+ */
+class CookieFlashMapManagerTests {
+    private final CookieFlashMapManager manager =
+            new CookieFlashMapManager("test-secret".getBytes(StandardCharsets.UTF_8), 30);
+
+    @Test
+    void flashAttributesSurviveRedirectWithoutSession() {
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/books");
+        MockHttpServletResponse postResponse = new MockHttpServletResponse();
+        FlashMap output = new FlashMap();
+        output.put("successMessage", "Книга успешно добавлена");
+        output.setTargetRequestPath("/books");
+        manager.saveOutputFlashMap(output, post, postResponse);
+
+        Cookie cookie = postResponse.getCookie(CookieFlashMapManager.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertNull(post.getSession(false));
+
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/books");
+        get.setCookies(cookie);
+        MockHttpServletResponse getResponse = new MockHttpServletResponse();
+        FlashMap input = manager.retrieveAndUpdate(get, getResponse);
+
+        assertNotNull(input);
+        assertEquals("Книга успешно добавлена", input.get("successMessage"));
+        assertEquals(0, getResponse.getCookie(CookieFlashMapManager.COOKIE_NAME).getMaxAge());
+        assertNull(get.getSession(false));
+    }
+
+    @Test
+    void tamperedCookieIsIgnored() {
+        FlashMap flashMap = new FlashMap();
+        flashMap.put("errorMessage", "Книга не найдена");
+        flashMap.startExpirationPeriod(30);
+        String value = manager.encode(List.of(flashMap));
+        String forged = new CookieFlashMapManager("other".getBytes(StandardCharsets.UTF_8), 30)
+                .encode(List.of(flashMap));
+
+        assertNotNull(manager.decode(value));
+        assertNull(manager.decode(forged));
+        assertNull(manager.decode("x" + value));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.ikm.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Маршрутизация соединений на двух экземплярах H2: основная БД и реплика
+ * содержат разные строки в таблице marker, поэтому по результату чтения видно,
+ * куда ушел запрос.
+ */
+class ReadWriteRoutingTests {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @BeforeEach
+    void clearContext() {
+        ReplicaRoutingContext.clear();
+    }
+
+    @AfterEach
+    void closePools() {
+        pools.forEach(HikariDataSource::close);
+        ReplicaRoutingContext.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        DataSource routing = routing(new ReplicaPool(List.of(h2("replica-a"))));
+
+        assertEquals("replica-a", readMarker(routing, true));
+        assertFalse(ReplicaRoutingContext.hasWritten());
+
+        assertEquals("primary", readMarker(routing, false));
+        assertTrue(ReplicaRoutingContext.hasWritten());
+    }
+
+    @Test
+    void pinnedClientReadsFromPrimary() {
+        DataSource routing = routing(new ReplicaPool(List.of(h2("replica-a"))));
+
+        ReplicaRoutingContext.pinToPrimary();
+
+        assertEquals("primary", readMarker(routing, true));
+    }
+
+    @Test
+    void replicasAreBalancedRoundRobin() {
+        DataSource routing = routing(new ReplicaPool(List.of(h2("replica-a"), h2("replica-b"))));
+
+        List<String> sources = List.of(readMarker(routing, true), readMarker(routing, true), readMarker(routing, true));
+
+        assertEquals(List.of("replica-a", "replica-b", "replica-a"), sources);
+    }
+
+    @Test
+    void unavailableReplicaIsSkippedUntilHealthCheckRestoresIt() {
+        BrokenDataSource broken = new BrokenDataSource(h2("replica-a"));
+        ReplicaPool pool = new ReplicaPool(List.of(broken));
+        DataSource routing = routing(pool);
+
+        assertEquals("primary", readMarker(routing, true));
+        assertEquals(0, pool.healthyCount());
+
+        broken.available = true;
+        pool.checkHealth();
+
+        assertEquals(1, pool.healthyCount());
+        assertEquals("replica-a", readMarker(routing, true));
+    }
+
+    private DataSource routing(ReplicaPool pool) {
+        DataSourceRoutingConfig config = new DataSourceRoutingConfig(new DataSourceRoutingProperties());
+        return config.dataSource(h2("primary"), pool);
+    }
+
+    private static String readMarker(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT source FROM marker", String.class));
+    }
+
+    private HikariDataSource h2(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPoolName(name);
+        pools.add(dataSource);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS marker (source VARCHAR(32))");
+        jdbc.execute("DELETE FROM marker");
+        jdbc.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static final class BrokenDataSource extends AbstractDataSource {
+        private final DataSource target;
+        private volatile boolean available;
+
+        private BrokenDataSource(DataSource target) {
+            this.target = target;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!available) {
+                throw new SQLException("replica is down");
+            }
+            return target.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ikm.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchKeysTests {
+
+    @Test
+    void cyrillicAndLatinSpellingsShareKey() {
+        assertEquals("tolstoy", SearchKeys.of("Толстой"));
+        assertEquals("tolstoy", SearchKeys.of("Tolstoy"));
+        assertEquals("tolstoy", SearchKeys.of("Tolstoi"));
+        assertEquals(SearchKeys.of("Достоевский"), SearchKeys.of("Dostoyevsky"));
+        assertEquals(SearchKeys.of("Евгений"), SearchKeys.of("Yevgeny"));
+        assertEquals(SearchKeys.of("Чехов"), SearchKeys.of("Chekhov"));
+        assertEquals(SearchKeys.of("Ёлкин"), SearchKeys.of("Елкин"));
+        assertEquals("lev tolstoy", SearchKeys.of("  Лев   ТОЛСТОЙ "));
+        assertNull(SearchKeys.of(null));
+    }
+
+    @Test
+    void prefixQueryMatchesNameEndingInIy() {
+        assertTrue(SearchKeys.of("Горький").contains(SearchKeys.ofQuery("Горьки")));
+        assertTrue(SearchKeys.of("Достоевский").contains(SearchKeys.ofQuery("Достоевски")));
+        assertTrue(SearchKeys.of("Дмитрий").contains(SearchKeys.ofQuery("Дмитри")));
+        assertTrue(SearchKeys.of("Федор Достоевский").contains(SearchKeys.ofQuery("Dostoyevsky")));
+        assertTrue(SearchKeys.of("Лев Толстой").contains(SearchKeys.ofQuery("Лев Tolstoi")));
+        assertTrue(SearchKeys.of("Максим Горький").contains(SearchKeys.ofQuery("Максим Горь")));
+        assertNull(SearchKeys.ofQuery(null));
+    }
+}
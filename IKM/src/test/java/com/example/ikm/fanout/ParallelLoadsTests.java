@@ -0,0 +1,131 @@
+package com.example.ikm.fanout;
+
+import com.example.ikm.monitoring.SqlMonitoringDataSource;
+import com.example.ikm.monitoring.SqlMonitoringProperties;
+import com.example.ikm.monitoring.SqlStatementRecorder;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelLoadsTests {
+    private final FanOutProperties properties = new FanOutProperties();
+    private ParallelLoads parallelLoads;
+
+    @AfterEach
+    void shutdown() throws Exception {
+        MDC.clear();
+        parallelLoads.destroy();
+    }
+
+    @Test
+    void loadsRunInParallelWithRequestContext() {
+        parallelLoads = new ParallelLoads(properties, new NoOpTransactionManager(), new SimpleMeterRegistry());
+        MDC.put("endpoint", "GET /books/search");
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        try (LoadScope loads = parallelLoads.open()) {
+            Future<String> first = loads.fork(() -> awaitOther(bothStarted));
+            Future<String> second = loads.fork(() -> awaitOther(bothStarted));
+
+            assertEquals("GET /books/search", loads.join(first));
+            assertEquals("GET /books/search", loads.join(second));
+        }
+    }
+
+    @Test
+    void missedDeadlineCancelsRemainingLoads() {
+        properties.setDeadline(Duration.ofMillis(200));
+        parallelLoads = new ParallelLoads(properties, new NoOpTransactionManager(), new SimpleMeterRegistry());
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (LoadScope loads = parallelLoads.open()) {
+            Future<Object> slow = loads.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            assertTrue(Deadline.remaining().isPresent());
+            assertThrows(QueryTimeoutException.class, () -> loads.join(slow));
+        }
+        assertTrue(await(interrupted));
+        assertTrue(Deadline.remaining().isEmpty());
+    }
+
+    @Test
+    void searchPastItsTimeoutCancelsRunningStatement() throws Exception {
+        parallelLoads = new ParallelLoads(properties, new NoOpTransactionManager(), new SimpleMeterRegistry());
+        SearchTimeoutProperties timeouts = new SearchTimeoutProperties();
+        timeouts.getBooks().put("feedback", Duration.ofMillis(200));
+        SearchGuard guard = new SearchGuard(timeouts, new SimpleMeterRegistry());
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl("jdbc:h2:mem:search-guard");
+            pool.setUsername("sa");
+            JdbcTemplate jdbc = new JdbcTemplate(new SqlMonitoringDataSource(pool, new SqlStatementRecorder(
+                    new SimpleMeterRegistry(), new SqlMonitoringProperties())));
+            String endless = "SELECT SUM(a.X * b.X) FROM SYSTEM_RANGE(1, 100000) a, SYSTEM_RANGE(1, 100000) b";
+
+            long start = System.nanoTime();
+            try (LoadScope loads = parallelLoads.open()) {
+                Future<Long> search = loads.fork(() ->
+                        guard.run("books.feedback", () -> jdbc.queryForObject(endless, Long.class)));
+                assertThrows(QueryTimeoutException.class, () -> loads.join(search));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+            assertEquals(1, jdbc.queryForObject("SELECT 1", Integer.class));
+        } finally {
+            guard.destroy();
+        }
+    }
+
+    private static String awaitOther(CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        if (!await(bothStarted)) {
+            throw new IllegalStateException("загрузки выполняются последовательно");
+        }
+        return MDC.get("endpoint");
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ikm.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Учет этапов запроса: вложенные вызовы сервисов попадают в разбивку, но не в сумму этапа,
+ * отрезки ограничены, заголовок Server-Timing содержит только учтенные этапы.
+ */
+class RequestTimingTests {
+
+    @AfterEach
+    void tearDown() {
+        RequestTiming.set(null);
+    }
+
+    @Test
+    void nestedServiceCallsAreCountedOnce() {
+        RequestTiming timing = new RequestTiming(10);
+        RequestTiming.set(timing);
+        Catalog inner = proxy(new Catalog(null));
+        Catalog outer = proxy(new Catalog(inner));
+
+        outer.load();
+
+        assertEquals(1, timing.count(RequestTiming.Stage.SERVICE));
+        assertEquals(2, timing.count(RequestTiming.Stage.DB));
+        List<RequestTiming.Span> spans = timing.spans();
+        assertEquals(4, spans.size());
+        assertEquals(2, spans.stream().filter(span -> span.name().equals("Catalog.load")).count());
+        assertTrue(timing.millis(RequestTiming.Stage.SERVICE) >= timing.millis(RequestTiming.Stage.DB) - 0.01);
+    }
+
+    @Test
+    void spansAreCappedAndHeaderListsRecordedStages() {
+        RequestTiming timing = new RequestTiming(2);
+        RequestTiming.set(timing);
+        for (int i = 0; i < 5; i++) {
+            RequestTiming.record(RequestTiming.Stage.DB, "select ?", 1_500_000);
+        }
+        timing.add(RequestTiming.Stage.HANDLER, "BooksController.search", 12_345_678, true);
+
+        assertEquals(2, timing.spans().size());
+        assertEquals(4, timing.droppedSpans());
+        assertEquals("handler;dur=12.35, db;dur=7.50;desc=\"5 queries\"",
+                RequestTimingInterceptor.serverTiming(timing));
+    }
+
+    private static Catalog proxy(Catalog target) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new ServiceTimingInterceptor());
+        return (Catalog) factory.getProxy();
+    }
+
+    static class Catalog {
+        private final Catalog next;
+
+        Catalog(Catalog next) {
+            this.next = next;
+        }
+
+        public void load() {
+            RequestTiming.record(RequestTiming.Stage.DB, "select 1", 1_000);
+            if (next != null) {
+                next.load();
+            }
+        }
+    }
+}
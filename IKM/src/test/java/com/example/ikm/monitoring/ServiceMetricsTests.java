@@ -0,0 +1,79 @@
+package com.example.ikm.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Таймеры вызовов сервисов: теги вида поиска, корзины размера результата и исхода вызова.
+ */
+class ServiceMetricsTests {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void callsAreTaggedBySearchKindResultSizeAndOutcome() {
+        Catalog catalog = proxy(new Catalog());
+
+        catalog.search("feedback", 42);
+        catalog.search("feedback", 42);
+        catalog.search("title", 0);
+        catalog.find();
+        assertThrows(QueryTimeoutException.class, () -> catalog.search("genre", -1));
+
+        assertEquals(2, timer("search", "books.feedback", "11-100", "success").count());
+        assertEquals(1, timer("search", "books.title", "0", "success").count());
+        assertEquals(1, timer("find", ServiceMetrics.NONE, "1", "success").count());
+        assertEquals(1, timer("search", "books.genre", ServiceMetrics.NONE, "timeout").count());
+    }
+
+    @Test
+    void resultSizesFallIntoBuckets() {
+        assertEquals("0", ServiceMetrics.bucket(List.of()));
+        assertEquals("1", ServiceMetrics.bucket(Optional.of(1)));
+        assertEquals("2-10", ServiceMetrics.bucket(List.of(1, 2)));
+        assertEquals("1000+", ServiceMetrics.bucket(Collections.nCopies(1001, 1)));
+        assertEquals(ServiceMetrics.NONE, ServiceMetrics.bucket(42L));
+        assertEquals(ServiceMetrics.NONE, ServiceMetrics.bucket(null));
+    }
+
+    private Timer timer(String method, String search, String results, String outcome) {
+        Timer timer = registry.find(ServiceMetrics.METRIC)
+                .tags("service", "Catalog", "method", method, "search", search, "results", results, "outcome", outcome)
+                .timer();
+        assertNotNull(timer, method + " " + search + " " + results + " " + outcome);
+        return timer;
+    }
+
+    private Catalog proxy(Catalog target) {
+        ServiceMetricsProperties properties = new ServiceMetricsProperties();
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new ServiceMetrics(() -> registry, () -> properties));
+        return (Catalog) factory.getProxy();
+    }
+
+    static class Catalog {
+
+        public List<Integer> search(String type, int found) {
+            ServiceMetrics.tagSearch("books." + type);
+            if (found < 0) {
+                throw new QueryTimeoutException("срок истек");
+            }
+            return Collections.nCopies(found, 1);
+        }
+
+        public Optional<String> find() {
+            return Optional.of("книга");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ikm.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Учет запросов через SqlMonitoringDataSource на H2 в памяти:
+ * время, строки и параметры попадают в recorder, а запросы группируются по нормализованному тексту.
+ */
+class SqlMonitoringDataSourceTests {
+    private final List<Recorded> recorded = new CopyOnWriteArrayList<>();
+    private HikariDataSource pool;
+    private SqlStatementRecorder recorder;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:sql-monitoring;DB_CLOSE_DELAY=-1");
+        pool.setUsername("sa");
+        SqlMonitoringProperties properties = new SqlMonitoringProperties();
+        properties.setSlowThreshold(Duration.ofHours(1));
+        recorder = new SqlStatementRecorder(new SimpleMeterRegistry(), properties) {
+            @Override
+            void record(String sql, Map<Integer, Object> binds, int batchSize, long rows, long elapsedNanos) {
+                recorded.add(new Recorded(sql, binds, rows));
+                super.record(sql, binds, batchSize, rows, elapsedNanos);
+            }
+        };
+        jdbc = new JdbcTemplate(new SqlMonitoringDataSource(pool, recorder));
+        jdbc.execute("CREATE TABLE IF NOT EXISTS item (id INT PRIMARY KEY, name VARCHAR(32))");
+        jdbc.execute("DELETE FROM item");
+        recorded.clear();
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void recordsBindsAndRowCounts() {
+        jdbc.update("INSERT INTO item VALUES (?, ?)", 1, "first");
+        jdbc.update("INSERT INTO item VALUES (?, ?)", 2, "second");
+
+        List<String> names = jdbc.queryForList("SELECT name FROM item WHERE id >= ? ORDER BY id", String.class, 1);
+
+        assertEquals(List.of("first", "second"), names);
+        Recorded insert = recorded.get(0);
+        assertEquals(1, insert.rows());
+        assertEquals(Map.of(1, 1, 2, "first"), insert.binds());
+        Recorded select = recorded.get(2);
+        assertEquals("SELECT name FROM item WHERE id >= ? ORDER BY id", select.sql());
+        assertEquals(2, select.rows());
+    }
+
+    @Test
+    void groupsExecutionsByNormalizedStatement() {
+        jdbc.queryForList("SELECT name FROM item WHERE id IN (?, ?)", String.class, 1, 2);
+        jdbc.queryForList("SELECT name FROM item WHERE id IN (?, ?, ?)", String.class, 1, 2, 3);
+
+        Timer timer = recorder.timers().get("SELECT name FROM item WHERE id IN (?...)");
+        assertEquals(2, timer.count());
+        assertTrue(recorder.timers().keySet().stream().noneMatch(statement -> statement.contains("?, ?")));
+    }
+
+    private record Recorded(String sql, Map<Integer, Object> binds, long rows) {
+    }
+}
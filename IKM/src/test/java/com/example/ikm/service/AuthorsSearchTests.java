@@ -0,0 +1,53 @@
+package com.example.ikm.service;
+
+import com.example.ikm.entity.Authors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Поиск авторов по имени на H2 в памяти: кириллическое и латинское написание совпадают.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:authors-search;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "ikm.snapshot.enabled=false",
+        "ikm.warmup.enabled=false"
+})
+class AuthorsSearchTests {
+
+    @Autowired
+    private AuthorsService authorsService;
+
+    @Test
+    void firstNameSearchMatchesTransliteratedName() {
+        Authors author = authorsService.saveAuthor(new Authors("Лев", "Поисковый", 1828));
+
+        assertEquals(List.of(author.getId()), ids(authorsService.searchAuthors("firstName", "Lev")));
+        assertEquals(List.of(author.getId()), ids(authorsService.searchAuthors("firstName", "лев")));
+    }
+
+    @Test
+    void firstNameSearchFollowsUpdatedName() {
+        Authors author = authorsService.saveAuthor(new Authors("Фёдор", "Переименованный", 1821));
+        Authors details = new Authors("Пётр", "Переименованный", 1821);
+        details.setVersion(authorsService.getAuthorById(author.getId()).orElseThrow().getVersion());
+
+        authorsService.updateAuthor(author.getId(), details);
+
+        assertEquals(List.of(author.getId()), ids(authorsService.searchAuthors("firstName", "Petr")));
+        assertTrue(authorsService.searchAuthors("firstName", "Fedor").isEmpty());
+    }
+
+    private static List<Long> ids(List<Authors> authors) {
+        return authors.stream().map(Authors::getId).toList();
+    }
+}
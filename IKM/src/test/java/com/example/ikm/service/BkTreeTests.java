@@ -0,0 +1,70 @@
+package com.example.ikm.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BkTreeTests {
+
+    @Test
+    void findsMistypedSurnames() {
+        BkTree tree = new BkTree();
+        tree.add(FuzzySearch.normalize("Толстой"), 1);
+        tree.add(FuzzySearch.normalize("Достоевский"), 2);
+        tree.add(FuzzySearch.normalize("Толстая"), 3);
+        tree.add(FuzzySearch.normalize(" Лев   Толстой "), 4);
+
+        assertEquals(List.of(new BkTree.Match(1, 1), new BkTree.Match(3, 2)), tree.search(FuzzySearch.normalize("толстй"), 2));
+        assertEquals(List.of(new BkTree.Match(2, 1)), tree.search(FuzzySearch.normalize("Достоевкий"), 1));
+        assertEquals(List.of(new BkTree.Match(4, 0)), tree.search(FuzzySearch.normalize("Lev Tolstoi"), 0));
+
+        tree.remove(FuzzySearch.normalize("Толстой"), 1);
+        assertEquals(List.of(new BkTree.Match(3, 2)), tree.search(FuzzySearch.normalize("толстй"), 2));
+    }
+
+    @Test
+    void searchMatchesFullScan() {
+        Random random = new Random(7);
+        BkTree tree = new BkTree();
+        Map<Long, String> terms = new HashMap<>();
+        for (long id = 0; id < 2000; id++) {
+            String term = randomTerm(random);
+            terms.put(id, term);
+            tree.add(term, id);
+        }
+        for (long id = 0; id < 2000; id += 3) {
+            tree.remove(terms.remove(id), id);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            String query = randomTerm(random);
+            for (int distance = 0; distance <= 2; distance++) {
+                List<BkTree.Match> expected = new ArrayList<>();
+                for (Map.Entry<Long, String> term : terms.entrySet()) {
+                    int d = BkTree.distance(query, term.getValue());
+                    if (d <= distance) {
+                        expected.add(new BkTree.Match(term.getKey(), d));
+                    }
+                }
+                expected.sort((a, b) -> a.distance() != b.distance()
+                        ? Integer.compare(a.distance(), b.distance()) : Long.compare(a.id(), b.id()));
+                assertEquals(expected, tree.search(query, distance), query);
+            }
+        }
+    }
+
+    private static String randomTerm(Random random) {
+        StringBuilder term = new StringBuilder();
+        int length = 3 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            term.append("абвгд".charAt(random.nextInt(5)));
+        }
+        return term.toString();
+    }
+}
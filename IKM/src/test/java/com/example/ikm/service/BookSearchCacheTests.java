@@ -0,0 +1,148 @@
+package com.example.ikm.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookSearchCacheTests {
+    private final CatalogVersion version = new CatalogVersion();
+    private final BookSearchCache cache = new BookSearchCache(version, 10, Duration.ofMinutes(1), 100);
+    /** Загрузка по идентификаторам возвращает книги в другом порядке, чем исходный поиск. */
+    private final Function<List<Long>, List<Long>> byIds = ids -> {
+        List<Long> shuffled = new ArrayList<>(ids);
+        Collections.reverse(shuffled);
+        return shuffled;
+    };
+
+    @Test
+    void catalogWriteInvalidatesCachedResult() {
+        AtomicInteger queries = new AtomicInteger();
+        BookSearchCache.Key key = BookSearchCache.Key.of(BookSearchKind.TITLE, " Война ", null, null);
+
+        assertEquals(List.of(3L, 1L), cache.get(key, () -> load(queries, 3L, 1L), id -> id, byIds));
+        assertEquals(List.of(3L, 1L), cache.get(BookSearchCache.Key.of(BookSearchKind.TITLE, "война", null, null),
+                () -> load(queries, 3L, 1L), id -> id, byIds));
+        assertEquals(1, queries.get());
+
+        version.onCatalogChanged(CatalogChangedEvent.book(2L, CatalogChangedEvent.Change.CREATED));
+
+        assertEquals(List.of(3L, 2L, 1L), cache.get(key, () -> load(queries, 3L, 2L, 1L), id -> id, byIds));
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void concurrentMissesRunSingleQuery() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        BookSearchCache.Key key = BookSearchCache.Key.of(BookSearchKind.AUTHOR_ID, null, 7L, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get(key, () -> {
+                    await(release);
+                    return load(queries, 5L, 6L);
+                }, id -> id, byIds)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<List<Long>> result : results) {
+                assertEquals(List.of(5L, 6L), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void leaderTimeoutIsPropagatedToWaitingThreads() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        BookSearchCache.Key key = BookSearchCache.Key.of(BookSearchKind.TITLE, "война", null, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get(key, () -> {
+                    queries.incrementAndGet();
+                    await(release);
+                    throw new QueryTimeoutException("search timed out");
+                }, id -> id, byIds)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<List<Long>> result : results) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(QueryTimeoutException.class, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    void waitingThreadsRetryOtherFailuresWithSingleQuery() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        BookSearchCache.Key key = BookSearchCache.Key.of(BookSearchKind.GENRE, null, null, 4L);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get(key, () -> {
+                    if (queries.incrementAndGet() == 1) {
+                        await(release);
+                        throw new IllegalStateException("connection reset");
+                    }
+                    return List.of(8L);
+                }, id -> id, byIds)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            int failed = 0;
+            for (Future<List<Long>> result : results) {
+                try {
+                    assertEquals(List.of(8L), result.get(5, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                    failed++;
+                }
+            }
+            assertEquals(1, failed);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, queries.get());
+    }
+
+    private static List<Long> load(AtomicInteger queries, Long... ids) {
+        queries.incrementAndGet();
+        return List.of(ids);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.ikm.service;
+
+import com.example.ikm.entity.Authors;
+import com.example.ikm.entity.Books;
+import com.example.ikm.entity.Genres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Лента изменений на H2 в памяти: номера записей, устаревший курсор и догрузка событий.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:change-feed;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "ikm.snapshot.enabled=false",
+        "ikm.warmup.enabled=false"
+})
+class ChangeFeedTests {
+
+    @Autowired
+    private ChangeFeed changeFeed;
+    @Autowired
+    private AuthorsService authorsService;
+    @Autowired
+    private BooksService booksService;
+    @Autowired
+    private GenresService genresService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void authorDeletionLogsEveryBookWithoutGapsInSeq() {
+        long start = changeFeed.lastSeq();
+        Authors author = authorsService.saveAuthor(new Authors("Лента", "Удаляемый", 1900));
+        List<Long> bookIds = LongStream.range(0, 3)
+                .mapToObj(i -> booksService.saveBook(new Books("Лента " + i, 2000, author)).getId())
+                .toList();
+
+        authorsService.deleteAuthor(author.getId());
+
+        List<ChangeFeed.Entry> changes = changeFeed.changesAfter(start, 100).orElseThrow().changes();
+        assertEquals(LongStream.rangeClosed(start + 1, changeFeed.lastSeq()).boxed().toList(),
+                changes.stream().map(ChangeFeed.Entry::seq).toList());
+        List<ChangeFeed.Entry> deletion = changes.subList(changes.size() - 4, changes.size());
+        assertEquals(bookIds, deletion.subList(0, 3).stream().map(ChangeFeed.Entry::id).toList());
+        assertTrue(deletion.subList(0, 3).stream()
+                .allMatch(e -> e.entity().equals("BOOK") && e.change().equals("DELETED")));
+        assertEquals(new ChangeFeed.Entry(deletion.get(3).seq(), "AUTHOR", author.getId(), "DELETED",
+                deletion.get(3).changedAt()), deletion.get(3));
+    }
+
+    @Test
+    void cursorOutsideRetainedLogIsStale() {
+        genresService.saveGenre(new Genres("Лента: курсор 1"));
+        genresService.saveGenre(new Genres("Лента: курсор 2"));
+        long last = changeFeed.lastSeq();
+
+        ChangeFeed.Page head = changeFeed.changesAfter(last, 10).orElseThrow();
+        assertTrue(head.changes().isEmpty());
+        assertEquals(last, head.next());
+        assertFalse(head.hasMore());
+
+        // очистка по сроку хранения удалила все записи, кроме последней
+        jdbcTemplate.update("DELETE FROM catalog_changes WHERE seq < ?", last);
+        assertEquals(1, changeFeed.changesAfter(last - 1, 10).orElseThrow().changes().size());
+        assertTrue(changeFeed.changesAfter(last - 2, 10).isEmpty());
+        // курсор впереди журнала (БД восстановлена из копии)
+        assertTrue(changeFeed.changesAfter(last + 1, 10).isEmpty());
+    }
+
+    @Test
+    void eventsAfterReturnsChangesInCommitOrder() {
+        long start = changeFeed.lastSeq();
+        Genres genre = genresService.saveGenre(new Genres("Лента: события"));
+        genresService.deleteGenre(genre.getId());
+
+        assertEquals(List.of(
+                        CatalogChangedEvent.genre(genre.getId(), CatalogChangedEvent.Change.CREATED),
+                        CatalogChangedEvent.genre(genre.getId(), CatalogChangedEvent.Change.DELETED)),
+                changeFeed.eventsAfter(start, 10).orElseThrow());
+        assertEquals(List.of(), changeFeed.eventsAfter(changeFeed.lastSeq(), 10).orElseThrow());
+        // изменений больше, чем можно догрузить: нужна полная загрузка
+        assertTrue(changeFeed.eventsAfter(start, 1).isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ikm.service;
+
+import com.example.ikm.entity.Authors;
+import com.example.ikm.entity.Books;
+import com.example.ikm.entity.Genres;
+import com.example.ikm.repositories.AuthorsRepository;
+import com.example.ikm.repositories.BooksRepository;
+import com.example.ikm.repositories.GenresRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Слияние жанров на H2 в памяти: запросы слияния выполняются без внешней БД,
+ * а данные разработки не затрагиваются.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:genres-merge;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "ikm.snapshot.enabled=false",
+        "ikm.warmup.enabled=false"
+})
+@Transactional
+class GenresMergeTests {
+
+    @Autowired
+    private GenresService genresService;
+    @Autowired
+    private GenresRepository genresRepository;
+    @Autowired
+    private AuthorsRepository authorsRepository;
+    @Autowired
+    private BooksRepository booksRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void movesLinksToTargetAndDropsDuplicates() {
+        Genres fantasy = genresRepository.save(new Genres("Фэнтези (тест)"));
+        Genres typo = genresRepository.save(new Genres("Фентези (тест)"));
+        Genres typoLatin = genresRepository.save(new Genres("Fentezi (тест)"));
+        Genres other = genresRepository.save(new Genres("Сказка (тест)"));
+        Authors author = authorsRepository.save(new Authors("Тест", "Тестов", 1950));
+        Books both = book("Обе", author, fantasy, typo);
+        Books onlyTypo = book("Опечатка", author, typo, typoLatin);
+        Books mixed = book("Смешанная", author, typoLatin, other);
+        entityManager.flush();
+        entityManager.clear();
+
+        int moved = genresService.mergeGenres(fantasy.getId(), List.of(typo.getId(), typoLatin.getId()));
+        entityManager.clear();
+
+        assertEquals(2, moved);
+        assertEquals(Set.of(fantasy.getId()), genreIds(both));
+        assertEquals(Set.of(fantasy.getId()), genreIds(onlyTypo));
+        assertEquals(Set.of(fantasy.getId(), other.getId()), genreIds(mixed));
+        assertFalse(genresRepository.existsById(typo.getId()));
+        assertFalse(genresRepository.existsById(typoLatin.getId()));
+        assertEquals(both.getVersion() + 1, booksRepository.findById(both.getId()).orElseThrow().getVersion());
+    }
+
+    private Books book(String title, Authors author, Genres... genres) {
+        Books book = new Books(title, 2000, author);
+        book.setGenres(Set.of(genres));
+        return booksRepository.save(book);
+    }
+
+    private Set<Long> genreIds(Books book) {
+        return booksRepository.findById(book.getId()).orElseThrow().getGenres().stream()
+                .map(Genres::getId)
+                .collect(Collectors.toSet());
+    }
+}
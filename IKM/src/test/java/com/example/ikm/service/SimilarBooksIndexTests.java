@@ -0,0 +1,94 @@
+package com.example.ikm.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SimilarBooksIndexTests {
+    private final SimilarBooksIndex index = new SimilarBooksIndex(null, null, 2, 0.5, 2);
+
+    @AfterEach
+    void shutdown() {
+        index.destroy();
+    }
+
+    @Test
+    void ranksByGenreOverlapAndSameAuthor() {
+        index.load(List.of(
+                book(1, 10, 1, 2),
+                book(2, 20, 1, 2),
+                book(3, 10, 3),
+                book(4, 30, 1),
+                book(5, 40, 4)));
+
+        // 2: жанры совпадают (1.0); 3: тот же автор (0.5); 4: половина жанров (0.5), но дальше по id
+        assertEquals(List.of(2L, 3L), index.similarTo(1L));
+        assertEquals(List.of(), index.similarTo(5L));
+
+        index.apply(3L, book(3, 10, 1, 2));
+        assertEquals(List.of(3L, 2L), index.similarTo(1L));
+
+        index.apply(3L, null);
+        assertEquals(List.of(2L, 4L), index.similarTo(1L));
+        assertEquals(List.of(), index.similarTo(3L));
+    }
+
+    @Test
+    void incrementalUpdatesMatchFullRebuild() {
+        Random random = new Random(42);
+        Map<Long, SimilarBooksIndex.Features> books = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            books.put(id, randomBook(random, id));
+        }
+        index.load(books.values());
+
+        for (int i = 0; i < 300; i++) {
+            long id = 1 + random.nextInt(220);
+            SimilarBooksIndex.Features book = random.nextInt(4) == 0 ? null : randomBook(random, id);
+            if (book == null) {
+                books.remove(id);
+            } else {
+                books.put(id, book);
+            }
+            index.apply(id, book);
+        }
+
+        SimilarBooksIndex rebuilt = new SimilarBooksIndex(null, null, 2, 0.5, 2);
+        try {
+            rebuilt.load(books.values());
+            for (long id = 1; id <= 220; id++) {
+                assertEquals(rebuilt.similarTo(id), index.similarTo(id), "книга " + id);
+            }
+            assertEquals(rebuilt.size(), index.size());
+        } finally {
+            rebuilt.destroy();
+        }
+    }
+
+    private static SimilarBooksIndex.Features randomBook(Random random, long id) {
+        Set<Long> genres = new HashSet<>();
+        for (int g = 0; g < 3; g++) {
+            if (random.nextBoolean()) {
+                genres.add((long) random.nextInt(8));
+            }
+        }
+        return new SimilarBooksIndex.Features(id, (long) random.nextInt(30), genres);
+    }
+
+    private static SimilarBooksIndex.Features book(long id, long authorId, long... genreIds) {
+        Set<Long> genres = new LinkedHashSet<>();
+        for (long genreId : genreIds) {
+            genres.add(genreId);
+        }
+        return new SimilarBooksIndex.Features(id, authorId, genres);
+    }
+}
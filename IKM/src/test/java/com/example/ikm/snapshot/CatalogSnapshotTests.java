@@ -0,0 +1,60 @@
+package com.example.ikm.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CatalogSnapshotTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWrittenCatalog() throws Exception {
+        List<CatalogSnapshot.Genre> genres = new ArrayList<>();
+        for (long id = 1; id <= 70; id++) {
+            genres.add(new CatalogSnapshot.Genre(id * 10, "Жанр " + id));
+        }
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(path, 42,
+                genres,
+                List.of(new CatalogSnapshot.Author(7, "Лев", "Толстой")),
+                List.of(new CatalogSnapshot.Book(100, 7L, "Война и мир", Set.of(10L, 700L)),
+                        new CatalogSnapshot.Book(101, null, "", Set.of())));
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(path);
+        assertEquals(42, snapshot.seq());
+        assertEquals(70, snapshot.genreCount());
+        assertEquals("Жанр 70", snapshot.genreName(69));
+        assertEquals(7, snapshot.authorId(0));
+        assertEquals("Толстой", snapshot.authorLastName(0));
+        assertEquals(2, snapshot.bookCount());
+        assertEquals("Война и мир", snapshot.bookTitle(0));
+        assertEquals(7L, snapshot.bookAuthorId(0));
+        assertEquals(Set.of(10L, 700L), snapshot.bookGenreIds(0));
+        assertNull(snapshot.bookAuthorId(1));
+        assertEquals(Set.of(), snapshot.bookGenreIds(1));
+    }
+
+    @Test
+    void rejectsCorruptedFile() throws Exception {
+        Path path = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(path, 1, List.of(new CatalogSnapshot.Genre(1, "Роман")), List.of(), List.of());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), channel.size() - 1);
+        }
+
+        assertThrows(IllegalStateException.class, () -> CatalogSnapshot.open(path));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.ikm.warmup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmupRunnerTests {
+
+    @Test
+    void roundTimesConvergeWhenSpreadOfLastWindowIsWithinTolerance() {
+        List<Long> rounds = List.of(900L, 400L, 210L, 105L, 100L, 98L, 103L);
+
+        assertTrue(WarmupRunner.isConverged(rounds, 4, 0.1));
+        assertFalse(WarmupRunner.isConverged(rounds, 5, 0.1));
+    }
+
+    @Test
+    void tooFewRoundsNeverConverge() {
+        assertFalse(WarmupRunner.isConverged(List.of(100L, 100L), 3, 0.5));
+    }
+}